@@ -134,6 +134,18 @@ class SourceGenerator {
             attrs.noJsonObject = false
         }
         
+        if (attrs.compact == null) {
+            attrs.compact = false
+        }
+        if (attrs.compact && attrs.props.any { p -> p.primitiveType }) {
+            throw new IllegalArgumentException("${name}: optional properties " +
+                "of compact objects must not have a primitive type")
+        }
+
+        if (attrs.fingerprint == null) {
+            attrs.fingerprint = false
+        }
+        
         if (attrs.shortname == null) {
             attrs.shortname = ""
         }
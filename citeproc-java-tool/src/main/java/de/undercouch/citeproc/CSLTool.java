@@ -1,6 +1,7 @@
 package de.undercouch.citeproc;
 
 import de.undercouch.citeproc.helper.CSLUtils;
+import de.undercouch.citeproc.helper.URLContentCache;
 import de.undercouch.citeproc.tool.AbstractCSLToolCommand;
 import de.undercouch.citeproc.tool.BibliographyCommand;
 import de.undercouch.citeproc.tool.CSLToolContext;
@@ -10,6 +11,7 @@ import de.undercouch.citeproc.tool.InputFileCommand;
 import de.undercouch.citeproc.tool.JsonCommand;
 import de.undercouch.citeproc.tool.ListCommand;
 import de.undercouch.citeproc.tool.ProviderCommand;
+import de.undercouch.citeproc.tool.ServerCommand;
 import de.undercouch.citeproc.tool.ShellCommand;
 import de.undercouch.underline.CommandDesc;
 import de.undercouch.underline.CommandDescList;
@@ -78,6 +80,9 @@ public class CSLTool extends AbstractCSLToolCommand {
             @CommandDesc(longName = "shell",
                     description = "run citeproc-java in interactive mode",
                     command = ShellCommand.class),
+            @CommandDesc(longName = "server",
+                    description = "run a local server that renders citations",
+                    command = ServerCommand.class),
             @CommandDesc(longName = "help",
                     description = "display help for a given command",
                     command = HelpCommand.class)
@@ -129,6 +134,10 @@ public class CSLTool extends AbstractCSLToolCommand {
         configDir.mkdirs();
         CSLToolContext.current().setConfigDir(configDir);
 
+        // keep remote styles between runs
+        CSLUtils.setURLContentCache(new URLContentCache(
+                new File(configDir, "cache"), URLContentCache.DEFAULT_MAX_AGE));
+
         // if there are no commands print usage and exit
         if (command == null) {
             usage();
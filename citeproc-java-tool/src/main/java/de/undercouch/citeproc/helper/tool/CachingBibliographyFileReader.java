@@ -6,28 +6,34 @@ import de.undercouch.citeproc.ItemDataProvider;
 import java.io.File;
 import java.io.IOException;
 import java.lang.ref.SoftReference;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Works like {@link BibliographyFileReader} but caches bibliography files
  * in memory. Note that this class only caches files but not input
  * streams, so only {@link #readBibliographyFile(File)} is overridden here.
+ * A file is read again if its modification time or size has changed.
  * The cache is not automatically cleaned (by some background thread for
  * example), so this is by far no ideal implementation. However, for the
- * citeproc-java tool it's more than enough.
+ * citeproc-java tool it's more than enough. The cache is thread-safe, so
+ * files can be read with {@link #readBibliographyFiles(java.util.List, int)}.
  * @author Michel Kraemer
  */
 public class CachingBibliographyFileReader extends BibliographyFileReader {
-    private final Map<String, SoftReference<ItemDataProvider>> cache = new HashMap<>();
+    private final Map<String, CacheEntry> cache = new ConcurrentHashMap<>();
 
     @Override
     public ItemDataProvider readBibliographyFile(File bibfile) throws IOException {
         clean();
 
-        SoftReference<ItemDataProvider> sr = cache.get(bibfile.getAbsolutePath());
-        if (sr != null) {
-            ItemDataProvider r = sr.get();
+        String path = bibfile.getAbsolutePath();
+        long lastModified = bibfile.lastModified();
+        long length = bibfile.length();
+
+        CacheEntry e = cache.get(path);
+        if (e != null && e.lastModified == lastModified && e.length == length) {
+            ItemDataProvider r = e.provider.get();
             if (r != null) {
                 return r;
             }
@@ -35,13 +41,28 @@ public class CachingBibliographyFileReader extends BibliographyFileReader {
 
         ItemDataProvider r = super.readBibliographyFile(bibfile);
         if (r != null) {
-            cache.put(bibfile.getAbsolutePath(), new SoftReference<>(r));
+            cache.put(path, new CacheEntry(lastModified, length, r));
         }
 
         return r;
     }
 
     private void clean() {
-        cache.entrySet().removeIf(e -> e.getValue().get() == null);
+        cache.entrySet().removeIf(e -> e.getValue().provider.get() == null);
+    }
+
+    /**
+     * A cached provider and the attributes of the file it has been read from
+     */
+    private static class CacheEntry {
+        final long lastModified;
+        final long length;
+        final SoftReference<ItemDataProvider> provider;
+
+        CacheEntry(long lastModified, long length, ItemDataProvider provider) {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.provider = new SoftReference<>(provider);
+        }
     }
 }
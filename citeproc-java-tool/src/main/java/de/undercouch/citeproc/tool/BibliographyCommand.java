@@ -1,10 +1,9 @@
 package de.undercouch.citeproc.tool;
 
 import de.undercouch.citeproc.CSL;
-import de.undercouch.citeproc.CSLBuilder;
 import de.undercouch.citeproc.ItemDataProvider;
+import de.undercouch.citeproc.StyleCatalog;
 import de.undercouch.citeproc.helper.tool.ToolUtils;
-import de.undercouch.citeproc.output.Bibliography;
 import de.undercouch.underline.InputReader;
 import de.undercouch.underline.Option.ArgumentType;
 import de.undercouch.underline.OptionDesc;
@@ -99,7 +98,7 @@ public class BibliographyCommand extends CitationIdsCommand {
 
         // style is not supported. look for alternatives.
         String message = "Could not find style in classpath: " + style;
-        Set<String> availableStyles = CSL.getSupportedStyles();
+        Set<String> availableStyles = StyleCatalog.getInstance().getStyleNames();
 
         // output alternative
         if (!availableStyles.isEmpty()) {
@@ -146,11 +145,8 @@ public class BibliographyCommand extends CitationIdsCommand {
 
         // initialize citation processor
         try {
-            CSL citeproc = new CSLBuilder()
-                    .itemDataProvider(provider)
-                    .style(style)
-                    .lang(locale)
-                    .build();
+            CSL citeproc = CSLToolContext.current().getProcessor(
+                    style, locale, provider);
 
             // set output format
             citeproc.setOutputFormat(format);
@@ -181,7 +177,8 @@ public class BibliographyCommand extends CitationIdsCommand {
      */
     protected void doGenerateCSL(CSL citeproc, Collection<String> citationIds,
             PrintWriter out) {
-        Bibliography bibl = citeproc.makeBibliography();
-        out.println(bibl.makeString());
+        StringBuilder sb = new StringBuilder();
+        citeproc.appendBibliography(sb);
+        out.println(sb);
     }
 }
@@ -1,9 +1,15 @@
 package de.undercouch.citeproc.tool;
 
 import de.undercouch.citeproc.BibliographyFileReader;
+import de.undercouch.citeproc.CSL;
+import de.undercouch.citeproc.CSLBuilder;
+import de.undercouch.citeproc.ItemDataProvider;
 import de.undercouch.citeproc.helper.tool.CachingBibliographyFileReader;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * A context containing information used during execution of
@@ -16,6 +22,16 @@ public class CSLToolContext {
     private File configDir;
     private final BibliographyFileReader bibReader = new CachingBibliographyFileReader();
 
+    /**
+     * The processor returned by {@link #getProcessor(String, String, ItemDataProvider)},
+     * the style and locale it has been created with, and the provider it
+     * reads items from
+     */
+    private CSL processor;
+    private List<String> processorKey;
+    private final DelegatingItemDataProvider processorProvider =
+            new DelegatingItemDataProvider();
+
     private CSLToolContext() {
         // hidden constructor
     }
@@ -83,4 +99,39 @@ public class CSLToolContext {
     public BibliographyFileReader getBibliographyFileReader() {
         return bibReader;
     }
+
+    /**
+     * <p>Returns a common citation processor for the given parameters. The
+     * processor is kept until this method is called with a different
+     * style or locale, so subsequent commands in the interactive shell do
+     * not have to load the style again. The processor reads items from
+     * the given provider even if it has been created with another one
+     * (e.g. because the input files have been merged again).</p>
+     * <p>The processor is reset before it is returned. Callers have to set
+     * the output format and register citation items again.</p>
+     * @param style the citation style
+     * @param locale the citation locale
+     * @param provider the provider serving citation items
+     * @return the processor
+     * @throws IOException if the style or the locale could not be loaded
+     */
+    public CSL getProcessor(String style, String locale,
+            ItemDataProvider provider) throws IOException {
+        List<String> key = Arrays.asList(style, locale);
+        if (processor != null && key.equals(processorKey)) {
+            // reset first so no items of the previous provider are kept
+            processor.reset();
+            processorProvider.setDelegate(provider);
+            return processor;
+        }
+
+        processorProvider.setDelegate(provider);
+        processor = new CSLBuilder()
+                .itemDataProvider(processorProvider)
+                .style(style)
+                .lang(locale)
+                .build();
+        processorKey = key;
+        return processor;
+    }
 }
@@ -0,0 +1,44 @@
+package de.undercouch.citeproc.tool;
+
+import de.undercouch.citeproc.ItemDataProvider;
+import de.undercouch.citeproc.csl.CSLItemData;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * A provider that forwards all calls to another provider that can be
+ * replaced at any time. Allows a citation processor to be reused with
+ * different citation items. Serves no items if there is no delegate.
+ * @author Michel Kraemer
+ */
+public class DelegatingItemDataProvider implements ItemDataProvider {
+    private volatile ItemDataProvider delegate;
+
+    /**
+     * Sets the provider to forward calls to
+     * @param delegate the provider (may be {@code null})
+     */
+    public void setDelegate(ItemDataProvider delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * @return the provider calls are forwarded to (may be {@code null})
+     */
+    public ItemDataProvider getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public CSLItemData retrieveItem(String id) {
+        ItemDataProvider d = delegate;
+        return d == null ? null : d.retrieveItem(id);
+    }
+
+    @Override
+    public Collection<String> getIds() {
+        ItemDataProvider d = delegate;
+        return d == null ? Collections.emptyList() : d.getIds();
+    }
+}
@@ -1,7 +1,6 @@
 package de.undercouch.citeproc.tool;
 
 import de.undercouch.citeproc.BibliographyFileReader;
-import de.undercouch.citeproc.CompoundItemDataProvider;
 import de.undercouch.citeproc.ItemDataProvider;
 import de.undercouch.underline.Command;
 import de.undercouch.underline.InputReader;
@@ -104,11 +103,11 @@ public class InputFileCommand extends AbstractCSLToolCommand {
             if (inputs.size() == 1) {
                 provider = reader.readBibliographyFile(new File(inputs.get(0)));
             } else {
-                List<ItemDataProvider> providers = new ArrayList<>();
+                List<File> files = new ArrayList<>();
                 for (String input : inputs) {
-                    providers.add(reader.readBibliographyFile(new File(input)));
+                    files.add(new File(input));
                 }
-                provider = new CompoundItemDataProvider(providers);
+                provider = reader.readBibliographyFiles(files);
             }
         } catch (IOException e) {
             error(e.getMessage());
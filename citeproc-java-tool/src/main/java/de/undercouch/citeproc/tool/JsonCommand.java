@@ -2,8 +2,6 @@ package de.undercouch.citeproc.tool;
 
 import de.undercouch.citeproc.ItemDataProvider;
 import de.undercouch.citeproc.csl.CSLItemData;
-import de.undercouch.citeproc.helper.json.JsonBuilder;
-import de.undercouch.citeproc.helper.json.StringJsonBuilderFactory;
 import de.undercouch.underline.InputReader;
 
 import java.io.IOException;
@@ -41,14 +39,15 @@ public class JsonCommand extends CitationIdsCommand {
     }
 
     /**
-     * Generates JSON
+     * Generates JSON. Writes the citation item data directly to the output
+     * stream without converting it to strings first.
      * @param citationIds the citation ids given on the command line
      * @param provider a provider containing all citation item data
      * @param out the print stream to write the output to
+     * @throws IOException if the output could not be written
      */
     private void generateJSON(List<String> citationIds, ItemDataProvider provider,
-            PrintWriter out) {
-        StringJsonBuilderFactory factory = new StringJsonBuilderFactory();
+            PrintWriter out) throws IOException {
         // create an array of citation item data objects (either for
         // the whole bibliography or for the given citation ids only)
         out.print("[");
@@ -63,8 +62,7 @@ public class JsonCommand extends CitationIdsCommand {
                 out.print(",");
             }
             CSLItemData item = provider.retrieveItem(id);
-            JsonBuilder b = factory.createJsonBuilder();
-            out.print(item.toJson(b));
+            item.toJson(out);
             ++i;
         }
 
@@ -0,0 +1,124 @@
+package de.undercouch.citeproc.tool;
+
+import com.sun.net.httpserver.HttpServer;
+import de.undercouch.citeproc.tool.server.LocalRequestFilter;
+import de.undercouch.citeproc.tool.server.RenderHandler;
+import de.undercouch.citeproc.tool.server.RenderService;
+import de.undercouch.underline.InputReader;
+import de.undercouch.underline.Option.ArgumentType;
+import de.undercouch.underline.OptionDesc;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * <p>CLI command that runs a local HTTP server rendering citations and
+ * bibliographies. Bibliography files and citation processors are kept in
+ * memory between requests, so clients such as editor plugins or build
+ * tools do not have to pay for starting the JVM and parsing styles and
+ * bibliography files every time.</p>
+ * <p>Requests are JSON objects sent via <code>POST /</code>. See
+ * {@link RenderService} for a description of their contents. A
+ * <code>POST /shutdown</code> request stops the server. All requests must
+ * have a <code>Content-Type</code> of <code>application/json</code> and
+ * a <code>Host</code> header naming the local machine (see
+ * {@link LocalRequestFilter}).</p>
+ * @author Michel Kraemer
+ */
+public class ServerCommand extends AbstractCSLToolCommand {
+    private String host = "localhost";
+    private String port = "8085";
+
+    /**
+     * Sets the host to bind to (default: localhost)
+     * @param host the host
+     */
+    @OptionDesc(longName = "host", shortName = "H",
+            description = "HOST to bind to (default: localhost)",
+            argumentName = "HOST", argumentType = ArgumentType.STRING,
+            priority = 10)
+    public void setHost(String host) {
+        this.host = host;
+    }
+
+    /**
+     * Sets the port to listen on (default: 8085)
+     * @param port the port
+     */
+    @OptionDesc(longName = "port", shortName = "p",
+            description = "PORT to listen on (default: 8085)",
+            argumentName = "PORT", argumentType = ArgumentType.STRING,
+            priority = 20)
+    public void setPort(String port) {
+        this.port = port;
+    }
+
+    @Override
+    public String getUsageName() {
+        return "server";
+    }
+
+    @Override
+    public String getUsageDescription() {
+        return "Run a local server that renders citations and bibliographies";
+    }
+
+    @Override
+    public boolean checkArguments() {
+        try {
+            int p = Integer.parseInt(port);
+            if (p < 0 || p > 65535) {
+                error("invalid port: " + port);
+                return false;
+            }
+        } catch (NumberFormatException e) {
+            error("invalid port: " + port);
+            return false;
+        }
+        return super.checkArguments();
+    }
+
+    @Override
+    public int doRun(String[] remainingArgs, InputReader in, PrintWriter out)
+            throws IOException {
+        RenderService service = new RenderService(
+                CSLToolContext.current().getBibliographyFileReader());
+        CountDownLatch shutdown = new CountDownLatch(1);
+
+        HttpServer server = HttpServer.create(new InetSocketAddress(
+                host, Integer.parseInt(port)), 0);
+        LocalRequestFilter filter = new LocalRequestFilter(host);
+        server.createContext("/", new RenderHandler(service))
+                .getFilters().add(filter);
+        server.createContext("/shutdown", exchange -> {
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+            shutdown.countDown();
+        }).getFilters().add(filter);
+
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors());
+        server.setExecutor(executor);
+        server.start();
+
+        out.println("Listening on http://" + host + ":" +
+                server.getAddress().getPort() + "/");
+        out.flush();
+
+        try {
+            shutdown.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            server.stop(1);
+            executor.shutdown();
+            service.close();
+        }
+
+        return 0;
+    }
+}
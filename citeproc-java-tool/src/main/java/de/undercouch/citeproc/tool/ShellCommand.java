@@ -31,6 +31,7 @@ import java.io.OutputStream;
 import java.io.PrintStream;
 import java.io.PrintWriter;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Runs the tool in interactive mode
@@ -42,7 +43,8 @@ public class ShellCommand extends AbstractCSLToolCommand {
      */
     public static final List<Class<? extends Command>> EXCLUDED_COMMANDS;
     static {{
-        EXCLUDED_COMMANDS = List.of(HelpCommand.class, ShellCommand.class);
+        EXCLUDED_COMMANDS = List.of(HelpCommand.class, ShellCommand.class,
+                ServerCommand.class);
     }}
 
     @Override
@@ -163,11 +165,14 @@ public class ShellCommand extends AbstractCSLToolCommand {
             args = ArrayUtils.subarray(args, 1, args.length);
             args = augmentCommand(args, pr.getLastCommand(), acceptsInputFile);
 
+            long start = System.nanoTime();
             try {
                 cmd.run(args, lr, cout);
             } catch (OptionParserException e) {
                 error(e.getMessage());
             }
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            cout.println("(" + millis + " ms)");
         }
     }
 
@@ -0,0 +1,108 @@
+package de.undercouch.citeproc.tool.server;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * <p>Rejects requests to the {@link de.undercouch.citeproc.tool.ServerCommand}
+ * that may have been sent by a web page running in the user's browser.</p>
+ * <p>Only <code>POST</code> requests with a <code>Content-Type</code> of
+ * <code>application/json</code> are accepted. Browsers send such requests
+ * cross-origin only after a preflight request, which this server never
+ * approves. In addition, the <code>Host</code> header must name the local
+ * machine (or the host the server is bound to) so pages cannot read
+ * responses through DNS rebinding.</p>
+ * @author Michel Kraemer
+ */
+public class LocalRequestFilter extends Filter {
+    private static final String JSON = "application/json";
+
+    private final Set<String> allowedHosts = new HashSet<>();
+
+    /**
+     * Creates a new filter
+     * @param boundHost the host the server is bound to. Will be accepted
+     * in the <code>Host</code> header in addition to <code>localhost</code>,
+     * <code>127.0.0.1</code>, and <code>[::1]</code>. May be
+     * <code>null</code>.
+     */
+    public LocalRequestFilter(String boundHost) {
+        allowedHosts.add("localhost");
+        allowedHosts.add("127.0.0.1");
+        allowedHosts.add("[::1]");
+        if (boundHost != null) {
+            String h = boundHost.toLowerCase(Locale.ENGLISH);
+            if (h.indexOf(':') >= 0 && !h.startsWith("[")) {
+                // bare IPv6 address
+                h = "[" + h + "]";
+            }
+            allowedHosts.add(h);
+        }
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        if (!isAllowedHost(exchange.getRequestHeaders().getFirst("Host"))) {
+            reject(exchange, 403, "Host not allowed");
+            return;
+        }
+
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            exchange.getResponseHeaders().set("Allow", "POST");
+            reject(exchange, 405, "Method not allowed");
+            return;
+        }
+
+        if (!isJson(exchange.getRequestHeaders().getFirst("Content-Type"))) {
+            reject(exchange, 415, "Content-Type must be " + JSON);
+            return;
+        }
+
+        chain.doFilter(exchange);
+    }
+
+    @Override
+    public String description() {
+        return "Rejects requests that do not come from a local client";
+    }
+
+    private boolean isAllowedHost(String host) {
+        if (host == null) {
+            return false;
+        }
+        host = host.trim().toLowerCase(Locale.ENGLISH);
+
+        // strip port
+        int colon = host.lastIndexOf(':');
+        if (colon >= 0 && host.indexOf(']', colon) < 0) {
+            host = host.substring(0, colon);
+        }
+
+        return allowedHosts.contains(host);
+    }
+
+    private static boolean isJson(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        int semicolon = contentType.indexOf(';');
+        if (semicolon >= 0) {
+            contentType = contentType.substring(0, semicolon);
+        }
+        return JSON.equalsIgnoreCase(contentType.trim());
+    }
+
+    private static void reject(HttpExchange exchange, int status,
+            String message) throws IOException {
+        try {
+            RenderHandler.respond(exchange, status, RenderHandler.error(message));
+        } finally {
+            exchange.close();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package de.undercouch.citeproc.tool.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import de.undercouch.citeproc.helper.json.JsonBuilder;
+import de.undercouch.citeproc.helper.json.JsonLexer;
+import de.undercouch.citeproc.helper.json.JsonParser;
+import de.undercouch.citeproc.helper.json.StringJsonBuilderFactory;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Handles HTTP requests for the {@link de.undercouch.citeproc.tool.ServerCommand}.
+ * Accepts JSON objects and passes them to a {@link RenderService}. Responds
+ * with a JSON object containing the rendered citations and bibliography or
+ * an <code>error</code> message. Requests should be checked by a
+ * {@link LocalRequestFilter} before they reach this handler.
+ * @author Michel Kraemer
+ */
+public class RenderHandler implements HttpHandler {
+    private final RenderService service;
+
+    /**
+     * Creates a new handler
+     * @param service the service that renders the requests
+     */
+    public RenderHandler(RenderService service) {
+        this.service = service;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            Map<String, Object> request;
+            try (Reader r = new InputStreamReader(exchange.getRequestBody(),
+                    StandardCharsets.UTF_8)) {
+                request = new JsonParser(new JsonLexer(r)).parseObject();
+            } catch (IOException e) {
+                respond(exchange, 400, error("Invalid JSON object: " +
+                        e.getMessage()));
+                return;
+            }
+
+            String response;
+            int status = 200;
+            try {
+                response = toJson(service.render(request));
+            } catch (IllegalArgumentException e) {
+                status = 400;
+                response = error(e.getMessage());
+            } catch (IOException | RuntimeException e) {
+                status = 500;
+                response = error(e.getMessage());
+            }
+            respond(exchange, status, response);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static String toJson(Map<String, Object> obj) {
+        JsonBuilder b = new StringJsonBuilderFactory().createJsonBuilder();
+        for (Map.Entry<String, Object> e : obj.entrySet()) {
+            b.add(e.getKey(), e.getValue());
+        }
+        return (String)b.build();
+    }
+
+    static String error(String message) {
+        return (String)new StringJsonBuilderFactory().createJsonBuilder()
+                .add("error", String.valueOf(message))
+                .build();
+    }
+
+    static void respond(HttpExchange exchange, int status,
+            String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type",
+                "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+}
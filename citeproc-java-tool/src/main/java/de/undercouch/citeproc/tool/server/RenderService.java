@@ -0,0 +1,374 @@
+package de.undercouch.citeproc.tool.server;
+
+import de.undercouch.citeproc.BibliographyFileReader;
+import de.undercouch.citeproc.CSL;
+import de.undercouch.citeproc.CSLBuilder;
+import de.undercouch.citeproc.CompoundItemDataProvider;
+import de.undercouch.citeproc.FileItemDataProvider;
+import de.undercouch.citeproc.ItemDataProvider;
+import de.undercouch.citeproc.ListItemDataProvider;
+import de.undercouch.citeproc.csl.CSLItemData;
+import de.undercouch.citeproc.output.Citation;
+import de.undercouch.citeproc.tool.DelegatingItemDataProvider;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * <p>Renders citations and bibliographies for requests received by the
+ * {@link de.undercouch.citeproc.tool.ServerCommand}. Keeps bibliography
+ * files and citation processors in memory so subsequent requests do not
+ * have to parse them again.</p>
+ * <p>Bibliography files are watched and reloaded when they change.
+ * Processors are kept per combination of style, locale, and output format.
+ * Requests using the same combination are processed one after the other.</p>
+ * <p>A request is a map with the following keys (all of them optional):</p>
+ * <ul>
+ * <li><code>style</code>: the citation style (default: ieee)</li>
+ * <li><code>locale</code>: the citation locale (default: en-US)</li>
+ * <li><code>format</code>: the output format (default: text)</li>
+ * <li><code>inputs</code>: a list of bibliography files</li>
+ * <li><code>items</code>: a list of citation items or a map of citation
+ * item IDs to citation items</li>
+ * <li><code>citations</code>: a list of citation clusters, each of them
+ * a list of citation item IDs</li>
+ * <li><code>citationIds</code>: the IDs of the citation items to include
+ * in the bibliography (default: all items)</li>
+ * <li><code>bibliography</code>: true if a bibliography should be
+ * generated (default: true)</li>
+ * </ul>
+ * @author Michel Kraemer
+ */
+public class RenderService implements Closeable {
+    /**
+     * The maximum number of processors to keep in memory
+     */
+    private static final int MAX_PROCESSORS = 32;
+
+    /**
+     * The maximum number of bibliography files to keep in memory and watch
+     */
+    private static final int MAX_FILES = 64;
+
+    private final BibliographyFileReader reader;
+
+    /**
+     * Bibliography files mapped to providers serving their items. The
+     * least recently used provider is closed and removed if there are
+     * too many, so the server does not keep a watcher thread for every
+     * file a client has ever requested.
+     */
+    private final Map<File, FileItemDataProvider> files =
+            new LinkedHashMap<File, FileItemDataProvider>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(
+                        Map.Entry<File, FileItemDataProvider> eldest) {
+                    if (size() <= MAX_FILES) {
+                        return false;
+                    }
+                    try {
+                        // requests still using the provider can keep
+                        // reading its items. they just won't be reloaded.
+                        eldest.getValue().close();
+                    } catch (IOException e) {
+                        // ignore
+                    }
+                    return true;
+                }
+            };
+
+    /**
+     * Processors mapped to their style, locale, and output format. The
+     * least recently used processor is removed if there are too many.
+     */
+    private final Map<List<String>, Processor> processors =
+            new LinkedHashMap<List<String>, Processor>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(
+                        Map.Entry<List<String>, Processor> eldest) {
+                    return size() > MAX_PROCESSORS;
+                }
+            };
+
+    /**
+     * Creates a new service
+     * @param reader the reader used to read bibliography files
+     */
+    public RenderService(BibliographyFileReader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Renders citations and a bibliography
+     * @param request the request
+     * @return the response containing the rendered <code>citations</code>
+     * and the <code>bibliography</code>
+     * @throws IllegalArgumentException if the request is invalid (e.g.
+     * because it refers to unknown citation items)
+     * @throws IOException if a bibliography file or the citation style
+     * could not be loaded
+     */
+    public Map<String, Object> render(Map<String, Object> request)
+            throws IOException {
+        String style = getString(request, "style", "ieee");
+        String locale = getString(request, "locale", "en-US");
+        String format = getString(request, "format", "text");
+        if (!CSL.supportsStyle(style)) {
+            throw new IllegalArgumentException("Could not find style in " +
+                    "classpath: " + style);
+        }
+
+        ItemDataProvider provider = getProvider(request);
+        List<List<String>> clusters = getClusters(request);
+        Collection<String> citationIds = getStringList(request, "citationIds");
+        Object bibliography = request.getOrDefault("bibliography", true);
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        Processor processor = getProcessor(style, locale, format);
+        synchronized (processor) {
+            CSL citeproc = processor.citeproc;
+            processor.provider.setDelegate(provider);
+            try {
+                citeproc.reset();
+                citeproc.setOutputFormat(format);
+
+                if (citationIds == null) {
+                    citationIds = provider.getIds();
+                }
+                citeproc.registerCitationItems(citationIds);
+
+                // later citations may update earlier ones, so keep the
+                // last text generated for each index
+                Map<Integer, String> citations = new TreeMap<>();
+                for (List<String> cluster : clusters) {
+                    for (Citation c : citeproc.makeCitation(cluster)) {
+                        citations.put(c.getIndex(), c.getText());
+                    }
+                }
+                response.put("citations", new ArrayList<>(citations.values()));
+
+                if (Boolean.TRUE.equals(bibliography)) {
+                    StringBuilder sb = new StringBuilder();
+                    citeproc.appendBibliography(sb);
+                    response.put("bibliography", sb.toString());
+                }
+            } finally {
+                // do not keep the request's items in memory
+                citeproc.reset();
+                processor.provider.setDelegate(null);
+            }
+        }
+
+        return response;
+    }
+
+    /**
+     * Gets or creates a processor
+     * @param style the citation style
+     * @param locale the citation locale
+     * @param format the output format
+     * @return the processor
+     * @throws IOException if the style could not be loaded
+     */
+    private Processor getProcessor(String style, String locale, String format)
+            throws IOException {
+        List<String> key = List.of(style, locale, format);
+        synchronized (processors) {
+            Processor p = processors.get(key);
+            if (p != null) {
+                return p;
+            }
+        }
+
+        // create the processor outside the lock. another thread might
+        // do the same, but only one of the processors will be kept.
+        DelegatingItemDataProvider provider = new DelegatingItemDataProvider();
+        CSL citeproc = new CSLBuilder()
+                .itemDataProvider(provider)
+                .style(style)
+                .lang(locale)
+                .build();
+        Processor p = new Processor(citeproc, provider);
+
+        synchronized (processors) {
+            Processor existing = processors.putIfAbsent(key, p);
+            return existing != null ? existing : p;
+        }
+    }
+
+    /**
+     * Creates a provider serving the items from the bibliography files and
+     * the inline items of the given request
+     * @param request the request
+     * @return the provider
+     * @throws IOException if one of the bibliography files could not be read
+     */
+    private ItemDataProvider getProvider(Map<String, Object> request)
+            throws IOException {
+        List<ItemDataProvider> providers = new ArrayList<>();
+
+        List<String> inputs = getStringList(request, "inputs");
+        if (inputs != null) {
+            for (String input : inputs) {
+                providers.add(getFileProvider(new File(input)));
+            }
+        }
+
+        Object items = request.get("items");
+        if (items != null) {
+            providers.add(new ListItemDataProvider(toItems(items)));
+        }
+
+        if (providers.isEmpty()) {
+            throw new IllegalArgumentException("No inputs or items specified");
+        }
+        if (providers.size() == 1) {
+            return providers.get(0);
+        }
+        return new CompoundItemDataProvider(providers);
+    }
+
+    /**
+     * Gets or creates a provider for the given bibliography file and starts
+     * watching it
+     * @param file the bibliography file
+     * @return the provider
+     * @throws IOException if the file could not be read
+     */
+    private FileItemDataProvider getFileProvider(File file) throws IOException {
+        if (!file.exists()) {
+            throw new IllegalArgumentException("Bibliography file does " +
+                    "not exist: " + file);
+        }
+
+        File key = file.getCanonicalFile();
+        synchronized (files) {
+            FileItemDataProvider p = files.get(key);
+            if (p == null) {
+                p = new FileItemDataProvider(key, reader);
+                p.watch();
+                files.put(key, p);
+            }
+            return p;
+        }
+    }
+
+    /**
+     * Converts inline items to citation item data objects
+     * @param items a list of items or a map of item IDs to items
+     * @return the citation item data objects
+     */
+    @SuppressWarnings("unchecked")
+    private static List<CSLItemData> toItems(Object items) {
+        Collection<?> values;
+        if (items instanceof Map) {
+            values = ((Map<?, ?>)items).values();
+        } else if (items instanceof Collection) {
+            values = (Collection<?>)items;
+        } else {
+            throw new IllegalArgumentException("`items' must be a list " +
+                    "or an object");
+        }
+
+        List<CSLItemData> result = new ArrayList<>(values.size());
+        for (Object v : values) {
+            if (!(v instanceof Map)) {
+                throw new IllegalArgumentException("Invalid citation item: " + v);
+            }
+            result.add(CSLItemData.fromJson((Map<String, Object>)v));
+        }
+        return result;
+    }
+
+    private static List<List<String>> getClusters(Map<String, Object> request) {
+        Object clusters = request.get("citations");
+        if (clusters == null) {
+            return Collections.emptyList();
+        }
+        if (!(clusters instanceof Collection)) {
+            throw new IllegalArgumentException("`citations' must be a list");
+        }
+
+        List<List<String>> result = new ArrayList<>();
+        for (Object c : (Collection<?>)clusters) {
+            result.add(toStringList("citations", c));
+        }
+        return result;
+    }
+
+    private static String getString(Map<String, Object> request, String name,
+            String defaultValue) {
+        Object v = request.get(name);
+        if (v == null) {
+            return defaultValue;
+        }
+        if (!(v instanceof String)) {
+            throw new IllegalArgumentException("`" + name + "' must be a string");
+        }
+        return (String)v;
+    }
+
+    private static List<String> getStringList(Map<String, Object> request,
+            String name) {
+        Object v = request.get(name);
+        if (v == null) {
+            return null;
+        }
+        return toStringList(name, v);
+    }
+
+    private static List<String> toStringList(String name, Object v) {
+        if (!(v instanceof Collection)) {
+            throw new IllegalArgumentException("`" + name + "' must " +
+                    "contain lists of strings");
+        }
+        List<String> result = new ArrayList<>();
+        for (Object o : (Collection<?>)v) {
+            result.add(Objects.toString(o));
+        }
+        return result;
+    }
+
+    /**
+     * Stops watching all bibliography files and releases all processors
+     * @throws IOException if a file could not be released
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (files) {
+            for (FileItemDataProvider p : files.values()) {
+                p.close();
+            }
+            files.clear();
+        }
+        synchronized (processors) {
+            processors.clear();
+        }
+    }
+
+    /**
+     * A citation processor and the provider it reads items from
+     */
+    private static class Processor {
+        final CSL citeproc;
+        final DelegatingItemDataProvider provider;
+
+        Processor(CSL citeproc, DelegatingItemDataProvider provider) {
+            this.citeproc = citeproc;
+            this.provider = provider;
+        }
+    }
+}
@@ -1,6 +1,6 @@
 package de.undercouch.citeproc.tool.shell;
 
-import de.undercouch.citeproc.CSL;
+import de.undercouch.citeproc.StyleCatalog;
 import de.undercouch.citeproc.helper.tool.ToolUtils;
 import de.undercouch.citeproc.tool.AbstractCSLToolCommand;
 import de.undercouch.underline.InputReader;
@@ -58,7 +58,7 @@ public class ShellSetLocaleCommand extends AbstractCSLToolCommand implements Com
 
         String l = locales.get(0);
         try {
-            Set<String> supportedLocales = CSL.getSupportedLocales();
+            Set<String> supportedLocales = StyleCatalog.getInstance().getLocaleNames();
             if (!supportedLocales.contains(l)) {
                 String message = "unsupported locale `" + l + "'";
                 String dyms = ToolUtils.getDidYouMeanString(supportedLocales, l);
@@ -85,7 +85,7 @@ public class ShellSetLocaleCommand extends AbstractCSLToolCommand implements Com
     public void complete(LineReader reader, ParsedLine line, List<Candidate> candidates) {
         Set<String> sf;
         try {
-            sf = CSL.getSupportedLocales();
+            sf = StyleCatalog.getInstance().getLocaleNames();
         } catch (IOException e) {
             // could not get list of supported locales. ignore.
             return;
@@ -1,6 +1,6 @@
 package de.undercouch.citeproc.tool.shell;
 
-import de.undercouch.citeproc.CSL;
+import de.undercouch.citeproc.StyleCatalog;
 import de.undercouch.citeproc.helper.tool.ToolUtils;
 import de.undercouch.citeproc.tool.AbstractCSLToolCommand;
 import de.undercouch.underline.InputReader;
@@ -58,7 +58,7 @@ public class ShellSetStyleCommand extends AbstractCSLToolCommand implements Comp
 
         String s = styles.get(0);
         try {
-            Set<String> supportedStyles = CSL.getSupportedStyles();
+            Set<String> supportedStyles = StyleCatalog.getInstance().getStyleNames();
             if (!supportedStyles.contains(s)) {
                 String message = "unsupported citation style `" + s + "'";
                 String dyms = ToolUtils.getDidYouMeanString(supportedStyles, s);
@@ -85,7 +85,7 @@ public class ShellSetStyleCommand extends AbstractCSLToolCommand implements Comp
     public void complete(LineReader reader, ParsedLine line, List<Candidate> candidates) {
         Set<String> sf;
         try {
-            sf = CSL.getSupportedStyles();
+            sf = StyleCatalog.getInstance().getStyleNames();
         } catch (IOException e) {
             // could not get list of supported styles. ignore.
             return;
@@ -0,0 +1,60 @@
+package de.undercouch.citeproc.tool;
+
+import de.undercouch.citeproc.CSL;
+import de.undercouch.citeproc.ListItemDataProvider;
+import de.undercouch.citeproc.csl.CSLItemDataBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the {@link CSLToolContext}
+ * @author Michel Kraemer
+ */
+public class CSLToolContextTest {
+    private CSLToolContext ctx;
+
+    @Before
+    public void setUp() {
+        ctx = CSLToolContext.enter();
+    }
+
+    @After
+    public void tearDown() {
+        CSLToolContext.exit();
+    }
+
+    private static ListItemDataProvider provider(String family) {
+        return new ListItemDataProvider(new CSLItemDataBuilder()
+                .id("A")
+                .title("The A")
+                .author("John", family)
+                .build());
+    }
+
+    /**
+     * Test if the processor is reused for new providers serving the same
+     * style and locale and if it reads items from the new provider
+     * @throws Exception if something goes wrong
+     */
+    @Test
+    public void reuseProcessorWithNewProvider() throws Exception {
+        CSL citeproc1 = ctx.getProcessor("ieee", "en-US", provider("Smith"));
+        citeproc1.setOutputFormat("text");
+        citeproc1.registerCitationItems("A");
+        assertTrue(citeproc1.makeBibliography().makeString().contains("Smith"));
+
+        CSL citeproc2 = ctx.getProcessor("ieee", "en-US", provider("Miller"));
+        assertSame(citeproc1, citeproc2);
+        citeproc2.setOutputFormat("text");
+        citeproc2.registerCitationItems("A");
+        assertTrue(citeproc2.makeBibliography().makeString().contains("Miller"));
+
+        CSL citeproc3 = ctx.getProcessor("apa", "en-US", provider("Miller"));
+        assertNotSame(citeproc1, citeproc3);
+    }
+}
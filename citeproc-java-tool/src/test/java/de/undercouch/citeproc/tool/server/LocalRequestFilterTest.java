@@ -0,0 +1,108 @@
+package de.undercouch.citeproc.tool.server;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the {@link LocalRequestFilter}
+ * @author Michel Kraemer
+ */
+public class LocalRequestFilterTest {
+    private HttpServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(
+                InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        }).getFilters().add(new LocalRequestFilter("localhost"));
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    /**
+     * Sends a request to the server and returns the response status
+     */
+    private int send(String host, String method, String contentType)
+            throws IOException {
+        int port = server.getAddress().getPort();
+        try (Socket s = new Socket(server.getAddress().getAddress(), port)) {
+            StringBuilder request = new StringBuilder();
+            request.append(method).append(" / HTTP/1.1\r\n");
+            if (host != null) {
+                request.append("Host: ").append(host).append("\r\n");
+            }
+            if (contentType != null) {
+                request.append("Content-Type: ").append(contentType).append("\r\n");
+            }
+            request.append("Content-Length: 2\r\n");
+            request.append("Connection: close\r\n\r\n{}");
+
+            OutputStream os = s.getOutputStream();
+            os.write(request.toString().getBytes(StandardCharsets.US_ASCII));
+            os.flush();
+
+            BufferedReader r = new BufferedReader(new InputStreamReader(
+                    s.getInputStream(), StandardCharsets.US_ASCII));
+            String statusLine = r.readLine();
+            return Integer.parseInt(statusLine.split(" ")[1]);
+        }
+    }
+
+    /**
+     * Test if JSON requests from local clients are accepted
+     * @throws Exception if something goes wrong
+     */
+    @Test
+    public void accept() throws Exception {
+        assertEquals(204, send("localhost:8085", "POST", "application/json"));
+        assertEquals(204, send("127.0.0.1", "POST",
+                "Application/JSON; charset=utf-8"));
+        assertEquals(204, send("[::1]:8085", "POST", "application/json"));
+    }
+
+    /**
+     * Test if requests that browsers can send cross-origin without a
+     * preflight are rejected
+     * @throws Exception if something goes wrong
+     */
+    @Test
+    public void rejectTextPlain() throws Exception {
+        assertEquals(415, send("localhost", "POST", "text/plain"));
+        assertEquals(415, send("localhost", "POST",
+                "application/x-www-form-urlencoded"));
+        assertEquals(415, send("localhost", "POST", null));
+        assertEquals(405, send("localhost", "GET", "application/json"));
+    }
+
+    /**
+     * Test if requests with a foreign host name (e.g. after DNS rebinding)
+     * are rejected
+     * @throws Exception if something goes wrong
+     */
+    @Test
+    public void rejectForeignHost() throws Exception {
+        assertEquals(403, send("evil.example.com", "POST", "application/json"));
+        assertEquals(403, send("localhost.evil.example.com:8085", "POST",
+                "application/json"));
+    }
+}
@@ -0,0 +1,87 @@
+package de.undercouch.citeproc.tool.server;
+
+import de.undercouch.citeproc.BibliographyFileReader;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the {@link RenderService}
+ * @author Michel Kraemer
+ */
+public class RenderServiceTest {
+    private static Map<String, Object> item(String id, String family) {
+        Map<String, Object> author = new HashMap<>();
+        author.put("family", family);
+        author.put("given", "John");
+        Map<String, Object> item = new HashMap<>();
+        item.put("id", id);
+        item.put("type", "book");
+        item.put("title", "The " + id);
+        item.put("author", Collections.singletonList(author));
+        return item;
+    }
+
+    /**
+     * Test if inline items can be rendered repeatedly with the same
+     * processor and if the items of one request do not leak into the next
+     * @throws Exception if something goes wrong
+     */
+    @Test
+    public void renderInlineItems() throws Exception {
+        try (RenderService service = new RenderService(
+                new BibliographyFileReader())) {
+            Map<String, Object> request = new HashMap<>();
+            request.put("items", Arrays.asList(item("A", "Smith"),
+                    item("B", "Doe")));
+            request.put("citations", Arrays.asList(
+                    Collections.singletonList("A"),
+                    Collections.singletonList("B")));
+
+            Map<String, Object> response = service.render(request);
+            assertEquals(Arrays.asList("[1]", "[2]"), response.get("citations"));
+            String bibliography = (String)response.get("bibliography");
+            assertTrue(bibliography.contains("Smith"));
+            assertTrue(bibliography.contains("Doe"));
+
+            request.put("items", Collections.singletonList(item("C", "Miller")));
+            request.put("citations", Collections.singletonList(
+                    Collections.singletonList("C")));
+            request.put("bibliography", false);
+            response = service.render(request);
+            assertEquals(Collections.singletonList("[1]"),
+                    response.get("citations"));
+            assertFalse(response.containsKey("bibliography"));
+
+            request.put("bibliography", true);
+            bibliography = (String)service.render(request).get("bibliography");
+            assertTrue(bibliography.contains("Miller"));
+            assertFalse(bibliography.contains("Smith"));
+        }
+    }
+
+    /**
+     * Test if unknown citation items are rejected
+     * @throws Exception if something goes wrong
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownItem() throws Exception {
+        try (RenderService service = new RenderService(
+                new BibliographyFileReader())) {
+            Map<String, Object> request = new HashMap<>();
+            request.put("items", Collections.singletonList(item("A", "Smith")));
+            List<List<String>> citations = Collections.singletonList(
+                    Collections.singletonList("X"));
+            request.put("citations", citations);
+            service.render(request);
+        }
+    }
+}
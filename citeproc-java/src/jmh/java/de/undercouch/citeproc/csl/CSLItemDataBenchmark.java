@@ -0,0 +1,92 @@
+package de.undercouch.citeproc.csl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the heap footprint of {@link CSLItemData} objects with a
+ * typical number of variables set and the time it takes to build them.
+ * The footprint of a single item (without the values it refers to) is
+ * measured with JOL and printed when the benchmark is set up. Run the
+ * benchmark with <code>-prof gc</code> to see how many bytes are
+ * allocated per item including the builder.
+ * @author Michel Kraemer
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CSLItemDataBenchmark {
+    private static final String ID = "Ritchie:1974:UTS";
+    private static final String TITLE = "The UNIX Time-Sharing System";
+    private static final String CONTAINER_TITLE = "Communications of the ACM";
+    private static final String VOLUME = "17";
+    private static final String ISSUE = "7";
+    private static final String PAGE = "365-375";
+    private static final String ISSN = "0001-0782";
+    private static final String DOI = "10.1145/361011.361061";
+    private static final String PUBLISHER = "ACM";
+    private static final String LANGUAGE = "en";
+
+    // shared values so that we measure only the item objects
+    // themselves and not their contents
+    private CSLName[] authors;
+    private CSLDate issued;
+
+    /**
+     * Creates the shared values and prints the footprint of an item
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        authors = new CSLName[] {
+                new CSLNameBuilder().given("Dennis M.").family("Ritchie").build(),
+                new CSLNameBuilder().given("Ken").family("Thompson").build()
+        };
+        issued = new CSLDateBuilder().dateParts(1974, 7).build();
+
+        GraphLayout values = GraphLayout.parseInstance(authors, issued,
+                CSLType.ARTICLE_JOURNAL, ID, TITLE, CONTAINER_TITLE, VOLUME,
+                ISSUE, PAGE, ISSN, DOI, PUBLISHER, LANGUAGE);
+        long footprint = GraphLayout.parseInstance(build())
+                .subtract(values).totalSize();
+        System.out.printf("%nCSLItemData footprint: %d bytes per item%n",
+                footprint);
+    }
+
+    /**
+     * Builds an item
+     * @return the item
+     */
+    @Benchmark
+    public CSLItemData build() {
+        return new CSLItemDataBuilder()
+                .id(ID)
+                .type(CSLType.ARTICLE_JOURNAL)
+                .title(TITLE)
+                .author(authors)
+                .containerTitle(CONTAINER_TITLE)
+                .volume(VOLUME)
+                .issue(ISSUE)
+                .page(PAGE)
+                .issued(issued)
+                .ISSN(ISSN)
+                .DOI(DOI)
+                .publisher(PUBLISHER)
+                .language(LANGUAGE)
+                .build();
+    }
+}
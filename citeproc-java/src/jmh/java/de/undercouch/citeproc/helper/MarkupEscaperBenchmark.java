@@ -0,0 +1,60 @@
+package de.undercouch.citeproc.helper;
+
+import org.apache.commons.text.StringEscapeUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput of {@link MarkupEscaper} with the one of
+ * {@link StringEscapeUtils} on typical bibliography tokens
+ * @author Michel Kraemer
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MarkupEscaperBenchmark {
+    private static final String[] TOKENS = {
+            "Ritchie", ", ", "D. M.", "The UNIX Time-Sharing System",
+            "Communications of the ACM", "17", "(", "7", ")", ": ",
+            "365–375", ".", "Smith & Wesson", "Café <Noir>", " ",
+            "https://doi.org/10.1145/361011.361061"
+    };
+
+    /**
+     * Escapes all tokens with {@link StringEscapeUtils#escapeHtml4(String)}
+     * @return the escaped tokens
+     */
+    @Benchmark
+    public String stringEscapeUtils() {
+        StringBuilder sb = new StringBuilder();
+        for (String t : TOKENS) {
+            sb.append(StringEscapeUtils.escapeHtml4(t));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Escapes all tokens with {@link MarkupEscaper#escapeHtml4(String, StringBuilder)}
+     * @return the escaped tokens
+     */
+    @Benchmark
+    public String markupEscaper() {
+        StringBuilder sb = new StringBuilder();
+        for (String t : TOKENS) {
+            MarkupEscaper.escapeHtml4(t, sb);
+        }
+        return sb.toString();
+    }
+}
@@ -22,12 +22,26 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
 
 /**
  * A convenience class providing methods to load any supported kind of
@@ -78,9 +92,23 @@ public class BibliographyFileReader {
         UNKNOWN
     }
 
+    /**
+     * The number of bytes to inspect before giving up to determine a
+     * file format
+     */
+    private static final int MAX_SNIFF_LENGTH = 1024 * 100;
+
+    /**
+     * The number of bytes at the beginning of a file that may contain a
+     * tag identifying the file format
+     */
+    private static final int PREFIX_LENGTH = 6;
+
     /**
      * Reads all items from an input bibliography file and returns a provider
-     * serving these items
+     * serving these items. The file is read through a buffered channel and
+     * decoded while it is parsed. A UTF-8 byte order mark is skipped. Files
+     * compressed with gzip are decompressed on the fly.
      * @param bibfile the input file
      * @return the provider
      * @throws FileNotFoundException if the input file was not found
@@ -88,14 +116,127 @@ public class BibliographyFileReader {
      */
     public ItemDataProvider readBibliographyFile(File bibfile)
             throws FileNotFoundException, IOException {
-        // open buffered input stream to bibliography file
         if (!bibfile.exists()) {
             throw new FileNotFoundException("Bibliography file `" +
                     bibfile.getName() + "' does not exist");
         }
-        try (BufferedInputStream bis = new BufferedInputStream(
-                new FileInputStream(bibfile))) {
-            return readBibliographyFile(bis, bibfile.getName());
+
+        // do not map the file into memory. the mapping would stay alive
+        // until it is garbage-collected and would prevent other processes
+        // from replacing the file on some platforms.
+        try (FileChannel channel = FileChannel.open(bibfile.toPath(),
+                StandardOpenOption.READ);
+                BufferedInputStream bis = decompress(
+                        Channels.newInputStream(channel))) {
+            FileFormat ff = determineFileFormat(bis,
+                    stripCompressionExtension(bibfile.getName()));
+            return readBibliographyFile(bis, ff);
+        }
+    }
+
+    /**
+     * Reads all items from the given bibliography files concurrently and
+     * merges them into a single provider. Uses one thread per available
+     * processor.
+     * @param bibfiles the input files in order of precedence
+     * @return the merged provider
+     * @throws FileNotFoundException if one of the input files was not found
+     * @throws IOException if one of the input files could not be read
+     * @see #readBibliographyFiles(List, int)
+     */
+    public MergedItemDataProvider readBibliographyFiles(List<File> bibfiles)
+            throws FileNotFoundException, IOException {
+        return readBibliographyFiles(bibfiles,
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * <p>Reads all items from the given bibliography files and merges them
+     * into a single provider. The files are read and converted concurrently
+     * by at most {@code maxThreads} threads. Each file is read with
+     * {@link #readBibliographyFile(File)}, so subclasses overriding this
+     * method must be thread-safe.</p>
+     * <p>If more than one file contains an item with the same ID, the item
+     * from the file that comes first in the given list takes precedence,
+     * regardless of the order in which the files have been read. The
+     * returned provider also contains statistics about each file (see
+     * {@link MergedItemDataProvider#getReports()}).</p>
+     * @param bibfiles the input files in order of precedence
+     * @param maxThreads the maximum number of files to read at the same time
+     * @return the merged provider
+     * @throws FileNotFoundException if one of the input files was not found
+     * @throws IOException if one of the input files could not be read
+     */
+    public MergedItemDataProvider readBibliographyFiles(List<File> bibfiles,
+            int maxThreads) throws FileNotFoundException, IOException {
+        if (maxThreads < 1) {
+            throw new IllegalArgumentException("maxThreads must be positive");
+        }
+
+        List<ItemDataProvider> providers = new ArrayList<>(bibfiles.size());
+        List<Duration> readTimes = new ArrayList<>(bibfiles.size());
+        int threads = Math.min(maxThreads, bibfiles.size());
+        if (threads <= 1) {
+            for (File f : bibfiles) {
+                long start = System.nanoTime();
+                providers.add(readBibliographyFile(f));
+                readTimes.add(Duration.ofNanos(System.nanoTime() - start));
+            }
+            return new MergedItemDataProvider(bibfiles, providers, readTimes);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<ItemDataProvider>> futures = new ArrayList<>(bibfiles.size());
+            long[] nanos = new long[bibfiles.size()];
+            for (int i = 0; i < bibfiles.size(); ++i) {
+                File f = bibfiles.get(i);
+                int index = i;
+                futures.add(executor.submit(() -> {
+                    long start = System.nanoTime();
+                    ItemDataProvider p = readBibliographyFile(f);
+                    nanos[index] = System.nanoTime() - start;
+                    return p;
+                }));
+            }
+
+            for (int i = 0; i < futures.size(); ++i) {
+                providers.add(await(futures.get(i)));
+                readTimes.add(Duration.ofNanos(nanos[i]));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return new MergedItemDataProvider(bibfiles, providers, readTimes);
+    }
+
+    /**
+     * Waits for a file to be read and unwraps exceptions
+     * @param future the future to wait for
+     * @return the provider serving the file's items
+     * @throws IOException if the file could not be read
+     */
+    private static ItemDataProvider await(Future<ItemDataProvider> future)
+            throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading " +
+                    "bibliography files");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException)cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw new IOException(cause);
         }
     }
 
@@ -107,6 +248,8 @@ public class BibliographyFileReader {
      * method's result might try to read the input stream using the wrong
      * file format (depending on the input stream's contents). Also note
      * that the caller is responsible for closing the given input stream.
+     * Streams compressed with gzip are decompressed on the fly. A UTF-8
+     * byte order mark is skipped.
      * @param bibstream the input stream
      * @param filename the name of the input file (can be null if you don't
      * know the name)
@@ -115,12 +258,8 @@ public class BibliographyFileReader {
      */
     public ItemDataProvider readBibliographyFile(InputStream bibstream,
             String filename) throws IOException {
-        BufferedInputStream bis;
-        if (bibstream instanceof BufferedInputStream) {
-            bis = (BufferedInputStream)bibstream;
-        } else {
-            bis = new BufferedInputStream(bibstream);
-        }
+        BufferedInputStream bis = decompress(bibstream);
+        filename = stripCompressionExtension(filename);
 
         // determine file format
         FileFormat ff = determineFileFormat(bis, filename);
@@ -139,18 +278,36 @@ public class BibliographyFileReader {
      */
     public ItemDataProvider readBibliographyFile(InputStream bibstream,
             FileFormat format) throws IOException {
+        if (format == FileFormat.YAML) {
+            // let SnakeYAML detect the encoding from the byte order mark
+            return readYaml(new Yaml().loadAll(bibstream));
+        }
+        return readBibliographyFile(new InputStreamReader(
+                bibstream, StandardCharsets.UTF_8), format);
+    }
+
+    /**
+     * Reads all items from a character stream using the given file format
+     * and returns a provider serving these items. Note that the caller is
+     * responsible for closing the given reader.
+     * @param bibreader the reader
+     * @param format the bibliography file format
+     * @return the provider
+     * @throws IOException if the reader could not be read
+     */
+    public ItemDataProvider readBibliographyFile(Reader bibreader,
+            FileFormat format) throws IOException {
         ItemDataProvider provider;
         try {
             // load bibliography file
             if (format == FileFormat.BIBTEX) {
-                BibTeXDatabase db = new BibTeXConverter().loadDatabase(bibstream);
+                BibTeXDatabase db = new BibTeXConverter().loadDatabase(bibreader);
                 BibTeXItemDataProvider bibtexprovider = new BibTeXItemDataProvider();
                 bibtexprovider.addDatabase(db);
                 provider = bibtexprovider;
             } else if (format == FileFormat.JSON_ARRAY ||
                     format == FileFormat.JSON_OBJECT) {
-                JsonParser parser = new JsonParser(new JsonLexer(
-                        new InputStreamReader(bibstream, StandardCharsets.UTF_8)));
+                JsonParser parser = new JsonParser(new JsonLexer(bibreader));
                 List<Object> objs;
                 if (format == FileFormat.JSON_ARRAY) {
                     objs = parser.parseArray();
@@ -166,39 +323,14 @@ public class BibliographyFileReader {
                 }
                 provider = new ListItemDataProvider(items);
             } else if (format == FileFormat.YAML) {
-                Yaml yaml = new Yaml();
-                Iterable<Object> documentsIterable = yaml.loadAll(bibstream);
-                List<List<Object>> documents = new ArrayList<>();
-                documentsIterable.forEach(o -> {
-                    if (o instanceof Map) {
-                        documents.add(Collections.singletonList(o));
-                    } else {
-                        documents.add(new ArrayList<>((Collection<?>)o));
-                    }
-                });
-                List<ItemDataProvider> providers = new ArrayList<>();
-                for (List<Object> objs : documents) {
-                    CSLItemData[] items = new CSLItemData[objs.size()];
-                    for (int i = 0; i < items.length; ++i) {
-                        @SuppressWarnings("unchecked")
-                        Map<String, Object> obj = (Map<String, Object>)objs.get(i);
-                        items[i] = CSLItemData.fromJson(obj);
-                    }
-                    ItemDataProvider p = new ListItemDataProvider(items);
-                    providers.add(p);
-                }
-                if (providers.size() == 1) {
-                    provider = providers.get(0);
-                } else {
-                    provider = new CompoundItemDataProvider(providers);
-                }
+                provider = readYaml(new Yaml().loadAll(bibreader));
             } else if (format == FileFormat.ENDNOTE) {
-                EndNoteLibrary lib = new EndNoteConverter().loadLibrary(bibstream);
+                EndNoteLibrary lib = new EndNoteConverter().loadLibrary(bibreader);
                 EndNoteItemDataProvider endnoteprovider = new EndNoteItemDataProvider();
                 endnoteprovider.addLibrary(lib);
                 provider = endnoteprovider;
             } else if (format == FileFormat.RIS) {
-                RISLibrary lib = new RISConverter().loadLibrary(bibstream);
+                RISLibrary lib = new RISConverter().loadLibrary(bibreader);
                 RISItemDataProvider risprovider = new RISItemDataProvider();
                 risprovider.addLibrary(lib);
                 provider = risprovider;
@@ -212,9 +344,41 @@ public class BibliographyFileReader {
         return provider;
     }
 
+    /**
+     * Converts the documents of a YAML file to a provider
+     * @param documentsIterable the YAML documents
+     * @return the provider
+     */
+    private static ItemDataProvider readYaml(Iterable<Object> documentsIterable) {
+        List<List<Object>> documents = new ArrayList<>();
+        documentsIterable.forEach(o -> {
+            if (o instanceof Map) {
+                documents.add(Collections.singletonList(o));
+            } else {
+                documents.add(new ArrayList<>((Collection<?>)o));
+            }
+        });
+        List<ItemDataProvider> providers = new ArrayList<>();
+        for (List<Object> objs : documents) {
+            CSLItemData[] items = new CSLItemData[objs.size()];
+            for (int i = 0; i < items.length; ++i) {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> obj = (Map<String, Object>)objs.get(i);
+                items[i] = CSLItemData.fromJson(obj);
+            }
+            ItemDataProvider p = new ListItemDataProvider(items);
+            providers.add(p);
+        }
+        if (providers.size() == 1) {
+            return providers.get(0);
+        }
+        return new CompoundItemDataProvider(providers);
+    }
+
     /**
      * Reads the first 100 KB of the given bibliography file and tries
-     * to determine the file format
+     * to determine the file format. Files compressed with gzip are
+     * decompressed on the fly. A UTF-8 byte order mark is skipped.
      * @param bibfile the input file
      * @return the file format (or {@link FileFormat#UNKNOWN} if the format
      * could not be determined)
@@ -227,9 +391,10 @@ public class BibliographyFileReader {
             throw new FileNotFoundException("Bibliography file `" +
                     bibfile.getName() + "' does not exist");
         }
-        try (BufferedInputStream bis = new BufferedInputStream(
-                new FileInputStream(bibfile))) {
-            return determineFileFormat(bis, bibfile.getName());
+        try (InputStream is = new FileInputStream(bibfile);
+                BufferedInputStream bis = decompress(is)) {
+            return determineFileFormat(bis,
+                    stripCompressionExtension(bibfile.getName()));
         }
     }
 
@@ -251,8 +416,50 @@ public class BibliographyFileReader {
      */
     public FileFormat determineFileFormat(BufferedInputStream bis,
             String filename) throws IOException {
-        int len = 1024 * 100;
+        // read the first bytes in blocks until we have seen enough to
+        // decide (i.e. the first non-whitespace character)
+        byte[] buf = new byte[8192];
+        int len = 0;
+        bis.mark(MAX_SNIFF_LENGTH);
+        try {
+            while (len < MAX_SNIFF_LENGTH) {
+                if (len == buf.length) {
+                    buf = Arrays.copyOf(buf, Math.min(buf.length * 2,
+                            MAX_SNIFF_LENGTH));
+                }
+                int n = bis.read(buf, len, buf.length - len);
+                if (n < 0) {
+                    break;
+                }
+                int oldLen = len;
+                len += n;
+                if (len >= PREFIX_LENGTH && hasNonWhitespace(buf, oldLen, len)) {
+                    break;
+                }
+            }
+        } finally {
+            bis.reset();
+        }
+
+        return determineFileFormat(ByteBuffer.wrap(buf, 0, len), filename);
+    }
 
+    /**
+     * Inspects the bytes between the given buffer's position and its limit
+     * and tries to determine the file format. The buffer's position is not
+     * changed. Only the first 100 KB are inspected. Note that you can supply
+     * an additional file name to help the method to determine the exact file
+     * format. If you don't know the file name you can pass null, but in this
+     * case the method's result might be wrong (depending on the buffer's
+     * contents). A UTF-8 byte order mark at the buffer's position is
+     * ignored.
+     * @param buf the buffer to inspect
+     * @param filename the name of the input file (can be null if you don't
+     * know the name)
+     * @return the file format (or {@link FileFormat#UNKNOWN} if the format
+     * could not be determined)
+     */
+    public FileFormat determineFileFormat(ByteBuffer buf, String filename) {
         String ext = "";
         if (filename != null) {
             int dot = filename.lastIndexOf('.');
@@ -262,69 +469,174 @@ public class BibliographyFileReader {
         }
 
         // check the first couple of bytes
-        bis.mark(len);
-        try {
-            byte[] firstCharacters = new byte[6];
-            bis.read(firstCharacters);
-
-            // check if the file starts with a %YAML directive
-            if (firstCharacters[0] == '%' &&
-                    firstCharacters[1] == 'Y' &&
-                    firstCharacters[2] == 'A' &&
-                    firstCharacters[3] == 'M' &&
-                    firstCharacters[4] == 'L' &&
-                    Character.isWhitespace(firstCharacters[5])) {
-                return FileFormat.YAML;
-            }
+        int p = buf.position();
+        if (byteAt(buf, p) == 0xef && byteAt(buf, p + 1) == 0xbb &&
+                byteAt(buf, p + 2) == 0xbf) {
+            p += 3;
+        }
+        int c0 = byteAt(buf, p);
+        int c1 = byteAt(buf, p + 1);
+        int c2 = byteAt(buf, p + 2);
+        int c3 = byteAt(buf, p + 3);
+        int c4 = byteAt(buf, p + 4);
+        int c5 = byteAt(buf, p + 5);
 
-            // check if the file starts with an EndNote tag, but
-            // also make sure the extension is not 'bib' or 'yml'/'yaml'
-            // because BibTeX comments and YAML directives look like
-            // EndNote tags
-            if (firstCharacters[0] == '%' &&
-                    Character.isWhitespace(firstCharacters[2]) &&
-                    !ext.equalsIgnoreCase("bib") &&
-                    !ext.equalsIgnoreCase("yaml") &&
-                    !ext.equalsIgnoreCase("yml")) {
-                return FileFormat.ENDNOTE;
+        // check if the file starts with a %YAML directive
+        if (c0 == '%' && c1 == 'Y' && c2 == 'A' && c3 == 'M' && c4 == 'L' &&
+                Character.isWhitespace(c5)) {
+            return FileFormat.YAML;
+        }
+
+        // check if the file starts with an EndNote tag, but
+        // also make sure the extension is not 'bib' or 'yml'/'yaml'
+        // because BibTeX comments and YAML directives look like
+        // EndNote tags
+        if (c0 == '%' && Character.isWhitespace(c2) &&
+                !ext.equalsIgnoreCase("bib") &&
+                !ext.equalsIgnoreCase("yaml") &&
+                !ext.equalsIgnoreCase("yml")) {
+            return FileFormat.ENDNOTE;
+        }
+
+        // check if the file starts with a RIS type tag
+        if (c0 == 'T' && c1 == 'Y' && Character.isWhitespace(c2) &&
+                Character.isWhitespace(c3) && c4 == '-') {
+            return FileFormat.RIS;
+        }
+
+        // now check if it's json, bibtex or yaml
+        int end = Math.min(buf.limit(), p + MAX_SNIFF_LENGTH - 2);
+        for (int i = p; i < end; ++i) {
+            int c = buf.get(i) & 0xff;
+            if (!Character.isWhitespace(c)) {
+                if (c == '[') {
+                    return FileFormat.JSON_ARRAY;
+                } else if (c == '{') {
+                    return FileFormat.JSON_OBJECT;
+                }
+                if (ext.equalsIgnoreCase("yaml") ||
+                        ext.equalsIgnoreCase("yml")) {
+                    return FileFormat.YAML;
+                }
+                return FileFormat.BIBTEX;
             }
+        }
+
+        return FileFormat.UNKNOWN;
+    }
 
-            // check if the file starts with a RIS type tag
-            if (firstCharacters[0] == 'T' && firstCharacters[1] == 'Y' &&
-                    Character.isWhitespace(firstCharacters[2]) &&
-                    Character.isWhitespace(firstCharacters[3]) &&
-                    firstCharacters[4] == '-') {
-                return FileFormat.RIS;
+    /**
+     * Gets an unsigned byte from the given buffer
+     * @param buf the buffer
+     * @param i the absolute index of the byte
+     * @return the byte or 0 if the index is beyond the buffer's limit
+     */
+    private static int byteAt(ByteBuffer buf, int i) {
+        if (i >= buf.limit()) {
+            return 0;
+        }
+        return buf.get(i) & 0xff;
+    }
+
+    /**
+     * Checks if the given byte array contains a non-whitespace character
+     * @param buf the byte array
+     * @param start the first index to check
+     * @param end the index after the last one to check
+     * @return true if there is a non-whitespace character in the given range
+     */
+    private static boolean hasNonWhitespace(byte[] buf, int start, int end) {
+        for (int i = start; i < end; ++i) {
+            if (!Character.isWhitespace(buf[i] & 0xff)) {
+                return true;
             }
-        } finally {
+        }
+        return false;
+    }
+
+    /**
+     * Skips a UTF-8 byte order mark at the current position of the given
+     * stream if there is one. Other byte order marks are kept so that
+     * SnakeYAML can detect UTF-16 encoded files.
+     * @param bis the stream
+     * @throws IOException if the stream could not be read
+     */
+    private static void skipByteOrderMark(BufferedInputStream bis)
+            throws IOException {
+        bis.mark(3);
+        if (bis.read() != 0xef || bis.read() != 0xbb || bis.read() != 0xbf) {
             bis.reset();
         }
+    }
 
-        // now check if it's json, bibtex or yaml
-        bis.mark(len);
-        try {
-            while (true) {
-                int c = bis.read();
-                --len;
-                if (c < 0 || len < 2) {
-                    return FileFormat.UNKNOWN;
-                }
+    private static boolean isGzip(ByteBuffer magic) {
+        return byteAt(magic, 0) == 0x1f && byteAt(magic, 1) == 0x8b;
+    }
+
+    private static boolean isZstd(ByteBuffer magic) {
+        return byteAt(magic, 0) == 0x28 && byteAt(magic, 1) == 0xb5 &&
+                byteAt(magic, 2) == 0x2f && byteAt(magic, 3) == 0xfd;
+    }
 
-                if (!Character.isWhitespace(c)) {
-                    if (c == '[') {
-                        return FileFormat.JSON_ARRAY;
-                    } else if (c == '{') {
-                        return FileFormat.JSON_OBJECT;
-                    }
-                    if (ext.equalsIgnoreCase("yaml") ||
-                            ext.equalsIgnoreCase("yml")) {
-                        return FileFormat.YAML;
-                    }
-                    return FileFormat.BIBTEX;
+    /**
+     * Wraps the given input stream into a buffered input stream. If the
+     * stream is compressed with gzip, the returned stream decompresses it.
+     * A UTF-8 byte order mark at the beginning of the (decompressed) stream
+     * is skipped.
+     * @param is the input stream
+     * @return the buffered (and possibly decompressing) input stream
+     * @throws IOException if the stream could not be read or if it is
+     * compressed with an unsupported format
+     */
+    static BufferedInputStream decompress(InputStream is)
+            throws IOException {
+        BufferedInputStream bis;
+        if (is instanceof BufferedInputStream) {
+            bis = (BufferedInputStream)is;
+        } else {
+            bis = new BufferedInputStream(is);
+        }
+
+        byte[] magic = new byte[4];
+        int len = 0;
+        bis.mark(magic.length);
+        try {
+            while (len < magic.length) {
+                int n = bis.read(magic, len, magic.length - len);
+                if (n < 0) {
+                    break;
                 }
+                len += n;
             }
         } finally {
             bis.reset();
         }
+
+        ByteBuffer mb = ByteBuffer.wrap(magic, 0, len);
+        if (isGzip(mb)) {
+            bis = new BufferedInputStream(new GZIPInputStream(bis));
+        } else if (isZstd(mb)) {
+            throw new IOException("Bibliography files compressed with " +
+                    "Zstandard are not supported. Please use gzip instead.");
+        }
+        skipByteOrderMark(bis);
+        return bis;
+    }
+
+    /**
+     * Removes the extension of a compression format from the given file name
+     * (e.g. <code>unix.bib.gz</code> becomes <code>unix.bib</code>)
+     * @param filename the file name (may be null)
+     * @return the file name without the compression extension
+     */
+    static String stripCompressionExtension(String filename) {
+        if (filename == null) {
+            return null;
+        }
+        String lower = filename.toLowerCase(Locale.ROOT);
+        if (lower.endsWith(".gz") || lower.endsWith(".zst")) {
+            return filename.substring(0, filename.lastIndexOf('.'));
+        }
+        return filename;
     }
 }
@@ -0,0 +1,68 @@
+package de.undercouch.citeproc;
+
+import java.io.File;
+import java.time.Duration;
+
+/**
+ * Statistics about a single bibliography file read by
+ * {@link BibliographyFileReader#readBibliographyFiles(java.util.List, int)}
+ * @author Michel Kraemer
+ */
+public class BibliographyFileReport {
+    private final File file;
+    private final int itemCount;
+    private final int duplicateCount;
+    private final Duration readTime;
+
+    /**
+     * Creates a new report
+     * @param file the bibliography file
+     * @param itemCount the number of items read from the file
+     * @param duplicateCount the number of items whose IDs were already
+     * provided by a file with higher precedence
+     * @param readTime the time it took to read and convert the file
+     */
+    public BibliographyFileReport(File file, int itemCount,
+            int duplicateCount, Duration readTime) {
+        this.file = file;
+        this.itemCount = itemCount;
+        this.duplicateCount = duplicateCount;
+        this.readTime = readTime;
+    }
+
+    /**
+     * @return the bibliography file
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return the number of items read from the file
+     */
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    /**
+     * @return the number of items whose IDs were already provided by a
+     * file with higher precedence and that have therefore been ignored
+     */
+    public int getDuplicateCount() {
+        return duplicateCount;
+    }
+
+    /**
+     * @return the time it took to read and convert the file
+     */
+    public Duration getReadTime() {
+        return readTime;
+    }
+
+    @Override
+    public String toString() {
+        return file.getName() + ": " + itemCount + " items (" +
+                duplicateCount + " duplicates) in " +
+                readTime.toMillis() + " ms";
+    }
+}
@@ -6,6 +6,7 @@ import de.undercouch.citeproc.csl.CSLCitationItemBuilder;
 import de.undercouch.citeproc.csl.CSLItemData;
 import de.undercouch.citeproc.csl.CSLItemDataBuilder;
 import de.undercouch.citeproc.csl.internal.GeneratedCitation;
+import de.undercouch.citeproc.csl.internal.PreparedItem;
 import de.undercouch.citeproc.csl.internal.RenderContext;
 import de.undercouch.citeproc.csl.internal.SSort;
 import de.undercouch.citeproc.csl.internal.SStyle;
@@ -18,40 +19,35 @@ import de.undercouch.citeproc.csl.internal.format.MarkdownPureFormat;
 import de.undercouch.citeproc.csl.internal.format.TextFormat;
 import de.undercouch.citeproc.csl.internal.locale.LLocale;
 import de.undercouch.citeproc.helper.CSLUtils;
+import de.undercouch.citeproc.helper.NodeHelper;
+import de.undercouch.citeproc.helper.xml.XmlTreeReader;
 import de.undercouch.citeproc.output.Bibliography;
 import de.undercouch.citeproc.output.Citation;
-import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.StringReader;
-import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.IntStream;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
 
 /**
  * <p>The citation processor.</p>
@@ -108,6 +104,34 @@ import java.util.zip.ZipInputStream;
  * @author Michel Kraemer
  */
 public class CSL {
+    /**
+     * The maximum number of entries in {@link #RESOLVED_STYLES}
+     */
+    private static final int MAX_RESOLVED_STYLES = 512;
+
+    /**
+     * Styles loaded through {@link #retrieveStyle(String)} mapped to the
+     * URLs they have been loaded from. Dependent styles share the compiled
+     * style of their independent parent. The map is cleared when it
+     * becomes too large.
+     */
+    private static final Map<String, ResolvedStyle> RESOLVED_STYLES =
+            new ConcurrentHashMap<>();
+
+    /**
+     * The maximum number of entries in {@link #LOADED_LOCALES}
+     */
+    private static final int MAX_LOADED_LOCALES = 128;
+
+    /**
+     * Localization data loaded through a {@link DefaultLocaleProvider}
+     * mapped to the requested language. Each entry already contains the
+     * terms of the primary dialect. Entries are never modified and can be
+     * shared by all processors. The map is cleared when it becomes too large.
+     */
+    private static final Map<String, LLocale> LOADED_LOCALES =
+            new ConcurrentHashMap<>();
+
     /**
      * The output format
      */
@@ -150,6 +174,19 @@ public class CSL {
      */
     private final List<CSLItemData> sortedItems = new ArrayList<>();
 
+    /**
+     * {@code true} if the items in {@link #sortedItems} have been registered
+     * through {@link #registerCitationItems(Collection, boolean)} and should
+     * not be sorted
+     */
+    private boolean unsortedItems;
+
+    /**
+     * Values derived from the data of the items in {@link #registeredItems}
+     * mapped to the items' IDs
+     */
+    private final Map<String, PreparedItem> preparedItems = new HashMap<>();
+
     /**
      * A list of generated citations sorted by their index
      */
@@ -202,19 +239,19 @@ public class CSL {
             AbbreviationProvider abbreviationProvider, String style,
             String lang) throws IOException {
         // load style if needed
-        if (!isStyle(style)) {
-            style = retrieveStyle(style);
+        ResolvedStyle resolvedStyle;
+        if (isStyle(style)) {
+            resolvedStyle = loadStyle(style);
+        } else {
+            resolvedStyle = retrieveStyle(style);
         }
 
         this.itemDataProvider = itemDataProvider;
         this.abbreviationProvider = abbreviationProvider;
-
-        // TODO parse style and locale directly from URL if possible
-        // TODO instead of loading them into strings first
-        this.style = loadStyle(style);
+        this.style = resolvedStyle.style;
 
         if (lang == null) {
-            lang = this.style.getDefaultLocale();
+            lang = resolvedStyle.defaultLocale;
             if (lang == null) {
                 lang = "en-US";
             }
@@ -230,49 +267,8 @@ public class CSL {
         //   locale
         // * finally, locale files where the language and country match the
         //   primary dialect of the output locale
-        LLocale locale = null;
-
-        // load locale of primary dialect
-        String languageRoot = lang;
-        int slash = languageRoot.indexOf('-');
-        if (slash >= 0) {
-            languageRoot = languageRoot.substring(0, slash);
-        }
-        String primaryDialect = LLocale.PRIMARY_DIALECTS.get(languageRoot.toLowerCase());
-        if (primaryDialect != null && !primaryDialect.equals(lang)) {
-            String strPrimaryLocale;
-            try {
-                strPrimaryLocale = localeProvider.retrieveLocale(primaryDialect);
-            } catch (IllegalArgumentException e) {
-                // Primary locale file does not exist. Ignore this and try
-                // the main locale instead.
-                strPrimaryLocale = null;
-            }
-            if (strPrimaryLocale != null) {
-                locale = loadLocale(strPrimaryLocale);
-            }
-        }
-
-        if (slash >= 0 || locale == null) {
-            // load locale of specified dialect
-            String strLocale = localeProvider.retrieveLocale(lang);
-            if (strLocale != null) {
-                LLocale l = loadLocale(strLocale);
-                if (locale == null) {
-                    locale = l;
-                } else {
-                    locale.merge(l);
-                }
-            }
-        }
-
-        if (locale == null) {
-            throw new IllegalArgumentException("Unable to load locale " +
-                lang + ". Make sure you have a file called " +
-                "'/locales-" + lang + ".xml' at the root of your " +
-                "classpath. Did you add the CSL locale files to "
-                + "your classpath?");
-        }
+        LLocale locale = retrieveLocale(localeProvider, lang);
+        boolean hasCountry = lang.indexOf('-') >= 0;
 
         // look for a locale in the style where "lang" is not set
         for (LLocale l : this.style.getLocales()) {
@@ -283,7 +279,7 @@ public class CSL {
         }
 
         // look for a locale in the style with a matching language
-        if (slash >= 0) {
+        if (hasCountry) {
             for (LLocale l : this.style.getLocales()) {
                 if (l.getLang() != null && l.getLang().getCountry().isEmpty() &&
                         l.getLang().getLanguage().equals(locale.getLang().getLanguage())) {
@@ -306,6 +302,14 @@ public class CSL {
         this.locale = locale;
     }
 
+    /**
+     * Get the localization data used by this processor
+     * @return the localization data
+     */
+    LLocale getLocale() {
+        return locale;
+    }
+
     /**
      * Get a list of supported output formats
      * @return the formats
@@ -315,46 +319,14 @@ public class CSL {
                 "markdown-pure", "text");
     }
 
-    private static Set<String> getAvailableFiles(String prefix,
-            String knownName, String extension) throws IOException {
-        Set<String> result = new LinkedHashSet<>();
-
-        // first load a file that is known to exist
-        String name = prefix + knownName + "." + extension;
-        URL knownUrl = CSL.class.getResource("/" + name);
-        if (knownUrl != null && knownUrl.toString().endsWith(".jar!/" + name)) {
-            URL url;
-            try {
-                final String path = knownUrl.toString();
-                url = new URL(path.substring(0, path.length() - name.length() - 2));
-            } catch (MalformedURLException e) {
-                final String path = knownUrl.getPath();
-                url = new URL(path.substring(0, path.length() - name.length() - 2));
-            }
-
-            try (InputStream inputStream = url.openStream();
-                 ZipInputStream zip = new ZipInputStream(inputStream)) {
-                ZipEntry e;
-                while ((e = zip.getNextEntry()) != null) {
-                    if (e.getName().endsWith("." + extension) &&
-                            (prefix.isEmpty() || e.getName().startsWith(prefix))) {
-                        result.add(e.getName().substring(
-                                prefix.length(), e.getName().length() - 4));
-                    }
-                }
-            }
-        }
-
-        return result;
-    }
-
     /**
      * Calculates a list of available citation styles
      * @return the list
      * @throws IOException if the citation styles could not be loaded
+     * @see StyleCatalog#getStyleNames()
      */
     public static Set<String> getSupportedStyles() throws IOException {
-        return getAvailableFiles("", "ieee", "csl");
+        return new LinkedHashSet<>(StyleCatalog.getInstance().getStyleNames());
     }
 
     /**
@@ -378,9 +350,10 @@ public class CSL {
      * Calculates a list of available citation locales
      * @return the list
      * @throws IOException if the citation locales could not be loaded
+     * @see StyleCatalog#getLocaleNames()
      */
     public static Set<String> getSupportedLocales() throws IOException {
-        return getAvailableFiles("locales-", "en-US", "xml");
+        return new LinkedHashSet<>(StyleCatalog.getInstance().getLocaleNames());
     }
 
     /**
@@ -420,42 +393,60 @@ public class CSL {
      * @throws IOException if the style could not be loaded or parsed
      */
     public static boolean canFormatBibliographies(String style) throws IOException {
-        if (!isStyle(style)) {
-            style = retrieveStyle(style);
+        ResolvedStyle rs;
+        if (isStyle(style)) {
+            rs = loadStyle(style);
+        } else {
+            rs = retrieveStyle(style);
         }
-        SStyle ss = loadStyle(style);
-        return canFormatBibliographies(ss);
+        return canFormatBibliographies(rs.style);
     }
 
-    private static SStyle loadStyle(String style) throws IOException {
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        DocumentBuilder builder;
-        try {
-            builder = factory.newDocumentBuilder();
-        } catch (ParserConfigurationException e) {
-            throw new IOException("Could not create document builder", e);
-        }
+    /**
+     * Parses a style. If the style is dependent, the method retrieves its
+     * independent parent.
+     * @param style the serialized XML representation of the style
+     * @return the parsed style
+     * @throws IOException if the style or its parent could not be loaded
+     */
+    private static ResolvedStyle loadStyle(String style) throws IOException {
+        return loadStyle(XmlTreeReader.read(new StringReader(style)));
+    }
 
-        // load style
-        Document styleDocument;
-        try {
-            styleDocument = builder.parse(new InputSource(
-                    new StringReader(style)));
-        } catch (SAXException e) {
-            throw new IOException("Could not parse style", e);
+    /**
+     * Creates a style from the root node of its XML representation. If the
+     * style is dependent, the method retrieves its independent parent.
+     * @param styleRoot the style's root node
+     * @return the parsed style
+     * @throws IOException if the parent style could not be loaded
+     */
+    private static ResolvedStyle loadStyle(Node styleRoot) throws IOException {
+        String independentParentLink = getIndependentParentLink(styleRoot);
+        if (independentParentLink == null) {
+            SStyle ss = new SStyle(styleRoot);
+            return new ResolvedStyle(ss, ss.getDefaultLocale());
         }
 
-        return new SStyle(styleDocument);
+        // dependent styles only define metadata and maybe a default locale
+        ResolvedStyle parent = retrieveStyle(independentParentLink);
+        String defaultLocale = NodeHelper.getAttrValue(styleRoot, "default-locale");
+        if (defaultLocale == null || defaultLocale.isEmpty()) {
+            defaultLocale = parent.defaultLocale;
+        }
+        return new ResolvedStyle(parent.style, defaultLocale);
     }
 
     /**
      * Retrieves a CSL style from the classpath. For example, if the given name
-     * is <code>ieee</code> this method will load the file <code>/ieee.csl</code>
+     * is <code>ieee</code> this method will load the file <code>/ieee.csl</code>.
+     * If the style is dependent, the method retrieves its independent parent.
+     * Retrieved styles are cached, so all dependent styles share the same
+     * parent.
      * @param styleName the style's name
-     * @return the serialized XML representation of the style
+     * @return the retrieved style
      * @throws IOException if the style could not be loaded
      */
-    private static String retrieveStyle(String styleName) throws IOException {
+    private static ResolvedStyle retrieveStyle(String styleName) throws IOException {
         URL url;
         if (styleName.startsWith("http://") || styleName.startsWith("https://")) {
             try {
@@ -482,39 +473,22 @@ public class CSL {
             }
         }
 
-        // load style
-        String result = CSLUtils.readURLToString(url, "UTF-8");
-
-        // handle dependent styles
-        if (isDependent(result)) {
-            String independentParentLink;
-            try {
-                independentParentLink = getIndependentParentLink(result);
-            } catch (ParserConfigurationException | IOException | SAXException e) {
-                throw new IOException("Could not load independent parent style", e);
-            }
-            if (independentParentLink == null) {
-                throw new IOException("Dependent style does not have an "
-                        + "independent parent");
-            }
-            return retrieveStyle(independentParentLink);
+        String key = url.toString();
+        ResolvedStyle result = RESOLVED_STYLES.get(key);
+        if (result != null) {
+            return result;
         }
 
-        return result;
-    }
-
-    /**
-     * Test if the given string represents a dependent style
-     * @param style the style
-     * @return true if the string is a dependent style, false otherwise
-     */
-    private static boolean isDependent(String style) {
-        if (!style.trim().startsWith("<")) {
-            return false;
+        // load style (do not use computeIfAbsent here because dependent
+        // styles retrieve their parent recursively)
+        try (InputStream is = CSLUtils.openURL(url)) {
+            result = loadStyle(XmlTreeReader.read(is));
         }
-        Pattern p = Pattern.compile("rel\\s*=\\s*\"\\s*independent-parent\\s*\"");
-        Matcher m = p.matcher(style);
-        return m.find();
+        if (RESOLVED_STYLES.size() >= MAX_RESOLVED_STYLES) {
+            RESOLVED_STYLES.clear();
+        }
+        ResolvedStyle existing = RESOLVED_STYLES.putIfAbsent(key, result);
+        return existing != null ? existing : result;
     }
 
     /**
@@ -529,43 +503,119 @@ public class CSL {
      */
     public static String getIndependentParentLink(String style)
             throws ParserConfigurationException, IOException, SAXException {
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        DocumentBuilder builder = factory.newDocumentBuilder();
-        InputSource src = new InputSource(new StringReader(style));
-        Document doc = builder.parse(src);
-        NodeList links = doc.getElementsByTagName("link");
-        for (int i = 0; i < links.getLength(); ++i) {
-            Node n = links.item(i);
-            Node relAttr = n.getAttributes().getNamedItem("rel");
-            if (relAttr != null) {
-                if ("independent-parent".equals(relAttr.getTextContent())) {
-                    Node hrefAttr = n.getAttributes().getNamedItem("href");
-                    if (hrefAttr != null) {
-                        return hrefAttr.getTextContent();
-                    }
+        return getIndependentParentLink(XmlTreeReader.read(new StringReader(style)));
+    }
+
+    /**
+     * Get the link to the independent parent of a dependent style
+     * @param node the style's root node or one of its descendants
+     * @return the link to the parent style or <code>null</code> if the
+     * style is not dependent
+     */
+    private static String getIndependentParentLink(Node node) {
+        NodeList children = node.getChildNodes();
+        for (int i = 0; i < children.getLength(); ++i) {
+            Node c = children.item(i);
+            if (c.getNodeType() != Node.ELEMENT_NODE) {
+                continue;
+            }
+            if ("link".equals(c.getNodeName()) && "independent-parent".equals(
+                    NodeHelper.getAttrValue(c, "rel"))) {
+                String href = NodeHelper.getAttrValue(c, "href");
+                if (href != null) {
+                    return href;
                 }
             }
+            String result = getIndependentParentLink(c);
+            if (result != null) {
+                return result;
+            }
         }
         return null;
     }
 
+    /**
+     * Retrieves the localization data for the given language from a locale
+     * provider and merges it with the data of the language's primary
+     * dialect. Localization data retrieved from a {@link DefaultLocaleProvider}
+     * is cached and shared by all processors.
+     * @param localeProvider the locale provider
+     * @param lang the language
+     * @return the localization data
+     * @throws IOException if the localization data could not be parsed
+     * @throws IllegalArgumentException if the locale could not be found
+     */
+    private static LLocale retrieveLocale(LocaleProvider localeProvider,
+            String lang) throws IOException {
+        // locales from the classpath never change, but subclasses and
+        // other providers may return different data each time
+        boolean cacheable = localeProvider.getClass() == DefaultLocaleProvider.class;
+        if (cacheable) {
+            LLocale result = LOADED_LOCALES.get(lang);
+            if (result != null) {
+                return result;
+            }
+        }
+
+        LLocale locale = null;
+
+        // load locale of primary dialect
+        String languageRoot = lang;
+        int slash = languageRoot.indexOf('-');
+        if (slash >= 0) {
+            languageRoot = languageRoot.substring(0, slash);
+        }
+        String primaryDialect = LLocale.PRIMARY_DIALECTS.get(languageRoot.toLowerCase());
+        if (primaryDialect != null && !primaryDialect.equals(lang)) {
+            String strPrimaryLocale;
+            try {
+                strPrimaryLocale = localeProvider.retrieveLocale(primaryDialect);
+            } catch (IllegalArgumentException e) {
+                // Primary locale file does not exist. Ignore this and try
+                // the main locale instead.
+                strPrimaryLocale = null;
+            }
+            if (strPrimaryLocale != null) {
+                locale = loadLocale(strPrimaryLocale);
+            }
+        }
+
+        if (slash >= 0 || locale == null) {
+            // load locale of specified dialect
+            String strLocale = localeProvider.retrieveLocale(lang);
+            if (strLocale != null) {
+                LLocale l = loadLocale(strLocale);
+                if (locale == null) {
+                    locale = l;
+                } else {
+                    locale = locale.mergeTerms(l);
+                }
+            }
+        }
+
+        if (locale == null) {
+            throw new IllegalArgumentException("Unable to load locale " +
+                lang + ". Make sure you have a file called " +
+                "'/locales-" + lang + ".xml' at the root of your " +
+                "classpath. Did you add the CSL locale files to "
+                + "your classpath?");
+        }
+
+        if (cacheable) {
+            if (LOADED_LOCALES.size() >= MAX_LOADED_LOCALES) {
+                LOADED_LOCALES.clear();
+            }
+            LLocale existing = LOADED_LOCALES.putIfAbsent(lang, locale);
+            if (existing != null) {
+                locale = existing;
+            }
+        }
+
+        return locale;
+    }
+
     private static LLocale loadLocale(String strLocale) throws IOException {
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        DocumentBuilder builder;
-        try {
-            builder = factory.newDocumentBuilder();
-        } catch (ParserConfigurationException e) {
-            throw new IOException("Could not create document builder", e);
-        }
-
-        Document localeDocument;
-        try {
-            localeDocument = builder.parse(new InputSource(
-                    new StringReader(strLocale)));
-        } catch (SAXException e) {
-            throw new IOException("Could not parse locale", e);
-        }
-        return new LLocale(localeDocument);
+        return new LLocale(XmlTreeReader.read(new StringReader(strLocale)));
     }
 
     /**
@@ -651,19 +701,23 @@ public class CSL {
                         "item with ID: " + id);
             }
 
+            // prepare item so derived values can be cached
+            PreparedItem preparedItem = new PreparedItem();
+            preparedItems.put(itemData.getId(), preparedItem);
+
             // register item
             if (unsorted || style.getBibliography() == null ||
                     style.getBibliography().getSort() == null) {
                 // We don't have to sort. Add item to the end of the list.
-                itemData = new CSLItemDataBuilder(itemData)
-                        .citationNumber(String.valueOf(registeredItems.size() + 1))
-                        .build();
+                preparedItem.setCitationNumber(
+                        String.valueOf(registeredItems.size() + 1));
                 sortedItems.add(itemData);
             } else {
                 // We have to sort. Find insert point.
                 if (comparator == null) {
                     comparator = style.getBibliography().getSort()
-                            .comparator(style, locale, abbreviationProvider);
+                            .comparator(style, locale, abbreviationProvider,
+                                    preparedItems);
                 }
                 int i = Collections.binarySearch(sortedItems, itemData, comparator);
                 if (i < 0) {
@@ -685,11 +739,9 @@ public class CSL {
                     citationNumber = sortedItems.size() + 1 - i;
                 }
 
-                // create new item data with citation data and add it to
-                // the list of sorted items
-                itemData = new CSLItemDataBuilder(itemData)
-                        .citationNumber(String.valueOf(citationNumber))
-                        .build();
+                // assign citation number and add item to the list of
+                // sorted items
+                preparedItem.setCitationNumber(String.valueOf(citationNumber));
                 sortedItems.add(i, itemData);
 
                 // determine if we need to update the following items or
@@ -714,14 +766,9 @@ public class CSL {
                         citationNumber2 = sortedItems.size() - j;
                     }
 
-                    // create new item data with new citation number
-                    item2 = new CSLItemDataBuilder(item2)
-                            .citationNumber(String.valueOf(citationNumber2))
-                            .build();
-
-                    // overwrite existing item data
-                    sortedItems.set(j, item2);
-                    registeredItems.put(item2.getId(), item2);
+                    // assign new citation number
+                    preparedItems.get(item2.getId()).setCitationNumber(
+                            String.valueOf(citationNumber2));
 
                     // store updated item
                     if (updatedItems != null) {
@@ -795,16 +842,123 @@ public class CSL {
     public void registerCitationItems(Collection<String> ids, boolean unsorted) {
         registeredItems.clear();
         sortedItems.clear();
+        preparedItems.clear();
+        unsortedItems = unsorted;
         registerItems(ids, null, unsorted);
     }
 
+    /**
+     * <p>Notifies the processor that the data of the citation items with
+     * the given IDs has changed in the {@link ItemDataProvider}. The
+     * processor calls {@link ItemDataProvider#retrieveItem(String)} again
+     * for each of these items that have already been registered, sorts the
+     * bibliography again if necessary, and re-renders all generated
+     * citations that refer to the changed items or whose citation numbers
+     * have changed. Citations that do not refer to these items are not
+     * rendered again. IDs of items that have not been registered yet are
+     * ignored.</p>
+     * <p>If the provider does not contain one of the items anymore, the
+     * processor keeps the item data it has registered before.</p>
+     * @param ids the IDs of the changed items
+     * @return the generated citations whose text has changed
+     * @see FileItemDataProvider
+     */
+    public List<Citation> updateItems(Collection<String> ids) {
+        Set<CSLItemData> updatedItems = new LinkedHashSet<>();
+        Map<String, Integer> sortedIndices = null;
+        for (String id : ids) {
+            CSLItemData oldItemData = registeredItems.get(id);
+            if (oldItemData == null) {
+                continue;
+            }
+            CSLItemData itemData = itemDataProvider.retrieveItem(id);
+            if (itemData == null || itemData.equals(oldItemData)) {
+                continue;
+            }
+
+            // replace item and discard values derived from the old data
+            registeredItems.put(id, itemData);
+            if (sortedIndices == null) {
+                sortedIndices = new HashMap<>();
+                for (int i = 0; i < sortedItems.size(); ++i) {
+                    sortedIndices.put(sortedItems.get(i).getId(), i);
+                }
+            }
+            sortedItems.set(sortedIndices.get(id), itemData);
+            PreparedItem preparedItem = new PreparedItem();
+            preparedItem.setCitationNumber(preparedItems.get(id)
+                    .getCitationNumber());
+            preparedItems.put(id, preparedItem);
+            updatedItems.add(itemData);
+        }
+
+        if (updatedItems.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // changed items may have to be moved in the bibliography (unless
+        // the items have been registered unsorted)
+        if (!unsortedItems && style.getBibliography() != null &&
+                style.getBibliography().getSort() != null) {
+            SSort.SortComparator comparator = style.getBibliography().getSort()
+                    .comparator(style, locale, abbreviationProvider, preparedItems);
+            sortedItems.sort(comparator);
+            int citationNumberDirection = comparator.getCitationNumberDirection();
+            for (int i = 0; i < sortedItems.size(); ++i) {
+                CSLItemData item = sortedItems.get(i);
+                int citationNumber;
+                if (citationNumberDirection > 0) {
+                    citationNumber = i + 1;
+                } else {
+                    citationNumber = sortedItems.size() - i;
+                }
+                PreparedItem preparedItem = preparedItems.get(item.getId());
+                String cn = String.valueOf(citationNumber);
+                if (!cn.equals(preparedItem.getCitationNumber())) {
+                    preparedItem.setCitationNumber(cn);
+                    updatedItems.add(item);
+                }
+            }
+        }
+
+        return updateGeneratedCitations(updatedItems);
+    }
+
     /**
      * Get an unmodifiable collection of all citation items that have been
      * registered with the processor so far
      * @return the registered citation items
      */
     public Collection<CSLItemData> getRegisteredItems() {
-        return Collections.unmodifiableCollection(sortedItems);
+        List<CSLItemData> result = new ArrayList<>(sortedItems.size());
+        for (CSLItemData item : sortedItems) {
+            result.add(withCitationNumber(item));
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Citation numbers are not stored in the registered item data but in
+     * the corresponding prepared items. This method creates a copy of the
+     * given registered item data containing the citation number assigned
+     * by the processor.
+     * @param itemData the registered item data
+     * @return the item data with the assigned citation number (may be the
+     * same object if no copy was necessary)
+     */
+    private CSLItemData withCitationNumber(CSLItemData itemData) {
+        PreparedItem preparedItem = preparedItems.get(itemData.getId());
+        if (preparedItem == null) {
+            return itemData;
+        }
+        String citationNumber = preparedItem.getCitationNumber();
+        if (citationNumber == null || citationNumber.equals(
+                itemData.getCitationNumber())) {
+            return itemData;
+        }
+        return new CSLItemDataBuilder(itemData)
+                .citationNumber(citationNumber)
+                .build();
     }
 
     /**
@@ -845,7 +999,7 @@ public class CSL {
     /**
      * Perform steps to prepare the given citation for rendering. Register
      * citation items and sort them. Return a prepared citation that can be
-     * passed to {@link #renderCitation(CSLCitation)}
+     * passed to {@link #renderCitation(CSLCitation, List)}
      * @param citation the citation to render
      * @param updatedItems an empty set that will be filled with citation
      * items that had to be updated while rendering the given one (may be
@@ -867,21 +1021,14 @@ public class CSL {
         List<CSLItemData> registeredItems = registerItems(itemIds,
                 updatedItems, false);
 
-        // prepare items
+        // prepare items. per-cite values such as the locator are taken
+        // from the citation item while rendering, so the item data does
+        // not have to be copied.
         CSLCitationItem[] preparedItems = new CSLCitationItem[len];
         for (int i = 0; i < len; i++) {
             CSLCitationItem item = items[i];
-            CSLItemData itemData = registeredItems.get(i);
-
-            // overwrite locator
-            if (item.getLocator() != null) {
-                itemData = new CSLItemDataBuilder(itemData)
-                        .locator(item.getLocator())
-                        .build();
-            }
-
             preparedItems[i] = new CSLCitationItemBuilder(item)
-                    .itemData(itemData)
+                    .itemData(registeredItems.get(i))
                     .build();
         }
 
@@ -892,11 +1039,10 @@ public class CSL {
             unsorted = citation.getProperties().getUnsorted();
         }
         if (!unsorted && style.getCitation().getSort() != null) {
-            Comparator<CSLItemData> itemComparator =
+            SSort.SortComparator itemComparator =
                     style.getCitation().getSort().comparator(style, locale,
-                            abbreviationProvider);
-            Arrays.sort(preparedItems, (a, b) -> itemComparator.compare(
-                    a.getItemData(), b.getItemData()));
+                            abbreviationProvider, this.preparedItems);
+            Arrays.sort(preparedItems, itemComparator::compare);
         }
 
         return new CSLCitation(preparedItems,
@@ -907,12 +1053,16 @@ public class CSL {
      * Render the given prepared citation
      * @param preparedCitation the citation to render. The citation must have
      * been prepared by {@link #preRenderCitation(CSLCitation, Set)}
+     * @param precedingCitations the citations generated before the one
+     * to render
      * @return the rendered string
      */
-    private String renderCitation(CSLCitation preparedCitation) {
+    private String renderCitation(CSLCitation preparedCitation,
+            List<GeneratedCitation> precedingCitations) {
         // render items
         RenderContext ctx = new RenderContext(style, locale, null, abbreviationProvider,
-                preparedCitation, Collections.unmodifiableList(generatedCitations));
+                preparedCitation, Collections.unmodifiableList(precedingCitations),
+                preparedItems);
         style.getCitation().render(ctx);
         return outputFormat.formatCitation(ctx);
     }
@@ -931,45 +1081,10 @@ public class CSL {
     public List<Citation> makeCitation(CSLCitation citation) {
         Set<CSLItemData> updatedItems = new LinkedHashSet<>();
         CSLCitation preparedCitation = preRenderCitation(citation, updatedItems);
-        String text = renderCitation(preparedCitation);
+        String text = renderCitation(preparedCitation, generatedCitations);
 
         // re-render updated citations
-        List<Citation> result = new ArrayList<>();
-        if (!updatedItems.isEmpty()) {
-            List<GeneratedCitation> oldGeneratedCitations = generatedCitations;
-            generatedCitations = new ArrayList<>(oldGeneratedCitations.size());
-            for (int i = 0; i < oldGeneratedCitations.size(); i++) {
-                GeneratedCitation gc = oldGeneratedCitations.get(i);
-
-                boolean needsUpdate = false;
-                for (CSLItemData updatedItemData : updatedItems) {
-                    for (CSLCitationItem item : gc.getOriginal().getCitationItems()) {
-                        if (item.getId().equals(updatedItemData.getId())) {
-                            needsUpdate = true;
-                            break;
-                        }
-                    }
-                }
-
-                if (!needsUpdate) {
-                    generatedCitations.add(gc);
-                    continue;
-                }
-
-                // prepare citation again (!)
-                CSLCitation upc = preRenderCitation(gc.getOriginal(), null);
-
-                // render it again
-                String ut = renderCitation(upc);
-                if (!ut.equals(gc.getGenerated().getText())) {
-                    // render result was different
-                    Citation uc = new Citation(i, ut);
-                    generatedCitations.add(new GeneratedCitation(
-                            gc.getOriginal(), upc, uc));
-                    result.add(uc);
-                }
-            }
-        }
+        List<Citation> result = updateGeneratedCitations(updatedItems);
 
         // generate citation
         Citation generatedCitation = new Citation(generatedCitations.size(), text);
@@ -980,6 +1095,150 @@ public class CSL {
         return result;
     }
 
+    /**
+     * Generates citation strings for a whole document at once. The method
+     * registers all citation items first, so citation numbers are known
+     * before anything is rendered and every citation will only be rendered
+     * exactly once. The final texts of all citations are the same as if
+     * {@link #makeCitation(CSLCitation)} had been called for each of the
+     * given citations one after the other. Unlike these calls, however, the
+     * method does not return intermediate versions of the given citations.
+     * It only returns updates to citations generated before this call.
+     * @param citations the citations to generate in document order
+     * @return the generated citations in document order. If citations
+     * generated by earlier calls had to be updated because new items have
+     * been registered, their new values precede the generated citations.
+     * @throws IllegalArgumentException if one of the given citations refers
+     * to citation item data that does not exist
+     */
+    public List<Citation> makeCitations(List<CSLCitation> citations) {
+        return makeCitations(citations, false);
+    }
+
+    /**
+     * <p>Generates citation strings for a whole document at once. The
+     * method registers all citation items first, so citation numbers are
+     * known before anything is rendered and every citation will only be
+     * rendered exactly once. The final texts of all citations are the same
+     * as if {@link #makeCitation(CSLCitation)} had been called for each of
+     * the given citations one after the other. Unlike these calls, however,
+     * the method does not return intermediate versions of the given
+     * citations. It only returns updates to citations generated before this
+     * call.</p>
+     * <p>If {@code parallel} is {@code true}, the citations will be rendered
+     * in parallel using the common fork-join pool. In this case, the
+     * abbreviation provider must be thread-safe.</p>
+     * @param citations the citations to generate in document order
+     * @param parallel {@code true} if citations should be rendered in
+     * parallel
+     * @return the generated citations in document order. If citations
+     * generated by earlier calls had to be updated because new items have
+     * been registered, their new values precede the generated citations.
+     * @throws IllegalArgumentException if one of the given citations refers
+     * to citation item data that does not exist
+     */
+    public List<Citation> makeCitations(List<CSLCitation> citations,
+            boolean parallel) {
+        // register all items in document order
+        List<String> itemIds = new ArrayList<>();
+        for (CSLCitation citation : citations) {
+            for (CSLCitationItem item : citation.getCitationItems()) {
+                itemIds.add(item.getId());
+            }
+        }
+        Set<CSLItemData> updatedItems = new LinkedHashSet<>();
+        registerItems(itemIds, updatedItems, false);
+
+        // re-render citations generated before
+        List<Citation> result = updateGeneratedCitations(updatedItems);
+
+        // prepare all citations. citation numbers will not change anymore.
+        int offset = generatedCitations.size();
+        List<GeneratedCitation> prepared = new ArrayList<>(generatedCitations);
+        for (CSLCitation citation : citations) {
+            prepared.add(new GeneratedCitation(citation,
+                    preRenderCitation(citation, null), null));
+        }
+
+        // render every citation exactly once. each of them only sees the
+        // citations preceding it.
+        String[] texts = new String[citations.size()];
+        IntStream indexes = IntStream.range(0, texts.length);
+        if (parallel) {
+            indexes = indexes.parallel();
+        }
+        indexes.forEach(i -> texts[i] = renderCitation(
+                prepared.get(offset + i).getPrepared(),
+                prepared.subList(0, offset + i)));
+
+        for (int i = 0; i < texts.length; ++i) {
+            GeneratedCitation gc = prepared.get(offset + i);
+            Citation generatedCitation = new Citation(offset + i, texts[i]);
+            generatedCitations.add(new GeneratedCitation(gc.getOriginal(),
+                    gc.getPrepared(), generatedCitation));
+            result.add(generatedCitation);
+        }
+
+        return result;
+    }
+
+    /**
+     * Render citations in {@link #generatedCitations} again if they refer
+     * to any of the given updated items
+     * @param updatedItems the items that have been updated while registering
+     * new citation items
+     * @return the citations whose text has changed
+     */
+    private List<Citation> updateGeneratedCitations(Set<CSLItemData> updatedItems) {
+        List<Citation> result = new ArrayList<>();
+        if (updatedItems.isEmpty()) {
+            return result;
+        }
+
+        Set<String> updatedIds = new HashSet<>();
+        for (CSLItemData updatedItemData : updatedItems) {
+            updatedIds.add(updatedItemData.getId());
+        }
+
+        List<GeneratedCitation> oldGeneratedCitations = generatedCitations;
+        generatedCitations = new ArrayList<>(oldGeneratedCitations.size());
+        for (int i = 0; i < oldGeneratedCitations.size(); i++) {
+            GeneratedCitation gc = oldGeneratedCitations.get(i);
+
+            boolean needsUpdate = false;
+            for (CSLCitationItem item : gc.getOriginal().getCitationItems()) {
+                if (updatedIds.contains(item.getId())) {
+                    needsUpdate = true;
+                    break;
+                }
+            }
+
+            if (!needsUpdate) {
+                generatedCitations.add(gc);
+                continue;
+            }
+
+            // prepare citation again (!)
+            CSLCitation upc = preRenderCitation(gc.getOriginal(), null);
+
+            // render it again
+            String ut = renderCitation(upc, generatedCitations);
+            if (!ut.equals(gc.getGenerated().getText())) {
+                // render result was different
+                Citation uc = new Citation(i, ut);
+                generatedCitations.add(new GeneratedCitation(
+                        gc.getOriginal(), upc, uc));
+                result.add(uc);
+            } else {
+                // keep the citation but remember the new prepared items
+                generatedCitations.add(new GeneratedCitation(
+                        gc.getOriginal(), upc, gc.getGenerated()));
+            }
+        }
+
+        return result;
+    }
+
     /**
      * Generates a bibliography for the registered citations
      * @return the bibliography
@@ -1077,37 +1336,104 @@ public class CSL {
      * @return the bibliography
      */
     public Bibliography makeBibliography(Predicate<CSLItemData> filter) {
+        List<CSLItemData> filteredItems = filterBibliographyItems(filter);
+
+        List<String> entries = new ArrayList<>();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < filteredItems.size(); i++) {
+            sb.setLength(0);
+            if (renderBibliographyEntry(filteredItems.get(i), i, sb)) {
+                entries.add(sb.toString());
+            }
+        }
+
+        return outputFormat.makeBibliography(entries.toArray(new String[0]),
+                style.getBibliography());
+    }
+
+    /**
+     * Generates a bibliography for the registered citations and appends it
+     * to the given string builder. The result is the same as the one of
+     * {@code makeBibliography().makeString()} but the entries are rendered
+     * directly into the string builder without creating intermediate
+     * strings.
+     * @param out the string builder to append to
+     */
+    public void appendBibliography(StringBuilder out) {
+        appendBibliography(null, out);
+    }
+
+    /**
+     * Generates a bibliography for registered citations and appends it
+     * to the given string builder
+     * @param filter a function to apply to each registered citation item to
+     * determine if it should be included in the bibliography or not (may
+     * be {@code null} if all items should be included)
+     * @param out the string builder to append to
+     * @see #appendBibliography(StringBuilder)
+     */
+    public void appendBibliography(Predicate<CSLItemData> filter,
+            StringBuilder out) {
+        List<CSLItemData> filteredItems = filterBibliographyItems(filter);
+
+        // the formats' prefix and suffix do not depend on the entries
+        Bibliography empty = outputFormat.makeBibliography(new String[0],
+                style.getBibliography());
+        if (empty.getBibStart() != null) {
+            out.append(empty.getBibStart());
+        }
+        for (int i = 0; i < filteredItems.size(); i++) {
+            renderBibliographyEntry(filteredItems.get(i), i, out);
+        }
+        if (empty.getBibEnd() != null) {
+            out.append(empty.getBibEnd());
+        }
+    }
+
+    /**
+     * Selects the registered items that should be included in the
+     * bibliography
+     * @param filter the filter to apply (may be {@code null})
+     * @return the selected items in bibliography order
+     */
+    private List<CSLItemData> filterBibliographyItems(
+            Predicate<CSLItemData> filter) {
         if (!canFormatBibliographies(style)) {
             throw new IllegalStateException("The citation style does " +
                     "not contain instructions to format bibliographies");
         }
 
-        List<CSLItemData> filteredItems;
         if (filter == null) {
-            filteredItems = sortedItems;
-        } else {
-            filteredItems = new ArrayList<>();
-            for (CSLItemData item : sortedItems) {
-                if (filter.test(item)) {
-                    filteredItems.add(item);
-                }
-            }
+            return sortedItems;
         }
 
-        List<String> entries = new ArrayList<>();
-        for (int i = 0; i < filteredItems.size(); i++) {
-            CSLItemData item = filteredItems.get(i);
-            RenderContext ctx = new RenderContext(style, locale, item,
-                    abbreviationProvider);
-            style.getBibliography().render(ctx);
-
-            if (!ctx.getResult().isEmpty()) {
-                entries.add(outputFormat.formatBibliographyEntry(ctx, i));
+        List<CSLItemData> filteredItems = new ArrayList<>();
+        for (CSLItemData item : sortedItems) {
+            if (filter.test(withCitationNumber(item))) {
+                filteredItems.add(item);
             }
         }
+        return filteredItems;
+    }
 
-        return outputFormat.makeBibliography(entries.toArray(new String[0]),
-                style.getBibliography());
+    /**
+     * Renders a single bibliography entry and appends it to a string builder
+     * @param item the item to render
+     * @param index the entry's index in the bibliography
+     * @param out the string builder to append to
+     * @return true if the entry was not empty and has been appended
+     */
+    private boolean renderBibliographyEntry(CSLItemData item, int index,
+            StringBuilder out) {
+        RenderContext ctx = new RenderContext(style, locale, item,
+                abbreviationProvider, null, null, preparedItems);
+        style.getBibliography().render(ctx);
+
+        if (ctx.getResult().isEmpty()) {
+            return false;
+        }
+        outputFormat.formatBibliographyEntry(ctx, index, out);
+        return true;
     }
 
     /**
@@ -1118,6 +1444,8 @@ public class CSL {
         convertLinks = false;
         registeredItems.clear();
         sortedItems.clear();
+        preparedItems.clear();
+        unsortedItems = false;
         generatedCitations.clear();
     }
 
@@ -1457,4 +1785,19 @@ public class CSL {
 
         return b.getYearSuffix() != null && Objects.equals(a.getYearSuffix(), b.getYearSuffix());
     }
+
+    /**
+     * A compiled style and the default locale to use with it. If the
+     * style has been loaded from a dependent style, the default locale
+     * may differ from the one of the compiled (independent parent) style.
+     */
+    private static class ResolvedStyle {
+        final SStyle style;
+        final String defaultLocale;
+
+        ResolvedStyle(SStyle style, String defaultLocale) {
+            this.style = style;
+            this.defaultLocale = defaultLocale;
+        }
+    }
 }
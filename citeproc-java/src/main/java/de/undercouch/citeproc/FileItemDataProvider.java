@@ -0,0 +1,376 @@
+package de.undercouch.citeproc;
+
+import de.undercouch.citeproc.BibliographyFileReader.FileFormat;
+import de.undercouch.citeproc.bibtex.BibTeXConverter;
+import de.undercouch.citeproc.csl.CSLItemData;
+import de.undercouch.citeproc.helper.fingerprint.Fingerprint;
+import de.undercouch.citeproc.helper.fingerprint.FingerprintBuilder;
+import org.jbibtex.BibTeXDatabase;
+import org.jbibtex.BibTeXEntry;
+import org.jbibtex.CrossReferenceValue;
+import org.jbibtex.Key;
+import org.jbibtex.ParseException;
+import org.jbibtex.Value;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Serves citation items from a bibliography file and reloads them when
+ * the file changes. Call {@link #watch()} to start watching the file in a
+ * background thread or call {@link #reload()} manually.</p>
+ * <p>On every reload, the provider compares the new items with the old
+ * ones and notifies all registered {@link ItemDataChangeListener}s about
+ * the IDs of the items that have been added, modified, or removed. Items
+ * that have not changed keep their identity. BibTeX entries are compared
+ * before they are converted, so only changed entries are converted
+ * again.</p>
+ * <p>Objects of this class are thread-safe. Note that listeners are called
+ * from the thread that performed the reload (e.g. the watcher thread).</p>
+ * <pre><code>
+ * FileItemDataProvider provider = new FileItemDataProvider(new File("references.bib"));
+ * CSL citeproc = new CSL(provider, "ieee");
+ * provider.addListener(ids -&gt; {
+ *     synchronized (citeproc) {
+ *         List&lt;Citation&gt; changed = citeproc.updateItems(ids);
+ *         // ...
+ *     }
+ * });
+ * provider.watch();
+ * </code></pre>
+ * @author Michel Kraemer
+ */
+public class FileItemDataProvider implements ItemDataProvider, Closeable {
+    /**
+     * The time to wait for further modifications after the file has been
+     * modified before it is reloaded
+     */
+    private static final long SETTLE_MILLIS = 100;
+
+    private final File file;
+    private final BibliographyFileReader reader;
+    private final List<ItemDataChangeListener> listeners =
+            new CopyOnWriteArrayList<>();
+
+    /**
+     * The items served by this provider. The map is replaced as a whole
+     * on every reload and never modified.
+     */
+    private volatile Map<String, CSLItemData> items = Collections.emptyMap();
+
+    /**
+     * Fingerprints of the BibTeX entries the items have been converted
+     * from, mapped to the items' IDs (empty if the file is not a BibTeX file)
+     */
+    private Map<String, Fingerprint> entryFingerprints = Collections.emptyMap();
+
+    private WatchService watchService;
+    private Thread watcher;
+
+    /**
+     * Creates a provider and reads the given file
+     * @param file the bibliography file
+     * @throws IOException if the file could not be read
+     */
+    public FileItemDataProvider(File file) throws IOException {
+        this(file, new BibliographyFileReader());
+    }
+
+    /**
+     * Creates a provider and reads the given file
+     * @param file the bibliography file
+     * @param reader the reader used to read the file if it is not a
+     * BibTeX file
+     * @throws IOException if the file could not be read
+     */
+    public FileItemDataProvider(File file, BibliographyFileReader reader)
+            throws IOException {
+        this.file = file;
+        this.reader = reader;
+        reload();
+    }
+
+    @Override
+    public CSLItemData retrieveItem(String id) {
+        return items.get(id);
+    }
+
+    @Override
+    public Collection<String> getIds() {
+        return Collections.unmodifiableSet(items.keySet());
+    }
+
+    /**
+     * @return the bibliography file
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Adds a listener that will be notified when items have changed
+     * @param listener the listener
+     */
+    public void addListener(ItemDataChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener
+     * @param listener the listener to remove
+     */
+    public void removeListener(ItemDataChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Reads the file again, replaces the items served by this provider,
+     * and notifies all listeners if any item has changed
+     * @return the IDs of all added, modified, and removed items
+     * @throws IOException if the file could not be read. In this case,
+     * the provider keeps serving the old items.
+     */
+    public Set<String> reload() throws IOException {
+        Set<String> changed;
+        synchronized (this) {
+            Map<String, CSLItemData> oldItems = items;
+            Map<String, CSLItemData> newItems = new LinkedHashMap<>();
+            changed = new LinkedHashSet<>();
+
+            // open the file only once so the format is determined from
+            // the same contents that are parsed
+            try (InputStream is = new FileInputStream(file);
+                    BufferedInputStream bis = BibliographyFileReader.decompress(is)) {
+                FileFormat ff = reader.determineFileFormat(bis,
+                        BibliographyFileReader.stripCompressionExtension(
+                                file.getName()));
+                if (ff == FileFormat.BIBTEX) {
+                    entryFingerprints = reloadBibTeX(bis, oldItems,
+                            newItems, changed);
+                } else {
+                    ItemDataProvider p = reader.readBibliographyFile(bis, ff);
+                    for (String id : p.getIds()) {
+                        CSLItemData item = p.retrieveItem(id);
+                        CSLItemData oldItem = oldItems.get(id);
+                        if (item.equals(oldItem)) {
+                            // keep identity of unchanged items
+                            item = oldItem;
+                        } else {
+                            changed.add(id);
+                        }
+                        newItems.put(id, item);
+                    }
+                    entryFingerprints = Collections.emptyMap();
+                }
+            }
+
+            for (String id : oldItems.keySet()) {
+                if (!newItems.containsKey(id)) {
+                    changed.add(id);
+                }
+            }
+
+            items = Collections.unmodifiableMap(newItems);
+        }
+
+        if (!changed.isEmpty()) {
+            Set<String> ids = Collections.unmodifiableSet(changed);
+            for (ItemDataChangeListener l : listeners) {
+                l.itemsChanged(ids);
+            }
+        }
+
+        return changed;
+    }
+
+    /**
+     * Reads the file as a BibTeX database and only converts entries whose
+     * fingerprints have changed
+     * @param bis the (decompressed) contents of the file
+     * @param oldItems the items read before
+     * @param newItems a map that will receive the new items
+     * @param changed a set that will receive the IDs of changed items
+     * @return the fingerprints of the new entries
+     * @throws IOException if the file could not be read
+     */
+    private Map<String, Fingerprint> reloadBibTeX(BufferedInputStream bis,
+            Map<String, CSLItemData> oldItems, Map<String, CSLItemData> newItems,
+            Set<String> changed) throws IOException {
+        BibTeXConverter converter = new BibTeXConverter();
+        BibTeXDatabase db;
+        try {
+            db = converter.loadDatabase(bis);
+        } catch (ParseException e) {
+            throw new IOException("Could not parse bibliography file", e);
+        }
+
+        Map<String, Fingerprint> fingerprints = new HashMap<>();
+        for (Map.Entry<Key, BibTeXEntry> e : db.getEntries().entrySet()) {
+            String id = e.getKey().getValue();
+            Fingerprint fp = fingerprint(e.getValue());
+            fingerprints.put(id, fp);
+
+            CSLItemData item = oldItems.get(id);
+            if (item == null || !fp.equals(entryFingerprints.get(id))) {
+                item = converter.toItemData(e.getValue());
+                changed.add(id);
+            }
+            newItems.put(id, item);
+        }
+
+        return fingerprints;
+    }
+
+    /**
+     * Calculates the fingerprint of a BibTeX entry's contents including
+     * the contents of an entry referenced through the <code>crossref</code>
+     * field
+     * @param e the entry
+     * @return the fingerprint
+     */
+    private static Fingerprint fingerprint(BibTeXEntry e) {
+        FingerprintBuilder builder = new FingerprintBuilder();
+        addFields(builder, e);
+        Value crossref = e.getField(BibTeXEntry.KEY_CROSSREF);
+        if (crossref instanceof CrossReferenceValue) {
+            BibTeXEntry parent = ((CrossReferenceValue)crossref).getEntry();
+            if (parent != null) {
+                addFields(builder, parent);
+            }
+        }
+        return builder.build();
+    }
+
+    private static void addFields(FingerprintBuilder builder, BibTeXEntry e) {
+        builder.add(e.getType().getValue());
+        for (Map.Entry<Key, Value> f : e.getFields().entrySet()) {
+            builder.add(f.getKey().getValue(), f.getValue().toUserString());
+        }
+    }
+
+    /**
+     * Starts a background thread that reloads the file whenever it has
+     * been modified. Does nothing if the file is already being watched.
+     * Errors during reloading (e.g. because the file has been saved
+     * incompletely) and exceptions thrown by listeners are ignored. The
+     * provider keeps serving the old items until the file can be read
+     * again.
+     * @throws IOException if the file's directory could not be watched
+     */
+    public synchronized void watch() throws IOException {
+        if (watcher != null) {
+            return;
+        }
+
+        Path path = file.getAbsoluteFile().toPath();
+        Path dir = path.getParent();
+        Path name = path.getFileName();
+
+        watchService = FileSystems.getDefault().newWatchService();
+        dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+
+        WatchService ws = watchService;
+        watcher = new Thread(() -> {
+            try {
+                while (true) {
+                    WatchKey key = ws.take();
+                    boolean modified = pollEvents(key, name);
+
+                    // wait until the file has settled (editors often
+                    // write files in several steps)
+                    while (modified && (key = ws.poll(
+                            SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                        pollEvents(key, name);
+                    }
+
+                    if (modified) {
+                        try {
+                            reload();
+                        } catch (IOException | RuntimeException e) {
+                            // the file could not be converted or a listener
+                            // failed. ignore and wait for the next
+                            // modification. do not let the watcher die.
+                        }
+                    }
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                // provider has been closed
+            } finally {
+                stopped(Thread.currentThread());
+            }
+        }, "citeproc-java-file-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * Retrieves all pending events from the given watch key and resets it
+     * @param key the watch key
+     * @param name the name of the watched file
+     * @return true if any of the events refers to the watched file
+     */
+    private static boolean pollEvents(WatchKey key, Path name) {
+        boolean result = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (name.equals(event.context())) {
+                result = true;
+            }
+        }
+        key.reset();
+        return result;
+    }
+
+    /**
+     * Called when the watcher thread exits. Releases the watch service if
+     * the thread has not been stopped through {@link #close()}, so
+     * {@link #watch()} can start watching the file again.
+     * @param thread the watcher thread that has exited
+     */
+    private synchronized void stopped(Thread thread) {
+        if (watcher != thread) {
+            return;
+        }
+        try {
+            close();
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+
+    /**
+     * Stops watching the file
+     * @throws IOException if the watch service could not be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (watcher == null) {
+            return;
+        }
+        watcher.interrupt();
+        watcher = null;
+        watchService.close();
+        watchService = null;
+    }
+}
@@ -0,0 +1,19 @@
+package de.undercouch.citeproc;
+
+import java.util.Set;
+
+/**
+ * A listener that will be notified when the citation items served by an
+ * {@link ItemDataProvider} have changed
+ * @author Michel Kraemer
+ * @see FileItemDataProvider
+ */
+public interface ItemDataChangeListener {
+    /**
+     * Will be called when citation items have been added, modified, or
+     * removed. Use {@link CSL#updateItems(java.util.Collection)} to
+     * re-render the citations referring to these items.
+     * @param ids the IDs of all added, modified, and removed items
+     */
+    void itemsChanged(Set<String> ids);
+}
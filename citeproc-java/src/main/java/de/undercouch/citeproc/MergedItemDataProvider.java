@@ -0,0 +1,60 @@
+package de.undercouch.citeproc;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>Provides the items of several bibliography files through a single
+ * index. Instances are created by
+ * {@link BibliographyFileReader#readBibliographyFiles(List, int)}.</p>
+ * <p>If more than one file contains an item with the same ID, the item
+ * from the file that comes first in the list of input files takes
+ * precedence. This matches the behavior of
+ * {@link CompoundItemDataProvider}, but items are looked up in a single
+ * map instead of querying every file in turn.</p>
+ * @author Michel Kraemer
+ */
+public class MergedItemDataProvider extends ListItemDataProvider {
+    /**
+     * Statistics about the files merged into this provider
+     */
+    private final List<BibliographyFileReport> reports;
+
+    /**
+     * Merges the given providers
+     * @param files the files the providers have been read from
+     * @param providers the providers to merge in order of precedence
+     * @param readTimes the time it took to read each file
+     */
+    MergedItemDataProvider(List<File> files, List<ItemDataProvider> providers,
+            List<Duration> readTimes) {
+        List<BibliographyFileReport> rs = new ArrayList<>(providers.size());
+        for (int i = 0; i < providers.size(); ++i) {
+            ItemDataProvider p = providers.get(i);
+            Collection<String> ids = p.getIds();
+            int duplicates = 0;
+            for (String id : ids) {
+                if (items.containsKey(id)) {
+                    ++duplicates;
+                } else {
+                    items.put(id, p.retrieveItem(id));
+                }
+            }
+            rs.add(new BibliographyFileReport(files.get(i), ids.size(),
+                    duplicates, readTimes.get(i)));
+        }
+        this.reports = Collections.unmodifiableList(rs);
+    }
+
+    /**
+     * @return statistics about each merged file in the order in which the
+     * files have been passed to the reader
+     */
+    public List<BibliographyFileReport> getReports() {
+        return reports;
+    }
+}
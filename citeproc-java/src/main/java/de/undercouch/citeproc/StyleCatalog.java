@@ -0,0 +1,267 @@
+package de.undercouch.citeproc;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+/**
+ * <p>An index of the citation styles and locales available in the
+ * classpath. The names of all styles and locales are read once from the
+ * central directory of the jar files containing them. The jar files'
+ * entries do not have to be decompressed for this. Metadata about a style
+ * is read when it is requested for the first time and then kept in
+ * memory.</p>
+ * <p>Objects of this class are thread-safe.</p>
+ * @author Michel Kraemer
+ */
+public class StyleCatalog {
+    private static final StyleCatalog INSTANCE = new StyleCatalog();
+
+    private volatile Set<String> styleNames;
+    private volatile Set<String> localeNames;
+    private final Map<String, StyleInfo> styleInfos = new ConcurrentHashMap<>();
+
+    /**
+     * @return the catalog of the styles and locales in the classpath
+     */
+    public static StyleCatalog getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Get the names of all citation styles available in the classpath
+     * @return the names (e.g. <code>ieee</code> or
+     * <code>dependent/proceedings-of-the-ieee</code>)
+     * @throws IOException if the citation styles could not be listed
+     */
+    public Set<String> getStyleNames() throws IOException {
+        Set<String> result = styleNames;
+        if (result == null) {
+            synchronized (this) {
+                result = styleNames;
+                if (result == null) {
+                    result = Collections.unmodifiableSet(
+                            listFiles("", "ieee", "csl"));
+                    styleNames = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the names of all locales available in the classpath
+     * @return the names (e.g. <code>en-US</code>)
+     * @throws IOException if the locales could not be listed
+     */
+    public Set<String> getLocaleNames() throws IOException {
+        Set<String> result = localeNames;
+        if (result == null) {
+            synchronized (this) {
+                result = localeNames;
+                if (result == null) {
+                    result = Collections.unmodifiableSet(
+                            listFiles("locales-", "en-US", "xml"));
+                    localeNames = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get metadata about a citation style in the classpath
+     * @param name the style's name (e.g. <code>ieee</code>)
+     * @return the metadata or {@code null} if there is no such style
+     * @throws IOException if the style could not be read
+     */
+    public StyleInfo getStyleInfo(String name) throws IOException {
+        StyleInfo result = styleInfos.get(name);
+        if (result != null) {
+            return result;
+        }
+
+        URL url = CSL.class.getResource("/" + name + ".csl");
+        if (url == null) {
+            return null;
+        }
+
+        result = readStyleInfo(name, url);
+        StyleInfo existing = styleInfos.putIfAbsent(name, result);
+        return existing != null ? existing : result;
+    }
+
+    /**
+     * Reads metadata from a style. Stops reading as soon as all metadata
+     * has been found.
+     * @param name the style's name
+     * @param url the URL to read the style from
+     * @return the metadata
+     * @throws IOException if the style could not be read
+     */
+    private StyleInfo readStyleInfo(String name, URL url) throws IOException {
+        String title = null;
+        String independentParent = null;
+        String defaultLocale = null;
+        boolean bibliography = false;
+
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+        try (InputStream is = url.openStream()) {
+            XMLStreamReader r = factory.createXMLStreamReader(is);
+            try {
+                boolean inInfo = false;
+                loop:
+                while (r.hasNext()) {
+                    int event = r.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        switch (r.getLocalName()) {
+                            case "style":
+                                defaultLocale = r.getAttributeValue(
+                                        null, "default-locale");
+                                break;
+
+                            case "info":
+                                inInfo = true;
+                                break;
+
+                            case "title":
+                                if (inInfo && title == null) {
+                                    title = r.getElementText();
+                                }
+                                break;
+
+                            case "link":
+                                if (inInfo && "independent-parent".equals(
+                                        r.getAttributeValue(null, "rel"))) {
+                                    independentParent = r.getAttributeValue(
+                                            null, "href");
+                                }
+                                break;
+
+                            case "bibliography":
+                                bibliography = true;
+                                break loop;
+
+                            default:
+                                break;
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT &&
+                            "info".equals(r.getLocalName())) {
+                        inInfo = false;
+                        if (independentParent != null) {
+                            // dependent styles do not contain anything else
+                            break;
+                        }
+                    }
+                }
+            } finally {
+                r.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Could not parse style: " + name, e);
+        }
+
+        if (independentParent != null) {
+            String parentName = independentParent.substring(
+                    independentParent.lastIndexOf('/') + 1);
+            StyleInfo parent = getStyleInfo(parentName);
+            bibliography = parent != null && parent.hasBibliography();
+        }
+
+        return new StyleInfo(name, title, independentParent, defaultLocale,
+                bibliography);
+    }
+
+    /**
+     * Lists files in the jar file that contains a file known to exist
+     * @param prefix the prefix of the files to list
+     * @param knownName the name of the known file without prefix and
+     * extension
+     * @param extension the extension of the files to list
+     * @return the names of the files without prefix and extension
+     * @throws IOException if the jar file could not be read
+     */
+    private static Set<String> listFiles(String prefix, String knownName,
+            String extension) throws IOException {
+        Set<String> result = new LinkedHashSet<>();
+
+        String name = prefix + knownName + "." + extension;
+        URL knownUrl = CSL.class.getResource("/" + name);
+        if (knownUrl == null || !knownUrl.toString().endsWith(".jar!/" + name)) {
+            return result;
+        }
+
+        // read the central directory of the jar file if it is a local file
+        URLConnection conn = knownUrl.openConnection();
+        if (conn instanceof JarURLConnection) {
+            URL jarFileUrl = ((JarURLConnection)conn).getJarFileURL();
+            if ("file".equals(jarFileUrl.getProtocol())) {
+                File jarFile;
+                try {
+                    jarFile = new File(jarFileUrl.toURI());
+                } catch (URISyntaxException | IllegalArgumentException e) {
+                    jarFile = new File(jarFileUrl.getPath());
+                }
+                if (jarFile.isFile()) {
+                    try (ZipFile zip = new ZipFile(jarFile)) {
+                        Enumeration<? extends ZipEntry> entries = zip.entries();
+                        while (entries.hasMoreElements()) {
+                            addFile(entries.nextElement().getName(), prefix,
+                                    extension, result);
+                        }
+                    }
+                    return result;
+                }
+            }
+        }
+
+        // fall back to reading the whole jar file
+        URL url;
+        try {
+            String path = knownUrl.toString();
+            url = new URL(path.substring(0, path.length() - name.length() - 2));
+        } catch (MalformedURLException e) {
+            String path = knownUrl.getPath();
+            url = new URL(path.substring(0, path.length() - name.length() - 2));
+        }
+        try (InputStream inputStream = url.openStream();
+             ZipInputStream zip = new ZipInputStream(inputStream)) {
+            ZipEntry e;
+            while ((e = zip.getNextEntry()) != null) {
+                addFile(e.getName(), prefix, extension, result);
+            }
+        }
+
+        return result;
+    }
+
+    private static void addFile(String entryName, String prefix,
+            String extension, Set<String> result) {
+        if (entryName.endsWith("." + extension) &&
+                (prefix.isEmpty() || entryName.startsWith(prefix))) {
+            result.add(entryName.substring(prefix.length(),
+                    entryName.length() - extension.length() - 1));
+        }
+    }
+}
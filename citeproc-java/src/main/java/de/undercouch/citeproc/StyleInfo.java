@@ -0,0 +1,76 @@
+package de.undercouch.citeproc;
+
+/**
+ * Metadata about a citation style from the {@link StyleCatalog}
+ * @author Michel Kraemer
+ */
+public class StyleInfo {
+    private final String name;
+    private final String title;
+    private final String independentParent;
+    private final String defaultLocale;
+    private final boolean bibliography;
+
+    /**
+     * Creates a new metadata object
+     * @param name the style's name (e.g. <code>ieee</code>)
+     * @param title the style's title (may be {@code null})
+     * @param independentParent the link to the independent parent style
+     * if the style is dependent or {@code null} if it is independent
+     * @param defaultLocale the style's default locale (may be {@code null})
+     * @param bibliography true if the style (or its independent parent)
+     * can format bibliographies
+     */
+    public StyleInfo(String name, String title, String independentParent,
+            String defaultLocale, boolean bibliography) {
+        this.name = name;
+        this.title = title;
+        this.independentParent = independentParent;
+        this.defaultLocale = defaultLocale;
+        this.bibliography = bibliography;
+    }
+
+    /**
+     * @return the style's name (e.g. <code>ieee</code>)
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the style's title (may be {@code null})
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * @return the link to the independent parent style or {@code null} if
+     * the style is independent
+     */
+    public String getIndependentParent() {
+        return independentParent;
+    }
+
+    /**
+     * @return true if the style is a dependent style
+     */
+    public boolean isDependent() {
+        return independentParent != null;
+    }
+
+    /**
+     * @return the style's default locale (may be {@code null})
+     */
+    public String getDefaultLocale() {
+        return defaultLocale;
+    }
+
+    /**
+     * @return true if the style (or its independent parent) can format
+     * bibliographies
+     */
+    public boolean hasBibliography() {
+        return bibliography;
+    }
+}
@@ -129,7 +129,18 @@ public class BibTeXConverter {
      * @throws ParseException if the database is invalid
      */
     public BibTeXDatabase loadDatabase(InputStream is) throws ParseException {
-        Reader reader = new InputStreamReader(is, StandardCharsets.UTF_8);
+        return loadDatabase(new InputStreamReader(is, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * <p>Loads a BibTeX database from a character stream.</p>
+     * <p>This method does not close the given reader. The caller is
+     * responsible for closing it.</p>
+     * @param reader the reader to read from
+     * @return the BibTeX database
+     * @throws ParseException if the database is invalid
+     */
+    public BibTeXDatabase loadDatabase(Reader reader) throws ParseException {
         BibTeXParser parser = new BibTeXParser() {
             @Override
             public void checkStringResolution(Key key, BibTeXString string) {
@@ -0,0 +1,297 @@
+package de.undercouch.citeproc.csl.internal;
+
+import de.undercouch.citeproc.bibtex.PageParser;
+import de.undercouch.citeproc.bibtex.PageRanges;
+import de.undercouch.citeproc.csl.internal.helper.NumberElement;
+import de.undercouch.citeproc.csl.internal.helper.NumberParser;
+import de.undercouch.citeproc.helper.NumberHelper;
+import de.undercouch.citeproc.helper.StringHelper;
+import de.undercouch.citeproc.helper.time.AnyDateParser;
+
+import java.time.temporal.TemporalAccessor;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * <p>Caches values derived from a citation item's data (e.g. parsed page
+ * ranges, numbers, and dates, or initialized and rendered names). A
+ * prepared item is created when an item is registered with the processor
+ * and is then available through {@link RenderContext#getPreparedItem()}
+ * every time the item is rendered or compared with other items.</p>
+ * <p>A prepared item also holds the citation number the processor has
+ * assigned to the item. This avoids creating a copy of the item's data
+ * every time the item is renumbered.</p>
+ * <p>Values are computed lazily and cached by their input. This makes sure
+ * the cache stays valid even if the processor creates modified copies of the
+ * item's data (e.g. with another citation number or locator). All values
+ * are kept in a single map that is only created when the first value is
+ * cached, so items that are never rendered stay small.</p>
+ * <p>Objects of this class are thread-safe.</p>
+ * @author Michel Kraemer
+ */
+public class PreparedItem {
+    /**
+     * The kinds of values that can be cached
+     */
+    private enum Kind {
+        PAGE_RANGES,
+        NUMBER_ELEMENTS,
+        NUMERIC,
+        DATE,
+        INITIALIZED_NAME,
+        RENDERED_NAME
+    }
+
+    /**
+     * Cached values mapped to their kind and input (created lazily)
+     */
+    private volatile Map<CacheKey, Object> cache;
+    private volatile String citationNumber;
+
+    /**
+     * Get the citation number assigned to the item
+     * @return the citation number (may be {@code null} if the processor
+     * has not assigned a number yet)
+     */
+    public String getCitationNumber() {
+        return citationNumber;
+    }
+
+    /**
+     * Assign a citation number to the item
+     * @param citationNumber the citation number
+     */
+    public void setCitationNumber(String citationNumber) {
+        this.citationNumber = citationNumber;
+    }
+
+    /**
+     * Parse the given page string
+     * @param page the string to parse
+     * @return the parsed page ranges
+     * @see PageParser#parse(String)
+     */
+    public PageRanges getPageRanges(String page) {
+        return get(Kind.PAGE_RANGES, page, PageParser::parse);
+    }
+
+    /**
+     * Parse the given string into number elements
+     * @param value the string to parse
+     * @return an unmodifiable list of number elements
+     * @see NumberParser#parse(String)
+     */
+    public List<NumberElement> getNumberElements(String value) {
+        return get(Kind.NUMBER_ELEMENTS, value,
+                v -> Collections.unmodifiableList(NumberParser.parse(v)));
+    }
+
+    /**
+     * Check if the given string is numeric
+     * @param value the string
+     * @return {@code true} if the string is numeric
+     * @see NumberHelper#isNumeric(String)
+     */
+    public boolean isNumeric(String value) {
+        return get(Kind.NUMERIC, value, NumberHelper::isNumeric);
+    }
+
+    /**
+     * Parse a raw date string
+     * @param raw the string to parse
+     * @param locale the locale to use while parsing
+     * @return the parsed date
+     * @throws IllegalArgumentException if the date could not be parsed
+     * @see AnyDateParser#parse(String, Locale)
+     */
+    public TemporalAccessor parseDate(String raw, Locale locale) {
+        Object r = get(Kind.DATE, new DateKey(raw, locale), k -> {
+            try {
+                return AnyDateParser.parse(k.raw, k.locale);
+            } catch (IllegalArgumentException e) {
+                return e;
+            }
+        });
+        if (r instanceof IllegalArgumentException) {
+            throw (IllegalArgumentException)r;
+        }
+        return (TemporalAccessor)r;
+    }
+
+    /**
+     * Initialize a given name
+     * @param name the name to initialize
+     * @param initializeWith the string to append to initials
+     * @param onlyNormalize {@code true} if the name should only be normalized
+     * but not initialized
+     * @return the initialized name
+     * @see StringHelper#initializeName(String, String, boolean)
+     */
+    public String initializeName(String name, String initializeWith,
+            boolean onlyNormalize) {
+        return get(Kind.INITIALIZED_NAME,
+                new NameKey(name, initializeWith, onlyNormalize),
+                k -> StringHelper.initializeName(k.name, k.initializeWith,
+                        k.onlyNormalize));
+    }
+
+    /**
+     * Get a rendered name from the cache or render it if it has not been
+     * rendered yet
+     * @param key identifies the name and all parameters that influence how
+     * it is rendered (must implement {@link Object#equals(Object)} and
+     * {@link Object#hashCode()})
+     * @param render renders the name
+     * @return the rendered name. The returned buffer is shared and must not
+     * be modified, but it can be appended to other buffers.
+     */
+    public TokenBuffer getRenderedName(Object key, Supplier<TokenBuffer> render) {
+        // wrap the rendered tokens so the cached buffer will not be
+        // modified when it is appended to other buffers
+        return get(Kind.RENDERED_NAME, key,
+                k -> new TokenBuffer().append(render.get()));
+    }
+
+    /**
+     * Get a value from the cache or compute it if it has not been cached yet.
+     * Does not use {@link Map#computeIfAbsent(Object, Function)} because
+     * computing a value may cache other values (e.g. rendering a name
+     * initializes it), which a {@link ConcurrentHashMap} does not allow
+     * within the same map.
+     * @param kind the kind of the value
+     * @param input the input the value is derived from
+     * @param compute computes the value from the input
+     * @return the value (may be {@code null} if {@code compute} returned
+     * {@code null}, in which case nothing is cached)
+     */
+    @SuppressWarnings("unchecked")
+    private <I, V> V get(Kind kind, I input, Function<I, V> compute) {
+        Map<CacheKey, Object> c = cache;
+        if (c == null) {
+            synchronized (this) {
+                c = cache;
+                if (c == null) {
+                    c = new ConcurrentHashMap<>();
+                    cache = c;
+                }
+            }
+        }
+
+        CacheKey key = new CacheKey(kind, input);
+        Object v = c.get(key);
+        if (v == null) {
+            v = compute.apply(input);
+            if (v == null) {
+                return null;
+            }
+            Object existing = c.putIfAbsent(key, v);
+            if (existing != null) {
+                v = existing;
+            }
+        }
+        return (V)v;
+    }
+
+    /**
+     * A key in the cache consisting of the kind of the cached value and
+     * the input it has been derived from
+     */
+    private static final class CacheKey {
+        private final Kind kind;
+        private final Object input;
+
+        CacheKey(Kind kind, Object input) {
+            this.kind = kind;
+            this.input = input;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey other = (CacheKey)o;
+            return kind == other.kind && input.equals(other.input);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * kind.hashCode() + input.hashCode();
+        }
+    }
+
+    /**
+     * A cache key for parsed dates
+     */
+    private static final class DateKey {
+        private final String raw;
+        private final Locale locale;
+
+        DateKey(String raw, Locale locale) {
+            this.raw = raw;
+            this.locale = locale;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof DateKey)) {
+                return false;
+            }
+            DateKey other = (DateKey)o;
+            return raw.equals(other.raw) && Objects.equals(locale, other.locale);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * raw.hashCode() + Objects.hashCode(locale);
+        }
+    }
+
+    /**
+     * A cache key for initialized names
+     */
+    private static final class NameKey {
+        private final String name;
+        private final String initializeWith;
+        private final boolean onlyNormalize;
+
+        NameKey(String name, String initializeWith, boolean onlyNormalize) {
+            this.name = name;
+            this.initializeWith = initializeWith;
+            this.onlyNormalize = onlyNormalize;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof NameKey)) {
+                return false;
+            }
+            NameKey other = (NameKey)o;
+            return onlyNormalize == other.onlyNormalize &&
+                    name.equals(other.name) &&
+                    Objects.equals(initializeWith, other.initializeWith);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = name.hashCode();
+            result = 31 * result + Objects.hashCode(initializeWith);
+            return 31 * result + (onlyNormalize ? 1 : 0);
+        }
+    }
+}
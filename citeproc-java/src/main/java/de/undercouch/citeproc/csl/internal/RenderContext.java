@@ -1,7 +1,6 @@
 package de.undercouch.citeproc.csl.internal;
 
 import de.undercouch.citeproc.AbbreviationProvider;
-import de.undercouch.citeproc.bibtex.PageParser;
 import de.undercouch.citeproc.csl.CSLCitation;
 import de.undercouch.citeproc.csl.CSLCitationItem;
 import de.undercouch.citeproc.csl.CSLCitationItemBuilder;
@@ -97,6 +96,16 @@ public class RenderContext {
      */
     private final SNameInheritableAttributes inheritedNameAttributes;
 
+    /**
+     * Prepared items of all registered citation items (may be {@code null})
+     */
+    private final Map<String, PreparedItem> preparedItems;
+
+    /**
+     * The prepared item of {@link #itemData} (lazily initialized)
+     */
+    private PreparedItem preparedItem;
+
     /**
      * Creates a new render context
      * @param style the style used to render citation items and bibliographies
@@ -121,6 +130,25 @@ public class RenderContext {
     public RenderContext(SStyle style, LLocale locale, CSLItemData itemData,
             AbbreviationProvider abbreviationProvider, CSLCitation citation,
             List<GeneratedCitation> generatedCitations) {
+        this(style, locale, itemData, abbreviationProvider, citation,
+                generatedCitations, null);
+    }
+
+    /**
+     * Creates a new render context
+     * @param style the style used to render citation items and bibliographies
+     * @param locale localization data
+     * @param itemData the citation item to render
+     * @param abbreviationProvider an optional abbreviation provider (may be {@code null})
+     * @param citation the citation to render
+     * @param generatedCitations all citations generated so far
+     * @param preparedItems prepared items of all registered citation items
+     * mapped to their IDs (may be {@code null})
+     */
+    public RenderContext(SStyle style, LLocale locale, CSLItemData itemData,
+            AbbreviationProvider abbreviationProvider, CSLCitation citation,
+            List<GeneratedCitation> generatedCitations,
+            Map<String, PreparedItem> preparedItems) {
         this.style = style;
         this.locale = locale;
         this.abbreviationProvider = abbreviationProvider;
@@ -137,6 +165,7 @@ public class RenderContext {
         this.suppressedVariables = new HashSet<>();
         this.lastLabelRendered = new AtomicReference<>();
         this.inheritedNameAttributes = style.getInheritableNameAttributes();
+        this.preparedItems = preparedItems;
     }
 
     /**
@@ -208,6 +237,10 @@ public class RenderContext {
         this.suppressedVariables = parent.suppressedVariables;
         this.lastLabelRendered = parent.lastLabelRendered;
         this.inheritedNameAttributes = inheritedNameAttributes;
+        this.preparedItems = parent.preparedItems;
+        if (itemData != null && itemData == parent.itemData) {
+            this.preparedItem = parent.getPreparedItem();
+        }
     }
 
     /**
@@ -250,6 +283,27 @@ public class RenderContext {
         return result;
     }
 
+    /**
+     * Get the prepared item that caches values derived from the citation
+     * item data to render. If the item has not been registered with the
+     * processor, a new prepared item will be created for this context and
+     * its children.
+     * @return the prepared item
+     */
+    public PreparedItem getPreparedItem() {
+        if (preparedItem == null) {
+            PreparedItem p = null;
+            if (preparedItems != null && itemData != null) {
+                p = preparedItems.get(itemData.getId());
+            }
+            if (p == null) {
+                p = new PreparedItem();
+            }
+            preparedItem = p;
+        }
+        return preparedItem;
+    }
+
     /**
      * Get the value of a string, date, or name variable
      * @param name the variable's name
@@ -360,7 +414,10 @@ public class RenderContext {
                     result = itemData.getCitationLabel();
                     break;
                 case "citation-number":
-                    result = itemData.getCitationNumber();
+                    result = getPreparedItem().getCitationNumber();
+                    if (result == null) {
+                        result = itemData.getCitationNumber();
+                    }
                     break;
                 case "collection-number":
                     result = itemData.getCollectionNumber();
@@ -429,7 +486,12 @@ public class RenderContext {
                     result = itemData.getLanguage();
                     break;
                 case "locator":
-                    result = itemData.getLocator();
+                    if (citationItem != null) {
+                        result = citationItem.getLocator();
+                    }
+                    if (result == null) {
+                        result = itemData.getLocator();
+                    }
                     break;
                 case "medium":
                     result = itemData.getMedium();
@@ -460,7 +522,7 @@ public class RenderContext {
                     break;
                 case "page-first":
                     if (itemData.getPage() != null) {
-                        result = PageParser.parse(itemData.getPage()).getPageFirst();
+                        result = getPreparedItem().getPageRanges(itemData.getPage()).getPageFirst();
                     }
                     break;
                 case "PMCID":
@@ -924,9 +986,9 @@ public class RenderContext {
         if (formattingAttributes == 0) {
             result.append(buffer);
         } else {
-            buffer.getTokens().stream()
-                    .map(t -> t.wrapFormattingAttributes(formattingAttributes))
-                    .forEach(result::append);
+            for (Token t : buffer) {
+                result.append(t.wrapFormattingAttributes(formattingAttributes));
+            }
         }
         return this;
     }
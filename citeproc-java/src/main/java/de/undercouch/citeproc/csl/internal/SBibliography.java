@@ -64,6 +64,17 @@ public class SBibliography implements SElement {
         return secondFieldAlign;
     }
 
+    @Override
+    public VariableDependencies analyzeVariables(VariableDependencyAnalyzer analyzer) {
+        if (sort != null) {
+            sort.analyzeVariables(analyzer);
+        }
+        if (layout == null) {
+            return VariableDependencies.NONE;
+        }
+        return layout.analyzeVariables(analyzer);
+    }
+
     @Override
     public void render(RenderContext ctx) {
         if (layout != null) {
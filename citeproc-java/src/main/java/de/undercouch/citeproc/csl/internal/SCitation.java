@@ -44,6 +44,17 @@ public class SCitation implements SElement {
         return sort;
     }
 
+    @Override
+    public VariableDependencies analyzeVariables(VariableDependencyAnalyzer analyzer) {
+        if (sort != null) {
+            sort.analyzeVariables(analyzer);
+        }
+        if (layout == null) {
+            return VariableDependencies.NONE;
+        }
+        return layout.analyzeVariables(analyzer);
+    }
+
     @Override
     public void render(RenderContext ctx) {
         if (layout != null) {
@@ -10,4 +10,15 @@ public interface SElement {
      * @param ctx the context in which to render
      */
     void render(RenderContext ctx);
+
+    /**
+     * Statically analyze which variables this element may fetch when it is
+     * rendered. Elements may store information they need at render time.
+     * @param analyzer the analyzer that resolves macros
+     * @return the element's variable dependencies (the default
+     * implementation returns {@link VariableDependencies#UNKNOWN})
+     */
+    default VariableDependencies analyzeVariables(VariableDependencyAnalyzer analyzer) {
+        return VariableDependencies.UNKNOWN;
+    }
 }
@@ -13,6 +13,12 @@ public class SKey implements SRenderingElement {
     private final String variable;
     private final int sort;
 
+    /**
+     * Variables the key may fetch (computed when the style is loaded,
+     * {@code null} if the key has not been analyzed)
+     */
+    private VariableDependencies variableDependencies;
+
     /**
      * Creates the key from an XML node
      * @param node the XML node
@@ -38,6 +44,39 @@ public class SKey implements SRenderingElement {
         return sort;
     }
 
+    /**
+     * Check if this key definitely fetches the {@code citation-number}
+     * variable whenever it is rendered
+     * @return {@code true} if the key depends on the citation number
+     */
+    public boolean isCitationNumberKey() {
+        return "citation-number".equals(variable);
+    }
+
+    /**
+     * Check if this key may fetch the {@code citation-number} variable when
+     * it is rendered. If this method returns {@code false}, the key
+     * definitely does not depend on the citation number.
+     * @return {@code true} if the key may depend on the citation number
+     */
+    public boolean mayDependOnCitationNumber() {
+        return variableDependencies == null ||
+                variableDependencies.mayFetch("citation-number");
+    }
+
+    @Override
+    public VariableDependencies analyzeVariables(VariableDependencyAnalyzer analyzer) {
+        if (macro != null) {
+            variableDependencies = analyzer.analyzeMacro(macro);
+        } else if (variable != null) {
+            variableDependencies = VariableDependencies.of(
+                    VariableDependencies.Kind.STRING, variable, VariableForm.LONG);
+        } else {
+            variableDependencies = VariableDependencies.NONE;
+        }
+        return variableDependencies;
+    }
+
     @Override
     public void render(RenderContext ctx) {
         if (macro != null) {
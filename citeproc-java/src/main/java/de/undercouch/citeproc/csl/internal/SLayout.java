@@ -29,6 +29,7 @@ public class SLayout extends SRenderingElementContainerElement {
     @Override
     public void render(RenderContext ctx) {
         RenderContext tmp = new RenderContext(ctx);
+        boolean firstField = false;
         List<SRenderingElement> elements = getElements(ctx);
         for (int i = 0; i < elements.size(); i++) {
             SRenderingElement e = elements.get(i);
@@ -36,9 +37,10 @@ public class SLayout extends SRenderingElementContainerElement {
                 // render first field
                 RenderContext innerTmp = new RenderContext(tmp);
                 e.render(innerTmp);
-                for (Token t : innerTmp.getResult().getTokens()) {
+                for (Token t : innerTmp.getResult()) {
                     // set flag in token
                     tmp.emit(t.copyWithFirstField(true));
+                    firstField = true;
                 }
             } else {
                 e.render(tmp);
@@ -53,14 +55,10 @@ public class SLayout extends SRenderingElementContainerElement {
         // the scope of the formatting attributes set on the same element.
         // Apply them before the formatting attributes are wrapped around the
         // rendered tokens.
-        boolean firstField = buffer.getTokens().get(0).isFirstField();
-        affixes.applyTo(buffer);
-        if (firstField) {
-            // the prefix has been prepended to the first field, so it needs to
-            // be marked as such too (otherwise second-field-align would break)
-            List<Token> tokens = buffer.getTokens();
-            tokens.set(0, tokens.get(0).copyWithFirstField(true));
-        }
+        // If the first field has been rendered, the prefix will be prepended
+        // to it, so it needs to be marked as such too (otherwise
+        // second-field-align would break)
+        affixes.applyTo(buffer, firstField);
 
         ctx.emit(buffer, formattingAttributes);
     }
@@ -67,6 +67,26 @@ public class SRenderingElementContainer {
         }
     }
 
+    /**
+     * Statically analyze which variables the elements in this container
+     * may fetch when they are rendered
+     * @param analyzer the analyzer that resolves macros
+     * @return the variable dependencies of all elements
+     */
+    public VariableDependencies analyzeVariables(VariableDependencyAnalyzer analyzer) {
+        List<VariableDependencies> result = new ArrayList<>(rawElements.size());
+        for (Object o : rawElements) {
+            if (o instanceof SRenderingElement) {
+                result.add(((SRenderingElement)o).analyzeVariables(analyzer));
+            } else if (o instanceof SChoose) {
+                result.add(((SChoose)o).analyzeVariables(analyzer));
+            } else {
+                result.add(VariableDependencies.UNKNOWN);
+            }
+        }
+        return VariableDependencies.sequence(result);
+    }
+
     public List<SRenderingElement> getElements(RenderContext ctx) {
         if (rawElements.isEmpty()) {
             return Collections.emptyList();
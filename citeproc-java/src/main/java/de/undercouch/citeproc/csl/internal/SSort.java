@@ -1,6 +1,7 @@
 package de.undercouch.citeproc.csl.internal;
 
 import de.undercouch.citeproc.AbbreviationProvider;
+import de.undercouch.citeproc.csl.CSLCitationItem;
 import de.undercouch.citeproc.csl.CSLItemData;
 import de.undercouch.citeproc.csl.internal.locale.LLocale;
 import de.undercouch.citeproc.helper.AlphanumComparator;
@@ -9,7 +10,9 @@ import org.w3c.dom.NodeList;
 
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * A sort element inside a bibliography or citation element
@@ -33,6 +36,16 @@ public class SSort {
         }
     }
 
+    /**
+     * Statically analyze which variables the sort keys may fetch
+     * @param analyzer the analyzer that resolves macros
+     */
+    public void analyzeVariables(VariableDependencyAnalyzer analyzer) {
+        for (SKey key : keys) {
+            key.analyzeVariables(analyzer);
+        }
+    }
+
     /**
      * Creates a comparator that is able to compare {@link CSLItemData} objects
      * according
@@ -47,13 +60,39 @@ public class SSort {
     }
 
     /**
-     * A sort comparator returned by {@link #comparator(SStyle, LLocale, AbbreviationProvider)}
+     * Creates a comparator that is able to compare {@link CSLItemData} objects
+     * according to this sort element and that reuses values cached in
+     * prepared items
+     * @param style the current citation style
+     * @param locale the current locale
+     * @param abbreviationProvider the current abbreviation provider
+     * @param preparedItems prepared items of all registered citation items
+     * mapped to their IDs (may be {@code null})
+     * @return the comparator
+     */
+    public SortComparator comparator(SStyle style, LLocale locale,
+            AbbreviationProvider abbreviationProvider,
+            Map<String, PreparedItem> preparedItems) {
+        return new SortComparator(style, locale, abbreviationProvider,
+                preparedItems);
+    }
+
+    /**
+     * A sort comparator returned by {@link #comparator(SStyle, LLocale, AbbreviationProvider)}.
+     * The comparator renders sort keys lazily and caches the rendered values
+     * for each item and key. Keys are only rendered if they are actually
+     * needed to break a tie between two items. An instance of this class
+     * should therefore be reused while a list of items is sorted but it
+     * should not be kept afterwards.
      */
     public class SortComparator implements Comparator<CSLItemData> {
         private final SStyle style;
         private final LLocale locale;
         private final AbbreviationProvider abbreviationProvider;
+        private final Map<String, PreparedItem> preparedItems;
         private final AlphanumComparator comparator;
+        private final Map<Object, RenderedKeys> renderedKeys =
+                new IdentityHashMap<>();
         private int citationNumberDirection = 1;
 
         /**
@@ -64,9 +103,24 @@ public class SSort {
          */
         public SortComparator(SStyle style, LLocale locale,
                 AbbreviationProvider abbreviationProvider) {
+            this(style, locale, abbreviationProvider, null);
+        }
+
+        /**
+         * Create a new sort comparator
+         * @param style the current citation style
+         * @param locale the current locale
+         * @param abbreviationProvider the current abbreviation provider
+         * @param preparedItems prepared items of all registered citation
+         * items mapped to their IDs (may be {@code null})
+         */
+        public SortComparator(SStyle style, LLocale locale,
+                AbbreviationProvider abbreviationProvider,
+                Map<String, PreparedItem> preparedItems) {
             this.style = style;
             this.locale = locale;
             this.abbreviationProvider = abbreviationProvider;
+            this.preparedItems = preparedItems;
             comparator = new AlphanumComparator(locale.getLang());
         }
 
@@ -81,19 +135,33 @@ public class SSort {
 
         @Override
         public int compare(CSLItemData a, CSLItemData b) {
+            return compare(getRenderedKeys(a, null), getRenderedKeys(b, null));
+        }
+
+        /**
+         * Compare two citation items. In contrast to
+         * {@link #compare(CSLItemData, CSLItemData)}, this method takes
+         * per-cite values such as the locator into account.
+         * @param a the first citation item
+         * @param b the second citation item
+         * @return a negative integer, zero, or a positive integer as the
+         * first item is less than, equal to, or greater than the second
+         */
+        public int compare(CSLCitationItem a, CSLCitationItem b) {
+            return compare(getRenderedKeys(a.getItemData(), a),
+                    getRenderedKeys(b.getItemData(), b));
+        }
+
+        private int compare(RenderedKeys ra, RenderedKeys rb) {
             Integer result = null;
 
-            for (SKey key : keys) {
-                RenderContext ctxa = new RenderContext(style, locale, a,
-                        abbreviationProvider);
-                CollectingVariableListener vl = new CollectingVariableListener();
-                ctxa.addVariableListener(vl);
-                key.render(ctxa);
-                ctxa.removeVariableListener(vl);
-                if (vl.getCalled().contains("citation-number")) {
+            for (int i = 0; i < keys.size(); ++i) {
+                SKey key = keys.get(i);
+
+                if (ra.dependsOnCitationNumber(i)) {
                     citationNumberDirection = key.getSort();
                     if (result != null) {
-                        // always render all keys until we have a result and
+                        // check all keys until we have a result and
                         // found a key with the citation-number
                         break;
                     }
@@ -104,12 +172,8 @@ public class SSort {
                     continue;
                 }
 
-                RenderContext ctxb = new RenderContext(style, locale, b,
-                        abbreviationProvider);
-                key.render(ctxb);
-
-                String sa = ctxa.getResult().toString();
-                String sb = ctxb.getResult().toString();
+                String sa = ra.get(i);
+                String sb = rb.get(i);
 
                 // empty elements should be put at the end of the list
                 if (sa.isEmpty() && !sb.isEmpty()) {
@@ -126,5 +190,100 @@ public class SSort {
 
             return result != null ? result : 0;
         }
+
+        /**
+         * Get the (lazily) rendered sort keys of the given item. Items are
+         * compared by identity because the processor may sort different
+         * copies of the same item.
+         * @param item the item
+         * @param citationItem the cite that refers to the item (may be
+         * {@code null} if the item is not sorted within a citation)
+         * @return the item's rendered sort keys
+         */
+        private RenderedKeys getRenderedKeys(CSLItemData item,
+                CSLCitationItem citationItem) {
+            Object key = citationItem != null ? citationItem : item;
+            return renderedKeys.computeIfAbsent(key,
+                    k -> new RenderedKeys(item, citationItem));
+        }
+
+        /**
+         * The sort keys of a single item. Each key is rendered on demand
+         * and only once. Keys that depend on the citation number are
+         * rendered every time because the processor may renumber the item
+         * while it sorts other items.
+         */
+        private class RenderedKeys {
+            private final CSLItemData item;
+            private final CSLCitationItem citationItem;
+            private final String[] values = new String[keys.size()];
+            private final Boolean[] dependsOnCitationNumber = new Boolean[keys.size()];
+
+            RenderedKeys(CSLItemData item, CSLCitationItem citationItem) {
+                this.item = item;
+                this.citationItem = citationItem;
+            }
+
+            /**
+             * Get the rendered value of a sort key
+             * @param i the key's index
+             * @return the rendered value
+             */
+            String get(int i) {
+                if (values[i] == null) {
+                    render(i);
+                } else if (dependsOnCitationNumber(i)) {
+                    // the citation number might have changed
+                    render(i);
+                }
+                return values[i];
+            }
+
+            /**
+             * Check if a sort key depends on the citation number
+             * @param i the key's index
+             * @return {@code true} if the key depends on the citation number
+             */
+            boolean dependsOnCitationNumber(int i) {
+                if (dependsOnCitationNumber[i] == null) {
+                    SKey key = keys.get(i);
+                    if (key.isCitationNumberKey()) {
+                        dependsOnCitationNumber[i] = Boolean.TRUE;
+                    } else if (!key.mayDependOnCitationNumber()) {
+                        dependsOnCitationNumber[i] = Boolean.FALSE;
+                    } else {
+                        // we cannot decide statically whether the key depends
+                        // on the citation number, so we have to render it
+                        render(i);
+                    }
+                }
+                return dependsOnCitationNumber[i];
+            }
+
+            private void render(int i) {
+                SKey key = keys.get(i);
+                RenderContext ctx = new RenderContext(style, locale, item,
+                        abbreviationProvider, null, null, preparedItems);
+                if (citationItem != null) {
+                    ctx = new RenderContext(ctx, citationItem);
+                }
+
+                // only collect fetched variables if we cannot decide
+                // statically whether the key depends on the citation number
+                if (dependsOnCitationNumber[i] == null &&
+                        !key.isCitationNumberKey() &&
+                        key.mayDependOnCitationNumber()) {
+                    CollectingVariableListener vl = new CollectingVariableListener();
+                    ctx.addVariableListener(vl);
+                    key.render(ctx);
+                    ctx.removeVariableListener(vl);
+                    dependsOnCitationNumber[i] = vl.getCalled().contains("citation-number");
+                } else {
+                    key.render(ctx);
+                }
+
+                values[i] = ctx.getResult().toString();
+            }
+        }
     }
 }
@@ -4,7 +4,6 @@ import de.undercouch.citeproc.csl.internal.locale.LLocale;
 import de.undercouch.citeproc.csl.internal.rendering.SNameInheritableAttributes;
 import de.undercouch.citeproc.helper.NodeHelper;
 import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
@@ -31,11 +30,18 @@ public class SStyle {
      * @param styleDocument the XML document
      */
     public SStyle(Document styleDocument) {
+        this(styleDocument.getDocumentElement());
+    }
+
+    /**
+     * Creates the citation style from an XML root node
+     * @param styleRoot the root node
+     */
+    public SStyle(Node styleRoot) {
         List<LLocale> locales = new ArrayList<>();
         SCitation citation = null;
         SBibliography bibl = null;
 
-        Element styleRoot = styleDocument.getDocumentElement();
         NodeList styleChildren = styleRoot.getChildNodes();
         for (int i = 0; i < styleChildren.getLength(); ++i) {
             Node c = styleChildren.item(i);
@@ -59,6 +65,15 @@ public class SStyle {
             }
         }
 
+        // determine which variables the style's elements may fetch
+        VariableDependencyAnalyzer analyzer = new VariableDependencyAnalyzer(macros);
+        if (citation != null) {
+            citation.analyzeVariables(analyzer);
+        }
+        if (bibl != null) {
+            bibl.analyzeVariables(analyzer);
+        }
+
         this.locales = locales;
         this.citation = citation;
         this.bibliography = bibl;
@@ -3,30 +3,48 @@ package de.undercouch.citeproc.csl.internal;
 import de.undercouch.citeproc.csl.internal.token.TextToken;
 import de.undercouch.citeproc.csl.internal.token.Token;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.NoSuchElementException;
 
 /**
- * A buffer of rendered tokens
+ * <p>A buffer of rendered tokens.</p>
+ * <p>The buffer is implemented as a rope. Single tokens are appended to a
+ * mutable tail list, but appending or prepending another buffer and
+ * copying a range of tokens only create new immutable tree nodes and
+ * therefore run in constant time. Nested rendering elements can wrap
+ * their children's output without copying it over and over again.</p>
+ * <p>The flat list of tokens is only built when {@link #getTokens()} is
+ * called (i.e. when the buffer is post-processed and formatted).</p>
  * @author Michel Kraemer
  */
-public class TokenBuffer {
-    private final List<Token> tokens;
+public class TokenBuffer implements Iterable<Token> {
+    /**
+     * Immutable tokens that precede the tokens in {@link #tail} (may be
+     * {@code null} if there are no such tokens)
+     */
+    private Segment root;
+
+    /**
+     * A mutable list of tokens owned by this buffer (may be {@code null})
+     */
+    private List<Token> tail;
 
     /**
      * Create an empty token buffer
      */
     public TokenBuffer() {
-        tokens = new ArrayList<>();
     }
 
     /**
-     * Create a token buffer with the given list of tokens
-     * @param tokens the token list
+     * Create a token buffer with the given rope
+     * @param root the rope
      */
-    private TokenBuffer(List<Token> tokens) {
-        this.tokens = tokens;
+    private TokenBuffer(Segment root) {
+        this.root = root;
     }
 
     /**
@@ -35,7 +53,10 @@ public class TokenBuffer {
      * @return this token buffer
      */
     public TokenBuffer append(Token token) {
-        tokens.add(token);
+        if (tail == null) {
+            tail = new ArrayList<>();
+        }
+        tail.add(token);
         return this;
     }
 
@@ -45,7 +66,7 @@ public class TokenBuffer {
      * @return this token buffer
      */
     public TokenBuffer prepend(Token token) {
-        tokens.add(0, token);
+        root = concat(new TokenSegment(token), root);
         return this;
     }
 
@@ -96,31 +117,71 @@ public class TokenBuffer {
     }
 
     /**
-     * Append the contents of another token buffer to this one
+     * Append the contents of another token buffer to this one. The
+     * operation runs in constant time. The tokens are shared between
+     * both buffers but since shared parts are immutable, both buffers can
+     * still be modified independently.
      * @param other the other token buffer
      * @return this token buffer
      */
     public TokenBuffer append(TokenBuffer other) {
-        this.tokens.addAll(other.tokens);
+        Segment s = other.seal();
+        if (s != null) {
+            root = concat(seal(), s);
+        }
         return this;
     }
 
     /**
-     * Prepend the contents of another token buffer to this one
+     * Prepend the contents of another token buffer to this one. The
+     * operation runs in constant time. See {@link #append(TokenBuffer)}.
      * @param other the other token buffer
      * @return this token buffer
      */
     public TokenBuffer prepend(TokenBuffer other) {
-        this.tokens.addAll(0, other.tokens);
+        root = concat(other.seal(), root);
         return this;
     }
 
     /**
-     * Get the list of tokens managed by this buffer
+     * <p>Get the list of tokens managed by this buffer. If necessary, the
+     * buffer's contents will be flattened into a new list first.</p>
+     * <p>The returned list may be modified to modify the buffer, but it
+     * should not be kept after the buffer has been appended to or prepended
+     * to another one or after {@link #copy(int, int)} has been called.
+     * Call this method again instead.</p>
      * @return the list
      */
     public List<Token> getTokens() {
-        return tokens;
+        if (root == null) {
+            if (tail == null) {
+                tail = new ArrayList<>();
+            }
+            return tail;
+        }
+
+        List<Token> result = new ArrayList<>(size());
+        for (Token t : this) {
+            result.add(t);
+        }
+        root = null;
+        tail = result;
+        return tail;
+    }
+
+    /**
+     * Get the number of tokens in this buffer
+     * @return the number of tokens
+     */
+    public int size() {
+        int result = 0;
+        if (root != null) {
+            result += root.size;
+        }
+        if (tail != null) {
+            result += tail.size();
+        }
+        return result;
     }
 
     /**
@@ -128,22 +189,261 @@ public class TokenBuffer {
      * @return {@code true} if the buffer does not contain tokens
      */
     public boolean isEmpty() {
-        return tokens.isEmpty();
+        return root == null && (tail == null || tail.isEmpty());
     }
 
     /**
      * Create a new token buffer that contains a portion of this one between
-     * the specified {@code fromIndex} and {@code toIndex} (exclusive).
+     * the specified {@code fromIndex} and {@code toIndex} (exclusive). The
+     * operation runs in constant time.
      * @param fromIndex the index of the first element (inclusive)
      * @param toIndex the index of the last element (exclusive)
      * @return the new token buffer
      */
     public TokenBuffer copy(int fromIndex, int toIndex) {
-        return new TokenBuffer(tokens.subList(fromIndex, toIndex));
+        int size = size();
+        if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("fromIndex: " + fromIndex +
+                    ", toIndex: " + toIndex + ", size: " + size);
+        }
+        if (fromIndex == toIndex) {
+            return new TokenBuffer();
+        }
+        Segment s = seal();
+        if (fromIndex == 0 && toIndex == size) {
+            return new TokenBuffer(s);
+        }
+        if (s instanceof SliceSegment) {
+            SliceSegment ss = (SliceSegment)s;
+            return new TokenBuffer(new SliceSegment(ss.source,
+                    ss.from + fromIndex, ss.from + toIndex));
+        }
+        return new TokenBuffer(new SliceSegment(s, fromIndex, toIndex));
+    }
+
+    /**
+     * Iterate over all tokens in this buffer without flattening it
+     * @return an iterator over all tokens
+     */
+    @Override
+    public Iterator<Token> iterator() {
+        if (root == null) {
+            if (tail == null) {
+                return new SegmentIterator(null);
+            }
+            return tail.iterator();
+        }
+        Iterator<Token> it = new SegmentIterator(root);
+        if (tail == null || tail.isEmpty()) {
+            return it;
+        }
+        Iterator<Token> tailIt = tail.iterator();
+        return new Iterator<Token>() {
+            @Override
+            public boolean hasNext() {
+                return it.hasNext() || tailIt.hasNext();
+            }
+
+            @Override
+            public Token next() {
+                if (it.hasNext()) {
+                    return it.next();
+                }
+                return tailIt.next();
+            }
+        };
+    }
+
+    /**
+     * Transfer the mutable tail of this buffer into the immutable rope so
+     * the buffer's contents can be shared with other buffers
+     * @return the rope (may be {@code null} if the buffer is empty)
+     */
+    private Segment seal() {
+        if (tail != null) {
+            if (!tail.isEmpty()) {
+                root = concat(root, new ListSegment(tail));
+            }
+            tail = null;
+        }
+        return root;
+    }
+
+    /**
+     * Concatenate two ropes
+     * @param left the left rope (may be {@code null})
+     * @param right the right rope (may be {@code null})
+     * @return the concatenated rope
+     */
+    private static Segment concat(Segment left, Segment right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        return new ConcatSegment(left, right);
     }
 
     @Override
     public String toString() {
-        return tokens.stream().map(Token::toString).collect(Collectors.joining());
+        StringBuilder sb = new StringBuilder();
+        for (Token t : this) {
+            sb.append(t);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * An immutable node of a rope
+     */
+    private static abstract class Segment {
+        final int size;
+
+        Segment(int size) {
+            this.size = size;
+        }
+    }
+
+    /**
+     * A leaf node containing a single token
+     */
+    private static class TokenSegment extends Segment {
+        final Token token;
+
+        TokenSegment(Token token) {
+            super(1);
+            this.token = token;
+        }
+    }
+
+    /**
+     * A leaf node containing a list of tokens. The list must not be
+     * modified anymore after the node has been created.
+     */
+    private static class ListSegment extends Segment {
+        final List<Token> tokens;
+
+        ListSegment(List<Token> tokens) {
+            super(tokens.size());
+            this.tokens = tokens;
+        }
+    }
+
+    /**
+     * An inner node concatenating two other nodes
+     */
+    private static class ConcatSegment extends Segment {
+        final Segment left;
+        final Segment right;
+
+        ConcatSegment(Segment left, Segment right) {
+            super(left.size + right.size);
+            this.left = left;
+            this.right = right;
+        }
+    }
+
+    /**
+     * A node referring to a range of tokens of another node
+     */
+    private static class SliceSegment extends Segment {
+        final Segment source;
+        final int from;
+
+        SliceSegment(Segment source, int from, int to) {
+            super(to - from);
+            this.source = source;
+            this.from = from;
+        }
+    }
+
+    /**
+     * A range of a rope node that still has to be visited by a
+     * {@link SegmentIterator}
+     */
+    private static class Range {
+        final Segment segment;
+        final int from;
+        final int to;
+
+        Range(Segment segment, int from, int to) {
+            this.segment = segment;
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    /**
+     * Iterates over the tokens of a rope. Uses an explicit stack instead of
+     * recursion, so deeply nested ropes do not cause a stack overflow.
+     */
+    private static class SegmentIterator implements Iterator<Token> {
+        private final Deque<Range> stack = new ArrayDeque<>();
+        private List<Token> current;
+        private int currentIndex;
+        private int currentEnd;
+        private Token next;
+
+        SegmentIterator(Segment root) {
+            if (root != null) {
+                stack.push(new Range(root, 0, root.size));
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next != null) {
+                return true;
+            }
+            if (current != null) {
+                if (currentIndex < currentEnd) {
+                    next = current.get(currentIndex++);
+                    return true;
+                }
+                current = null;
+            }
+
+            while (!stack.isEmpty()) {
+                Range r = stack.pop();
+                Segment s = r.segment;
+                if (s instanceof TokenSegment) {
+                    next = ((TokenSegment)s).token;
+                    return true;
+                } else if (s instanceof ListSegment) {
+                    current = ((ListSegment)s).tokens;
+                    currentIndex = r.from;
+                    currentEnd = r.to;
+                    next = current.get(currentIndex++);
+                    return true;
+                } else if (s instanceof ConcatSegment) {
+                    ConcatSegment cs = (ConcatSegment)s;
+                    int ls = cs.left.size;
+                    if (r.to > ls) {
+                        stack.push(new Range(cs.right, Math.max(r.from - ls, 0),
+                                r.to - ls));
+                    }
+                    if (r.from < ls) {
+                        stack.push(new Range(cs.left, r.from, Math.min(r.to, ls)));
+                    }
+                } else {
+                    SliceSegment ss = (SliceSegment)s;
+                    stack.push(new Range(ss.source, ss.from + r.from,
+                            ss.from + r.to));
+                }
+            }
+
+            return false;
+        }
+
+        @Override
+        public Token next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Token r = next;
+            next = null;
+            return r;
+        }
     }
 }
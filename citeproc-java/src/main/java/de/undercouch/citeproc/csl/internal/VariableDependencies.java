@@ -0,0 +1,407 @@
+package de.undercouch.citeproc.csl.internal;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * <p>Describes which variables a style element may fetch from the
+ * {@link RenderContext} while it is rendered. Dependencies are computed
+ * statically when a style is loaded (see {@link VariableDependencyAnalyzer})
+ * and allow the renderer to decide if an element will produce any output
+ * before actually rendering it.</p>
+ * <p>Objects of this class are immutable.</p>
+ * @author Michel Kraemer
+ */
+public class VariableDependencies {
+    /**
+     * Dependencies of an element that does not fetch any variables and does
+     * not render anything
+     */
+    public static final VariableDependencies NONE = new VariableDependencies(
+            false, Collections.emptySet(), Collections.emptySet(), false,
+            false, true, false);
+
+    /**
+     * Dependencies of an element that does not fetch any variables but
+     * renders output (e.g. a term or a fixed value)
+     */
+    public static final VariableDependencies CONSTANT = new VariableDependencies(
+            false, Collections.emptySet(), Collections.emptySet(), false,
+            true, true, false);
+
+    /**
+     * Dependencies of an element that could not be analyzed
+     */
+    public static final VariableDependencies UNKNOWN = new VariableDependencies(
+            true, Collections.emptySet(), Collections.emptySet(), false,
+            true, false, true);
+
+    /**
+     * The kind of a variable fetch
+     */
+    public enum Kind {
+        /**
+         * A string variable
+         */
+        STRING,
+
+        /**
+         * A date variable
+         */
+        DATE,
+
+        /**
+         * A name variable
+         */
+        NAME,
+
+        /**
+         * A string, date, or name variable (in this order)
+         */
+        ANY
+    }
+
+    /**
+     * A single variable fetch
+     */
+    public static final class Fetch {
+        private final Kind kind;
+        private final String name;
+        private final VariableForm form;
+
+        /**
+         * Create a new variable fetch
+         * @param kind the kind of the variable
+         * @param name the variable's name
+         * @param form the form in which the variable is fetched
+         */
+        public Fetch(Kind kind, String name, VariableForm form) {
+            this.kind = kind;
+            this.name = name;
+            this.form = form;
+        }
+
+        /**
+         * Get the variable's name
+         * @return the name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Fetch the variable's value from the given context without
+         * notifying variable listeners
+         * @param ctx the context
+         * @return the value (may be {@code null})
+         */
+        private Object probe(RenderContext ctx) {
+            switch (kind) {
+                case STRING:
+                    return ctx.getStringVariable(name, form, true);
+                case DATE:
+                    return ctx.getDateVariable(name, true);
+                case NAME:
+                    return ctx.getNameVariable(name, true);
+                default:
+                    return ctx.getVariable(name, true);
+            }
+        }
+
+        /**
+         * Check if variable listeners will definitely be notified about a
+         * non-empty value when the variable is fetched from the given context
+         * @param ctx the context
+         * @return {@code true} if the value will be non-empty
+         */
+        private boolean isNonEmpty(RenderContext ctx) {
+            switch (kind) {
+                case STRING: {
+                    String s = ctx.getStringVariable(name, form, true);
+                    return s != null && !s.isEmpty();
+                }
+                case NAME:
+                    return ctx.getNameVariable(name, true) != null;
+                case ANY: {
+                    String s = ctx.getStringVariable(name, true);
+                    if (s != null) {
+                        return !s.isEmpty();
+                    }
+                    return ctx.getDateVariable(name, true) != null ||
+                            ctx.getNameVariable(name, true) != null;
+                }
+                default:
+                    // date elements only report a non-empty value if they
+                    // actually render something
+                    return false;
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Fetch fetch = (Fetch)o;
+            return kind == fetch.kind && name.equals(fetch.name) &&
+                    form == fetch.form;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(kind, name, form);
+        }
+    }
+
+    private final boolean unknown;
+    private final Set<Fetch> fetches;
+    private final Set<Fetch> requiredFetches;
+    private final boolean alwaysFetches;
+    private final boolean rendersWithoutVariables;
+    private final boolean skippable;
+    private final boolean suppressesVariables;
+
+    private VariableDependencies(boolean unknown, Set<Fetch> fetches,
+            Set<Fetch> requiredFetches, boolean alwaysFetches,
+            boolean rendersWithoutVariables, boolean skippable,
+            boolean suppressesVariables) {
+        this.unknown = unknown;
+        this.fetches = fetches;
+        this.requiredFetches = requiredFetches;
+        this.alwaysFetches = alwaysFetches;
+        this.rendersWithoutVariables = rendersWithoutVariables;
+        this.skippable = skippable;
+        this.suppressesVariables = suppressesVariables;
+    }
+
+    /**
+     * Create dependencies of an element that always fetches the given
+     * variable
+     * @param kind the variable's kind
+     * @param name the variable's name
+     * @param form the form in which the variable is fetched
+     * @return the dependencies
+     */
+    public static VariableDependencies of(Kind kind, String name,
+            VariableForm form) {
+        Set<Fetch> s = Collections.singleton(new Fetch(kind, name, form));
+        return new VariableDependencies(false, s, s, true, false, true, false);
+    }
+
+    /**
+     * Create dependencies of an element that renders the given children one
+     * after the other
+     * @param children the dependencies of the children
+     * @return the dependencies
+     */
+    public static VariableDependencies sequence(
+            Collection<VariableDependencies> children) {
+        if (children.isEmpty()) {
+            return NONE;
+        }
+        if (children.size() == 1) {
+            return children.iterator().next();
+        }
+
+        Set<Fetch> fetches = new LinkedHashSet<>();
+        Set<Fetch> requiredFetches = new LinkedHashSet<>();
+        boolean alwaysFetches = false;
+        boolean rendersWithoutVariables = false;
+        boolean skippable = true;
+        boolean suppressesVariables = false;
+        for (VariableDependencies c : children) {
+            if (c.unknown) {
+                return UNKNOWN;
+            }
+            fetches.addAll(c.fetches);
+            requiredFetches.addAll(c.requiredFetches);
+            alwaysFetches |= c.alwaysFetches;
+            rendersWithoutVariables |= c.rendersWithoutVariables;
+            skippable &= c.skippable;
+            suppressesVariables |= c.suppressesVariables;
+        }
+        return new VariableDependencies(false, fetches, requiredFetches,
+                alwaysFetches, rendersWithoutVariables, skippable,
+                suppressesVariables);
+    }
+
+    /**
+     * Create dependencies of an element that renders at most one of the
+     * given alternatives (e.g. the branches of a {@code choose} element)
+     * @param alternatives the dependencies of the alternatives
+     * @param exhaustive {@code true} if one of the alternatives is always
+     * rendered (i.e. if there is an {@code else} branch)
+     * @return the dependencies
+     */
+    public static VariableDependencies choice(
+            List<VariableDependencies> alternatives, boolean exhaustive) {
+        if (alternatives.isEmpty()) {
+            return NONE;
+        }
+
+        Set<Fetch> fetches = new LinkedHashSet<>();
+        Set<Fetch> requiredFetches = null;
+        boolean alwaysFetches = exhaustive;
+        boolean rendersWithoutVariables = false;
+        boolean skippable = true;
+        boolean suppressesVariables = false;
+        for (VariableDependencies a : alternatives) {
+            if (a.unknown) {
+                return UNKNOWN;
+            }
+            fetches.addAll(a.fetches);
+            if (requiredFetches == null) {
+                requiredFetches = new HashSet<>(a.requiredFetches);
+            } else {
+                requiredFetches.retainAll(a.requiredFetches);
+            }
+            alwaysFetches &= a.alwaysFetches;
+            rendersWithoutVariables |= a.rendersWithoutVariables;
+            skippable &= a.skippable;
+            suppressesVariables |= a.suppressesVariables;
+        }
+        if (!exhaustive) {
+            requiredFetches = Collections.emptySet();
+        }
+        return new VariableDependencies(false, fetches, requiredFetches,
+                alwaysFetches, rendersWithoutVariables, skippable,
+                suppressesVariables);
+    }
+
+    /**
+     * Create dependencies of a {@code names} element
+     * @param variables the name variables the element fetches
+     * @param substitute the dependencies of the element's {@code substitute}
+     * child (may be {@code null})
+     * @return the dependencies
+     */
+    public static VariableDependencies names(String[] variables,
+            VariableDependencies substitute) {
+        if (substitute != null && substitute.unknown) {
+            return UNKNOWN;
+        }
+
+        Set<Fetch> requiredFetches = new LinkedHashSet<>();
+        for (String v : variables) {
+            requiredFetches.add(new Fetch(Kind.NAME, v, VariableForm.LONG));
+        }
+        if (substitute == null) {
+            return new VariableDependencies(false, requiredFetches,
+                    requiredFetches, !requiredFetches.isEmpty(), false, true,
+                    false);
+        }
+
+        Set<Fetch> fetches = new LinkedHashSet<>(requiredFetches);
+        fetches.addAll(substitute.fetches);
+
+        // The substitute suppresses the variables it fetched if it renders
+        // something. The element must not be skipped if the substitute is
+        // able to render anything without a variable.
+        return new VariableDependencies(false, fetches, requiredFetches,
+                !requiredFetches.isEmpty() || substitute.alwaysFetches,
+                substitute.rendersWithoutVariables,
+                substitute.skippable && !substitute.rendersWithoutVariables,
+                true);
+    }
+
+    /**
+     * Create dependencies of a {@code group} element that contains elements
+     * with the given dependencies
+     * @param contents the dependencies of the group's contents
+     * @return the dependencies
+     */
+    public static VariableDependencies group(VariableDependencies contents) {
+        if (contents.unknown) {
+            return UNKNOWN;
+        }
+
+        // A group that fetches at least one variable is not rendered if all
+        // variables are empty. Otherwise, it may render something and notify
+        // parent groups about a non-empty dummy variable.
+        boolean rendersWithoutVariables = !contents.alwaysFetches &&
+                contents.rendersWithoutVariables;
+        return new VariableDependencies(false, contents.fetches,
+                contents.requiredFetches, contents.alwaysFetches,
+                rendersWithoutVariables,
+                contents.skippable && !rendersWithoutVariables,
+                contents.suppressesVariables);
+    }
+
+    /**
+     * Check if the dependencies could not be determined statically
+     * @return {@code true} if the dependencies are unknown
+     */
+    public boolean isUnknown() {
+        return unknown;
+    }
+
+    /**
+     * Check if the element may fetch the variable with the given name
+     * @param name the variable's name
+     * @return {@code true} if the variable may be fetched (always
+     * {@code true} if the dependencies are unknown)
+     */
+    public boolean mayFetch(String name) {
+        if (unknown) {
+            return true;
+        }
+        for (Fetch f : fetches) {
+            if (f.getName().equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * <p>Check if a {@code group} element with these dependencies can be
+     * skipped in the given context without rendering it. This is the case
+     * if the group fetches at least one variable and if all variables it
+     * may fetch are empty.</p>
+     * <p>Note that variable listeners will not be notified if the group is
+     * skipped. The caller is responsible for that.</p>
+     * @param ctx the context
+     * @return {@code true} if the group will not render anything
+     */
+    public boolean isAlwaysEmpty(RenderContext ctx) {
+        if (unknown || !alwaysFetches || !skippable) {
+            return false;
+        }
+        for (Fetch f : fetches) {
+            if (f.probe(ctx) != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check if a {@code group} element with these dependencies will
+     * definitely fetch at least one non-empty variable in the given context.
+     * In this case, the group will always be rendered and does not need to
+     * count fetched variables.
+     * @param ctx the context
+     * @return {@code true} if a non-empty variable will be fetched
+     */
+    public boolean isNeverEmpty(RenderContext ctx) {
+        if (unknown || suppressesVariables) {
+            // substitutes may suppress variables while the element is
+            // rendered, so we cannot be sure
+            return false;
+        }
+        for (Fetch f : requiredFetches) {
+            if (f.isNonEmpty(ctx)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
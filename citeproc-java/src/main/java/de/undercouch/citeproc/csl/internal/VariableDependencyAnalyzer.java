@@ -0,0 +1,54 @@
+package de.undercouch.citeproc.csl.internal;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Statically analyzes which variables the elements of a style may fetch.
+ * Called once when the style is loaded. Elements store the results they
+ * need at render time themselves.
+ * @see SElement#analyzeVariables(VariableDependencyAnalyzer)
+ * @author Michel Kraemer
+ */
+public class VariableDependencyAnalyzer {
+    private final Map<String, SMacro> macros;
+    private final Map<String, VariableDependencies> analyzedMacros = new HashMap<>();
+    private final Set<String> macrosInProgress = new HashSet<>();
+
+    /**
+     * Create a new analyzer
+     * @param macros the macros defined in the style
+     */
+    public VariableDependencyAnalyzer(Map<String, SMacro> macros) {
+        this.macros = macros;
+    }
+
+    /**
+     * Analyze the macro with the given name. Every macro is only analyzed
+     * once.
+     * @param name the macro's name
+     * @return the macro's dependencies ({@link VariableDependencies#UNKNOWN}
+     * if the macro does not exist or if it calls itself recursively)
+     */
+    public VariableDependencies analyzeMacro(String name) {
+        VariableDependencies result = analyzedMacros.get(name);
+        if (result != null) {
+            return result;
+        }
+
+        SMacro macro = macros.get(name);
+        if (macro == null || !macrosInProgress.add(name)) {
+            return VariableDependencies.UNKNOWN;
+        }
+        try {
+            result = macro.analyzeVariables(this);
+        } finally {
+            macrosInProgress.remove(name);
+        }
+
+        analyzedMacros.put(name, result);
+        return result;
+    }
+}
@@ -2,6 +2,7 @@ package de.undercouch.citeproc.csl.internal.behavior;
 
 import de.undercouch.citeproc.csl.internal.RenderContext;
 import de.undercouch.citeproc.csl.internal.TokenBuffer;
+import de.undercouch.citeproc.csl.internal.token.TextToken;
 import de.undercouch.citeproc.helper.NodeHelper;
 import org.w3c.dom.Node;
 
@@ -56,9 +57,19 @@ public class Affixes implements Behavior {
      * @param buffer the buffer to modify
      */
     public void applyTo(TokenBuffer buffer) {
+        applyTo(buffer, false);
+    }
+
+    /**
+     * Modifies the given token buffer and renders prefix and suffix
+     * @param buffer the buffer to modify
+     * @param firstField {@code true} if the prefix should be marked as
+     * being part of the first rendered field
+     */
+    public void applyTo(TokenBuffer buffer, boolean firstField) {
         if (!buffer.isEmpty()) {
             if (prefix != null) {
-                buffer.prepend(prefix, PREFIX);
+                buffer.prepend(new TextToken(prefix, PREFIX, 0, firstField));
             }
             if (suffix != null) {
                 buffer.append(suffix, SUFFIX);
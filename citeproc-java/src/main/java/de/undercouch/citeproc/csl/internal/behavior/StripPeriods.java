@@ -36,9 +36,9 @@ public class StripPeriods implements Behavior {
         if (stripPeriods) {
             RenderContext child = new RenderContext(ctx);
             renderFunction.accept(child);
-            child.getResult().getTokens().stream()
-                    .map(this::transform)
-                    .forEach(ctx::emit);
+            for (Token t : child.getResult()) {
+                ctx.emit(transform(t));
+            }
         } else {
             renderFunction.accept(ctx);
         }
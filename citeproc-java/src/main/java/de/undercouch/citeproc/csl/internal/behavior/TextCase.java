@@ -31,9 +31,9 @@ public class TextCase implements Behavior {
     public void accept(Consumer<RenderContext> renderFunction, RenderContext ctx) {
         RenderContext child = new RenderContext(ctx);
         renderFunction.accept(child);
-        child.getResult().getTokens().stream()
-                .map(t -> transform(t, ctx))
-                .forEach(ctx::emit);
+        for (Token t : child.getResult()) {
+            ctx.emit(transform(t, ctx));
+        }
     }
 
     /**
@@ -23,21 +23,18 @@ public class AsciiDocFormat extends BaseFormat {
     }
 
     @Override
-    protected String doFormatCitation(TokenBuffer buffer, RenderContext ctx) {
-        return format(buffer);
+    protected void doFormatCitation(TokenBuffer buffer, RenderContext ctx,
+            StringBuilder result) {
+        format(buffer, result);
     }
 
     @Override
-    protected String doFormatBibliographyEntry(TokenBuffer buffer,
-            RenderContext ctx, int index) {
-        String pre;
+    protected void doFormatBibliographyEntry(TokenBuffer buffer,
+            RenderContext ctx, int index, StringBuilder result) {
         if (index > 0) {
-            pre = "\n";
-        } else {
-            pre = "";
+            result.append('\n');
         }
-
-        String result;
+        result.append("[.csl-entry]\n");
 
         SecondFieldAlign sfa = ctx.getStyle().getBibliography().getSecondFieldAlign();
         if (sfa != SecondFieldAlign.FALSE && !buffer.getTokens().isEmpty()) {
@@ -51,19 +48,22 @@ public class AsciiDocFormat extends BaseFormat {
             TokenBuffer restBuffer = buffer.copy(i, tokens.size());
 
             // render first field and rest independently
-            result = "[.csl-left-margin]##" + format(firstBuffer) +
-                    "##[.csl-right-inline]##" + format(restBuffer) + "##";
+            result.append("[.csl-left-margin]##");
+            format(firstBuffer, result);
+            result.append("##[.csl-right-inline]##");
+            format(restBuffer, result);
+            result.append("##");
         } else {
-            result = format(buffer);
+            format(buffer, result);
         }
 
-        return pre + "[.csl-entry]\n" + result + "\n";
+        result.append('\n');
     }
 
     @Override
-    protected String doFormatLink(String text, String uri) {
+    protected void doFormatLink(String text, String uri, StringBuilder result) {
         // AsciiDoc renders URLs automatically as links
-        return uri;
+        result.append(uri);
     }
 
     @Override
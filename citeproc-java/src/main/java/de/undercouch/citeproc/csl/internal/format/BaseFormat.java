@@ -3,6 +3,7 @@ package de.undercouch.citeproc.csl.internal.format;
 import de.undercouch.citeproc.csl.internal.RenderContext;
 import de.undercouch.citeproc.csl.internal.TokenBuffer;
 import de.undercouch.citeproc.csl.internal.behavior.FormattingAttributes;
+import de.undercouch.citeproc.csl.internal.locale.LLocale;
 import de.undercouch.citeproc.csl.internal.token.DisplayGroupToken;
 import de.undercouch.citeproc.csl.internal.token.TextToken;
 import de.undercouch.citeproc.csl.internal.token.Token;
@@ -18,6 +19,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 
 /**
  * A base class for output formats
@@ -57,6 +60,12 @@ abstract public class BaseFormat implements Format {
 
     protected boolean convertLinks = false;
 
+    /**
+     * The stages applied in {@link #postProcess(TokenBuffer, RenderContext)}
+     * (created lazily for the current locale)
+     */
+    private PostProcessingPipeline postProcessingPipeline;
+
     /**
      * Performs post-processing on the given buffer. Alters the buffer's
      * contents. Be sure to make a copy of the buffer before calling this method.
@@ -64,12 +73,27 @@ abstract public class BaseFormat implements Format {
      * @param ctx the render context in which the buffer was created
      */
     protected void postProcess(TokenBuffer buffer, RenderContext ctx) {
+        PostProcessingPipeline pipeline = postProcessingPipeline;
+        if (pipeline == null || pipeline.locale != ctx.getLocale() ||
+                pipeline.convertLinks != convertLinks) {
+            pipeline = new PostProcessingPipeline(ctx);
+            postProcessingPipeline = pipeline;
+        }
+
         List<Token> tokens = buffer.getTokens();
+        for (Consumer<List<Token>> stage : pipeline.stages) {
+            stage.accept(tokens);
+        }
+    }
 
-        // convert straight quotation marks to curly ones
-        SmartQuotes sq = new SmartQuotes(ctx.getTerm("open-inner-quote"),
-                ctx.getTerm("close-inner-quote"), ctx. getTerm("open-quote"),
-                ctx.getTerm("close-quote"), ctx.getLocale().getLang());
+    /**
+     * Apply a function to the text of all tokens of type
+     * {@link TextToken.Type#TEXT}, {@link TextToken.Type#PREFIX},
+     * {@link TextToken.Type#SUFFIX}, or {@link TextToken.Type#DELIMITER}
+     * @param tokens the tokens to process
+     * @param f the function to apply
+     */
+    private static void replaceText(List<Token> tokens, UnaryOperator<String> f) {
         for (int i = 0; i < tokens.size(); ++i) {
             Token t = tokens.get(i);
             if (t instanceof TextToken) {
@@ -79,78 +103,88 @@ abstract public class BaseFormat implements Format {
                         type == TextToken.Type.PREFIX ||
                         type == TextToken.Type.SUFFIX ||
                         type == TextToken.Type.DELIMITER) {
-                    String nt = sq.apply(tt.getText());
+                    String nt = f.apply(tt.getText());
                     if (!nt.equals(tt.getText())) {
                         tokens.set(i, tt.copyWithText(nt));
                     }
                 }
             }
         }
+    }
 
-        // swap punctuation and closing quotation marks if necessary
-        if (ctx.getLocale().getStyleOptions().isPunctuationInQuote()) {
-            for (int i = 0; i < tokens.size() - 1; ++i) {
-                Token ti = tokens.get(i);
-                if (!(ti instanceof TextToken)) {
-                    continue;
-                }
-                TextToken t0 = (TextToken)ti;
-
-                int j = findNextText(tokens, i);
-                if (j < 0) {
-                    break;
-                }
-                TextToken t1 = (TextToken)tokens.get(j);
-
-                if (t0.getType() == TextToken.Type.CLOSE_QUOTE && !t1.getText().isEmpty() &&
-                        (t1.getText().charAt(0) == ',' || t1.getText().charAt(0) == '.')) {
-                    String nextText = t1.getText();
-                    String punctuation = nextText.substring(0, 1);
-                    String rest = nextText.substring(1);
-                    tokens.set(j, t1.copyWithText(rest));
-
-                    // The token before CLOSE_QUOTE should be a TEXT token. If
-                    // it also ends with a closing quote, merge the punctuation
-                    // even further.
-                    if (i > 0 && tokens.get(i - 1) instanceof TextToken &&
-                            ((TextToken)tokens.get(i - 1)).getType() == TextToken.Type.TEXT) {
-                        TextToken tt = (TextToken)tokens.get(i - 1);
-                        String ttt = tt.getText();
-                        int len = ttt.length();
-
-                        String cq = ctx.getTerm("close-quote");
-                        String ciq = ctx.getTerm("close-inner-quote");
-                        while (len > 0) {
-                            String ss = ttt.substring(0, len);
-                            if (ss.endsWith(cq)) {
-                                len -= cq.length();
-                            } else if (ss.endsWith(ciq)) {
-                                len -= ciq.length();
-                            } else {
-                                break;
-                            }
-                        }
+    /**
+     * Swap punctuation and closing quotation marks
+     * @param tokens the tokens to process
+     * @param cq the closing quotation mark
+     * @param ciq the closing inner quotation mark
+     */
+    private static void movePunctuationIntoQuotes(List<Token> tokens,
+            String cq, String ciq) {
+        for (int i = 0; i < tokens.size() - 1; ++i) {
+            Token ti = tokens.get(i);
+            if (!(ti instanceof TextToken)) {
+                continue;
+            }
+            TextToken t0 = (TextToken)ti;
 
-                        if (len == 0) {
-                            // The whole token consists of closing quotes. Move
-                            // the punctuation before the token.
-                            i -= 1;
-                        } else if (len < ttt.length()) {
-                            // split the token
-                            String ttr = ttt.substring(len);
-                            ttt = ttt.substring(0, len);
-                            tokens.set(i - 1, tt.copyWithText(ttt));
-                            tokens.add(i, tt.copyWithText(ttr));
+            int j = findNextText(tokens, i);
+            if (j < 0) {
+                break;
+            }
+            TextToken t1 = (TextToken)tokens.get(j);
+
+            if (t0.getType() == TextToken.Type.CLOSE_QUOTE && !t1.getText().isEmpty() &&
+                    (t1.getText().charAt(0) == ',' || t1.getText().charAt(0) == '.')) {
+                String nextText = t1.getText();
+                String punctuation = nextText.substring(0, 1);
+                String rest = nextText.substring(1);
+                tokens.set(j, t1.copyWithText(rest));
+
+                // The token before CLOSE_QUOTE should be a TEXT token. If
+                // it also ends with a closing quote, merge the punctuation
+                // even further.
+                if (i > 0 && tokens.get(i - 1) instanceof TextToken &&
+                        ((TextToken)tokens.get(i - 1)).getType() == TextToken.Type.TEXT) {
+                    TextToken tt = (TextToken)tokens.get(i - 1);
+                    String ttt = tt.getText();
+                    int len = ttt.length();
+
+                    while (len > 0) {
+                        String ss = ttt.substring(0, len);
+                        if (ss.endsWith(cq)) {
+                            len -= cq.length();
+                        } else if (ss.endsWith(ciq)) {
+                            len -= ciq.length();
+                        } else {
+                            break;
                         }
                     }
 
-                    tokens.add(i, t1.copyWithText(punctuation));
-                    i = j;
+                    if (len == 0) {
+                        // The whole token consists of closing quotes. Move
+                        // the punctuation before the token.
+                        i -= 1;
+                    } else if (len < ttt.length()) {
+                        // split the token
+                        String ttr = ttt.substring(len);
+                        ttt = ttt.substring(0, len);
+                        tokens.set(i - 1, tt.copyWithText(ttt));
+                        tokens.add(i, tt.copyWithText(ttr));
+                    }
                 }
+
+                tokens.add(i, t1.copyWithText(punctuation));
+                i = j;
             }
         }
+    }
 
-        // remove extraneous prefixes, suffixes, and delimiters
+    /**
+     * Remove extraneous prefixes, suffixes, and delimiters that overlap
+     * with the preceding text
+     * @param tokens the tokens to process
+     */
+    private static void removeOverlaps(List<Token> tokens) {
         for (int i = 1; i < tokens.size(); ++i) {
             Token ti = tokens.get(i);
             if (!(ti instanceof TextToken)) {
@@ -197,8 +231,14 @@ abstract public class BaseFormat implements Format {
                 }
             }
         }
+    }
 
-        // merge punctuation
+    /**
+     * Merge punctuation at the end of a token with punctuation at the
+     * beginning of a following prefix, suffix, or delimiter
+     * @param tokens the tokens to process
+     */
+    private static void mergePunctuation(List<Token> tokens) {
         for (int i = 1; i < tokens.size(); ++i) {
             Token ti = tokens.get(i);
             if (!(ti instanceof TextToken)) {
@@ -239,54 +279,80 @@ abstract public class BaseFormat implements Format {
                 }
             }
         }
+    }
 
-        // apply rules for french punctuation spacing
-        if (ctx.getLocale().getLang().getLanguage().equals(Locale.FRENCH.getLanguage())) {
-            for (int i = 0; i < tokens.size(); ++i) {
-                Token t = tokens.get(i);
-                if (t instanceof TextToken) {
-                    TextToken tt = (TextToken)t;
-                    TextToken.Type type = tt.getType();
-                    if (type == TextToken.Type.TEXT ||
-                            type == TextToken.Type.PREFIX ||
-                            type == TextToken.Type.SUFFIX ||
-                            type == TextToken.Type.DELIMITER) {
-                        String nt = FrenchPunctuationSpacing.apply(tt.getText());
-                        if (!nt.equals(tt.getText())) {
-                            tokens.set(i, tt.copyWithText(nt));
-                        }
-                    }
+    /**
+     * Remove DOI prefixes that point to doi.org and add the prefix to the
+     * DOI itself instead
+     * @param tokens the tokens to process
+     */
+    private void filterDOIPrefix(List<Token> tokens) {
+        for (int i = 1; i < tokens.size(); ++i) {
+            Token ti = tokens.get(i);
+            if (!(ti instanceof TextToken)) {
+                continue;
+            }
+            TextToken t1 = (TextToken)ti;
+
+            int j = findPreviousText(tokens, i);
+            if (j < 0) {
+                continue;
+            }
+            TextToken t0 = (TextToken)tokens.get(j);
+
+            if (t1.getType() == TextToken.Type.DOI &&
+                    t0.getType() == TextToken.Type.PREFIX &&
+                    t0.getText().matches("^https?://doi.org/?$")) {
+                // add doi.org if necessary
+                String url = addDOIPrefix(t1.getText());
+                if (!url.equals(t1.getText())) {
+                    tokens.set(i, t1.copyWithText(url));
                 }
+
+                // Remove unnecessary prefix
+                tokens.remove(j);
             }
         }
+    }
 
-        // filter DOI prefix
-        if (convertLinks) {
-            for (int i = 1; i < tokens.size(); ++i) {
-                Token ti = tokens.get(i);
-                if (!(ti instanceof TextToken)) {
-                    continue;
-                }
-                TextToken t1 = (TextToken)ti;
+    /**
+     * A sequence of post-processing stages. Which stages are enabled
+     * depends on the locale and on whether links should be converted.
+     * Pipelines are created once per locale and then reused.
+     */
+    private final class PostProcessingPipeline {
+        final LLocale locale;
+        final boolean convertLinks;
+        final List<Consumer<List<Token>>> stages = new ArrayList<>();
+
+        PostProcessingPipeline(RenderContext ctx) {
+            this.locale = ctx.getLocale();
+            this.convertLinks = BaseFormat.this.convertLinks;
+
+            // convert straight quotation marks to curly ones
+            SmartQuotes sq = new SmartQuotes(ctx.getTerm("open-inner-quote"),
+                    ctx.getTerm("close-inner-quote"), ctx.getTerm("open-quote"),
+                    ctx.getTerm("close-quote"), locale.getLang());
+            stages.add(tokens -> replaceText(tokens, sq::apply));
+
+            // swap punctuation and closing quotation marks if necessary
+            if (locale.getStyleOptions().isPunctuationInQuote()) {
+                String cq = ctx.getTerm("close-quote");
+                String ciq = ctx.getTerm("close-inner-quote");
+                stages.add(tokens -> movePunctuationIntoQuotes(tokens, cq, ciq));
+            }
 
-                int j = findPreviousText(tokens, i);
-                if (j < 0) {
-                    continue;
-                }
-                TextToken t0 = (TextToken)tokens.get(j);
+            stages.add(BaseFormat::removeOverlaps);
+            stages.add(BaseFormat::mergePunctuation);
 
-                if (t1.getType() == TextToken.Type.DOI &&
-                        t0.getType() == TextToken.Type.PREFIX &&
-                        t0.getText().matches("^https?://doi.org/?$")) {
-                    // add doi.org if necessary
-                    String url = addDOIPrefix(t1.getText());
-                    if (!url.equals(t1.getText())) {
-                        tokens.set(i, t1.copyWithText(url));
-                    }
+            // apply rules for french punctuation spacing
+            if (locale.getLang().getLanguage().equals(Locale.FRENCH.getLanguage())) {
+                stages.add(tokens -> replaceText(tokens,
+                        FrenchPunctuationSpacing::apply));
+            }
 
-                    // Remove unnecessary prefix
-                    tokens.remove(j);
-                }
+            if (convertLinks) {
+                stages.add(BaseFormat.this::filterDOIPrefix);
             }
         }
     }
@@ -350,11 +416,11 @@ abstract public class BaseFormat implements Format {
     }
 
     @Override
-    public String formatCitation(RenderContext ctx) {
+    public void formatCitation(RenderContext ctx, StringBuilder result) {
         TokenBuffer buffer = new TokenBuffer();
         buffer.append(ctx.getResult());
         postProcess(buffer, ctx);
-        return doFormatCitation(buffer, ctx);
+        doFormatCitation(buffer, ctx, result);
     }
 
     /**
@@ -362,16 +428,18 @@ abstract public class BaseFormat implements Format {
      * @param buffer the post-processed buffer to format
      * @param ctx the render context holding the original, non-post-processed
      * buffer and parameters
-     * @return the formatted citation
+     * @param result the string builder to append the formatted citation to
      */
-    protected abstract String doFormatCitation(TokenBuffer buffer, RenderContext ctx);
+    protected abstract void doFormatCitation(TokenBuffer buffer,
+            RenderContext ctx, StringBuilder result);
 
     @Override
-    public String formatBibliographyEntry(RenderContext ctx, int index) {
+    public void formatBibliographyEntry(RenderContext ctx, int index,
+            StringBuilder result) {
         TokenBuffer buffer = new TokenBuffer();
         buffer.append(ctx.getResult());
         postProcess(buffer, ctx);
-        return doFormatBibliographyEntry(buffer, ctx, index);
+        doFormatBibliographyEntry(buffer, ctx, index, result);
     }
 
     /**
@@ -380,19 +448,19 @@ abstract public class BaseFormat implements Format {
      * @param ctx the render context holding the original, non-post-processed
      * buffer and parameters
      * @param index the index of the entry
-     * @return the formatted bibliography entry
+     * @param result the string builder to append the formatted entry to
      */
-    protected abstract String doFormatBibliographyEntry(TokenBuffer buffer,
-            RenderContext ctx, int index);
+    protected abstract void doFormatBibliographyEntry(TokenBuffer buffer,
+            RenderContext ctx, int index, StringBuilder result);
 
     /**
      * Convert a URL to a link
      * @param str the URL
-     * @return the link
+     * @param result the string builder to append the link to
      */
-    protected String formatURL(String str) {
+    protected void formatURL(String str, StringBuilder result) {
         String escapedStr = escape(str);
-        return doFormatLink(escapedStr, escapedStr);
+        doFormatLink(escapedStr, escapedStr, result);
     }
 
     /**
@@ -411,20 +479,21 @@ abstract public class BaseFormat implements Format {
     /**
      * Convert a DOI to a link
      * @param str the DOI
-     * @return the link
+     * @param result the string builder to append the link to
      */
-    protected String formatDOI(String str) {
+    protected void formatDOI(String str, StringBuilder result) {
         String uri = addDOIPrefix(str);
-        return doFormatLink(escape(str), escape(uri));
+        doFormatLink(escape(str), escape(uri), result);
     }
 
     /**
      * Convert the given string to a link
      * @param text the string to convert
      * @param uri the URI the link should point to
-     * @return the link
+     * @param result the string builder to append the link to
      */
-    protected abstract String doFormatLink(String text, String uri);
+    protected abstract void doFormatLink(String text, String uri,
+            StringBuilder result);
 
     /**
      * Escape any formatting instructions specific to the output format
@@ -435,6 +504,18 @@ abstract public class BaseFormat implements Format {
         return str;
     }
 
+    /**
+     * Escape any formatting instructions specific to the output format and
+     * append the result to the given string builder. The default
+     * implementation calls {@link #escape(String)}. Subclasses may
+     * override this method to avoid creating intermediate strings.
+     * @param str the string to escape
+     * @param result the string builder to append the escaped string to
+     */
+    protected void escape(String str, StringBuilder result) {
+        result.append(escape(str));
+    }
+
     /**
      * Format a given token buffer
      * @param buffer the buffer to format
@@ -442,7 +523,16 @@ abstract public class BaseFormat implements Format {
      */
     protected String format(TokenBuffer buffer) {
         StringBuilder result = new StringBuilder();
+        format(buffer, result);
+        return result.toString();
+    }
 
+    /**
+     * Format a given token buffer and append the result to a string builder
+     * @param buffer the buffer to format
+     * @param result the string builder to append the formatted string to
+     */
+    protected void format(TokenBuffer buffer, StringBuilder result) {
         List<Pair<Format, Integer>> formattingStack = new ArrayList<>();
 
         for (Token t : buffer.getTokens()) {
@@ -526,16 +616,14 @@ abstract public class BaseFormat implements Format {
                 if (convertLinks && (tt.getType() == TextToken.Type.URL ||
                         tt.getType() == TextToken.Type.DOI)) {
                     // convert URLs and DOIs to links
-                    String link;
                     if (tt.getType() == TextToken.Type.URL) {
-                        link = formatURL(tt.getText());
+                        formatURL(tt.getText(), result);
                     } else {
-                        link = formatDOI(tt.getText());
+                        formatDOI(tt.getText(), result);
                     }
-                    result.append(link);
                 } else {
                     // render escaped token
-                    result.append(escape(tt.getText()));
+                    escape(tt.getText(), result);
                 }
             }
         }
@@ -545,8 +633,6 @@ abstract public class BaseFormat implements Format {
             Pair<Format, Integer> f = formattingStack.get(i - 1);
             closeFormattingAttribute(f.getKey(), f.getValue(), result);
         }
-
-        return result.toString();
     }
 
     /**
@@ -5,9 +5,9 @@ import de.undercouch.citeproc.csl.internal.SBibliography;
 import de.undercouch.citeproc.csl.internal.TokenBuffer;
 import de.undercouch.citeproc.csl.internal.token.DisplayGroupToken;
 import de.undercouch.citeproc.csl.internal.token.Token;
+import de.undercouch.citeproc.helper.MarkupEscaper;
 import de.undercouch.citeproc.output.Bibliography;
 import de.undercouch.citeproc.output.SecondFieldAlign;
-import org.apache.commons.text.StringEscapeUtils;
 
 import java.util.List;
 
@@ -44,14 +44,16 @@ public class FoFormat extends BaseFormat {
     }
 
     @Override
-    protected String doFormatCitation(TokenBuffer buffer, RenderContext ctx) {
-        return format(buffer);
+    protected void doFormatCitation(TokenBuffer buffer, RenderContext ctx,
+            StringBuilder result) {
+        format(buffer, result);
     }
 
     @Override
-    protected String doFormatBibliographyEntry(TokenBuffer buffer,
-            RenderContext ctx, int index) {
-        String result;
+    protected void doFormatBibliographyEntry(TokenBuffer buffer,
+            RenderContext ctx, int index, StringBuilder result) {
+        result.append("<fo:block id=\"").append(ctx.getCitationItem().getId())
+                .append("\">");
 
         SecondFieldAlign sfa = ctx.getStyle().getBibliography().getSecondFieldAlign();
         if (sfa != SecondFieldAlign.FALSE && !buffer.getTokens().isEmpty()) {
@@ -65,30 +67,37 @@ public class FoFormat extends BaseFormat {
             TokenBuffer restBuffer = buffer.copy(i, tokens.size());
 
             // render first field and rest independently
-            result = "\n  <fo:table table-layout=\"fixed\" width=\"100%\">\n    " +
-                    "<fo:table-column column-number=\"1\" column-width=\"" + columnWidth + "\"/>\n    " +
-                    "<fo:table-column column-number=\"2\" column-width=\"proportional-column-width(1)\"/>\n    " +
-                    "<fo:table-body>\n      " +
-                    "<fo:table-row>\n        " +
-                    "<fo:table-cell>\n          " +
-                    "<fo:block>" + format(firstBuffer) + "</fo:block>\n        " +
-                    "</fo:table-cell>\n        " +
-                    "<fo:table-cell>\n          " +
-                    "<fo:block>" + format(restBuffer) + "</fo:block>\n        " +
-                    "</fo:table-cell>\n      " +
-                    "</fo:table-row>\n    " +
-                    "</fo:table-body>\n  " +
-                    "</fo:table>\n";
+            result.append("\n  <fo:table table-layout=\"fixed\" width=\"100%\">\n    ")
+                    .append("<fo:table-column column-number=\"1\" column-width=\"")
+                    .append(columnWidth).append("\"/>\n    ")
+                    .append("<fo:table-column column-number=\"2\" column-width=\"proportional-column-width(1)\"/>\n    ")
+                    .append("<fo:table-body>\n      ")
+                    .append("<fo:table-row>\n        ")
+                    .append("<fo:table-cell>\n          ")
+                    .append("<fo:block>");
+            format(firstBuffer, result);
+            result.append("</fo:block>\n        ")
+                    .append("</fo:table-cell>\n        ")
+                    .append("<fo:table-cell>\n          ")
+                    .append("<fo:block>");
+            format(restBuffer, result);
+            result.append("</fo:block>\n        ")
+                    .append("</fo:table-cell>\n      ")
+                    .append("</fo:table-row>\n    ")
+                    .append("</fo:table-body>\n  ")
+                    .append("</fo:table>\n");
         } else {
-            result = format(buffer);
+            format(buffer, result);
         }
 
-        return "<fo:block id=\"" + ctx.getCitationItem().getId() + "\">" + result + "</fo:block>\n";
+        result.append("</fo:block>\n");
     }
 
     @Override
-    protected String doFormatLink(String text, String uri) {
-        return "<fo:basic-link external-destination=\"url('" + uri + "')\">" + text + "</fo:basic-link>";
+    protected void doFormatLink(String text, String uri, StringBuilder result) {
+        result.append("<fo:basic-link external-destination=\"url('")
+                .append(uri).append("')\">").append(text)
+                .append("</fo:basic-link>");
     }
 
     @Override
@@ -101,7 +110,12 @@ public class FoFormat extends BaseFormat {
 
     @Override
     protected String escape(String str) {
-        return StringEscapeUtils.escapeXml11(str);
+        return MarkupEscaper.escapeXml11(str);
+    }
+
+    @Override
+    protected void escape(String str, StringBuilder result) {
+        MarkupEscaper.escapeXml11(str, result);
     }
 
     @Override
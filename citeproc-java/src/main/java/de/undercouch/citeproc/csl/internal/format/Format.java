@@ -6,7 +6,9 @@ import de.undercouch.citeproc.output.Bibliography;
 
 /**
  * An output format converts the result of a {@link RenderContext} to a
- * formatted {@link String}.
+ * formatted {@link String}. Implementations append their output to a
+ * {@link StringBuilder} supplied by the caller, so a whole bibliography can
+ * be written into a single buffer.
  * @author Michel Kraemer
  */
 public interface Format {
@@ -27,7 +29,18 @@ public interface Format {
      * @param ctx the render context containing the citation to format
      * @return the formatted citation
      */
-    String formatCitation(RenderContext ctx);
+    default String formatCitation(RenderContext ctx) {
+        StringBuilder result = new StringBuilder();
+        formatCitation(ctx, result);
+        return result.toString();
+    }
+
+    /**
+     * Format a citation and append it to the given string builder
+     * @param ctx the render context containing the citation to format
+     * @param result the string builder to append the formatted citation to
+     */
+    void formatCitation(RenderContext ctx, StringBuilder result);
 
     /**
      * Format a bibliography entry
@@ -35,7 +48,20 @@ public interface Format {
      * @param index the index of the entry
      * @return the formatted entry
      */
-    String formatBibliographyEntry(RenderContext ctx, int index);
+    default String formatBibliographyEntry(RenderContext ctx, int index) {
+        StringBuilder result = new StringBuilder();
+        formatBibliographyEntry(ctx, index, result);
+        return result.toString();
+    }
+
+    /**
+     * Format a bibliography entry and append it to the given string builder
+     * @param ctx the render context containing the bibliography entry
+     * @param index the index of the entry
+     * @param result the string builder to append the formatted entry to
+     */
+    void formatBibliographyEntry(RenderContext ctx, int index,
+            StringBuilder result);
 
     /**
      * Create a {@link Bibliography} object with the given entries and
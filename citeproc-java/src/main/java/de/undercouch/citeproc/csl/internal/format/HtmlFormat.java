@@ -5,9 +5,9 @@ import de.undercouch.citeproc.csl.internal.SBibliography;
 import de.undercouch.citeproc.csl.internal.TokenBuffer;
 import de.undercouch.citeproc.csl.internal.token.DisplayGroupToken;
 import de.undercouch.citeproc.csl.internal.token.Token;
+import de.undercouch.citeproc.helper.MarkupEscaper;
 import de.undercouch.citeproc.output.Bibliography;
 import de.undercouch.citeproc.output.SecondFieldAlign;
-import org.apache.commons.text.StringEscapeUtils;
 
 import java.util.List;
 import java.util.Locale;
@@ -27,14 +27,15 @@ public class HtmlFormat extends BaseFormat {
     }
 
     @Override
-    protected String doFormatCitation(TokenBuffer buffer, RenderContext ctx) {
-        return format(buffer);
+    protected void doFormatCitation(TokenBuffer buffer, RenderContext ctx,
+            StringBuilder result) {
+        format(buffer, result);
     }
 
     @Override
-    protected String doFormatBibliographyEntry(TokenBuffer buffer,
-            RenderContext ctx, int index) {
-        String result;
+    protected void doFormatBibliographyEntry(TokenBuffer buffer,
+            RenderContext ctx, int index, StringBuilder result) {
+        result.append("  <div class=\"csl-entry\">");
 
         SecondFieldAlign sfa = ctx.getStyle().getBibliography().getSecondFieldAlign();
         if (sfa != SecondFieldAlign.FALSE && !buffer.getTokens().isEmpty()) {
@@ -48,17 +49,20 @@ public class HtmlFormat extends BaseFormat {
             TokenBuffer restBuffer = buffer.copy(i, tokens.size());
 
             // render first field and rest independently
-            result = "\n    <div class=\"csl-left-margin\">" + format(firstBuffer) +
-                    "</div><div class=\"csl-right-inline\">" + format(restBuffer) + "</div>\n  ";
+            result.append("\n    <div class=\"csl-left-margin\">");
+            format(firstBuffer, result);
+            result.append("</div><div class=\"csl-right-inline\">");
+            format(restBuffer, result);
+            result.append("</div>\n  ");
         } else {
-            result = format(buffer);
+            format(buffer, result);
         }
 
-        return "  <div class=\"csl-entry\">" + result + "</div>\n";
+        result.append("</div>\n");
     }
 
     @Override
-    protected String doFormatLink(String text, String uri) {
+    protected void doFormatLink(String text, String uri, StringBuilder result) {
         String uriLowerCase = uri.toLowerCase(Locale.ENGLISH);
         if (uriLowerCase.startsWith("http://")
                 || uriLowerCase.startsWith("https://")
@@ -67,9 +71,11 @@ public class HtmlFormat extends BaseFormat {
                 || uriLowerCase.startsWith("news:")
                 || uriLowerCase.startsWith("www.")
                 || uriLowerCase.startsWith("/")) {
-            return "<a href=\"" + uri + "\">" + text + "</a>";
+            result.append("<a href=\"").append(uri).append("\">")
+                    .append(text).append("</a>");
+        } else {
+            result.append(text);
         }
-        return text;
     }
 
     @Override
@@ -82,7 +88,12 @@ public class HtmlFormat extends BaseFormat {
 
     @Override
     protected String escape(String str) {
-        return StringEscapeUtils.escapeHtml4(str);
+        return MarkupEscaper.escapeHtml4(str);
+    }
+
+    @Override
+    protected void escape(String str, StringBuilder result) {
+        MarkupEscaper.escapeHtml4(str, result);
     }
 
     @Override
@@ -24,13 +24,12 @@ public class MarkdownFormat extends MarkdownPureFormat {
     }
 
     @Override
-    protected String doFormatBibliographyEntry(TokenBuffer buffer,
-            RenderContext ctx, int index) {
-        String r = format(buffer);
+    protected void doFormatBibliographyEntry(TokenBuffer buffer,
+            RenderContext ctx, int index, StringBuilder result) {
+        format(buffer, result);
         if (!buffer.isEmpty()) {
-            r += "<br />\n";
+            result.append("<br />\n");
         }
-        return r;
     }
 
     @Override
@@ -25,36 +25,37 @@ public class MarkdownPureFormat extends BaseFormat {
     }
 
     @Override
-    protected String doFormatCitation(TokenBuffer buffer, RenderContext ctx) {
-        return format(buffer);
+    protected void doFormatCitation(TokenBuffer buffer, RenderContext ctx,
+            StringBuilder result) {
+        format(buffer, result);
     }
 
     @Override
-    protected String doFormatBibliographyEntry(TokenBuffer buffer,
-            RenderContext ctx, int index) {
+    protected void doFormatBibliographyEntry(TokenBuffer buffer,
+            RenderContext ctx, int index, StringBuilder result) {
         if (!buffer.isEmpty()) {
             buffer.append("\n\n", TEXT);
         }
 
-        return format(buffer);
+        format(buffer, result);
     }
 
     @Override
-    protected String formatURL(String str) {
-        return doFormatLink(str, str);
+    protected void formatURL(String str, StringBuilder result) {
+        doFormatLink(str, str, result);
     }
 
     @Override
-    protected String formatDOI(String str) {
+    protected void formatDOI(String str, StringBuilder result) {
         String uri = addDOIPrefix(str);
-        return doFormatLink(str, uri);
+        doFormatLink(str, uri, result);
     }
 
     @Override
-    protected String doFormatLink(String text, String uri) {
+    protected void doFormatLink(String text, String uri, StringBuilder result) {
         text = text.replace("[", "\\[").replace("]", "\\]");
         uri = uri.replace("<", "\\<").replace(">", "\\>");
-        return "[" + text + "](<" + uri + ">)";
+        result.append('[').append(text).append("](<").append(uri).append(">)");
     }
 
     @Override
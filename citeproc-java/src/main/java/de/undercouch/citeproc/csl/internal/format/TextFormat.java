@@ -20,23 +20,24 @@ public class TextFormat extends BaseFormat {
     }
 
     @Override
-    protected String doFormatCitation(TokenBuffer buffer, RenderContext ctx) {
-        return format(buffer);
+    protected void doFormatCitation(TokenBuffer buffer, RenderContext ctx,
+            StringBuilder result) {
+        format(buffer, result);
     }
 
     @Override
-    protected String doFormatBibliographyEntry(TokenBuffer buffer,
-            RenderContext ctx, int index) {
+    protected void doFormatBibliographyEntry(TokenBuffer buffer,
+            RenderContext ctx, int index, StringBuilder result) {
         if (!buffer.isEmpty()) {
             buffer.append("\n", TEXT);
         }
 
-        return format(buffer);
+        format(buffer, result);
     }
 
     @Override
-    protected String doFormatLink(String text, String uri) {
-        return text;
+    protected void doFormatLink(String text, String uri, StringBuilder result) {
+        result.append(text);
     }
 
     @Override
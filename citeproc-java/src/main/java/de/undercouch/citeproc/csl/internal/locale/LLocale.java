@@ -162,17 +162,38 @@ public class LLocale {
             dateFormats.putAll(other.dateFormats);
         }
 
+        return new LLocale(lang, dateFormats, mergeTerms(other.terms),
+                styleOptions);
+    }
+
+    /**
+     * Merge the terms of this localization data with the terms of another
+     * one and return a new object where the terms defined in the other one
+     * override the terms in this one. Date formats and style options are
+     * not merged.
+     * @param other the other localization data
+     * @return a new localization data object
+     */
+    public LLocale mergeTerms(LLocale other) {
+        return new LLocale(lang, dateFormats, mergeTerms(other.terms),
+                styleOptions);
+    }
+
+    private Map<LTerm.Form, Map<String, LTerm>> mergeTerms(
+            Map<LTerm.Form, Map<String, LTerm>> otherTerms) {
         Map<LTerm.Form, Map<String, LTerm>> terms = new HashMap<>(this.terms);
-        if (other.terms != null) {
-            for (Map.Entry<LTerm.Form, Map<String, LTerm>> e : other.terms.entrySet()) {
+        if (otherTerms != null) {
+            for (Map.Entry<LTerm.Form, Map<String, LTerm>> e : otherTerms.entrySet()) {
+                // do not modify the maps of this or the other locale.
+                // they may be shared (e.g. by styles in a cache).
                 terms.merge(e.getKey(), e.getValue(), (a, b) -> {
-                    a.putAll(b);
-                    return a;
+                    Map<String, LTerm> m = new HashMap<>(a);
+                    m.putAll(b);
+                    return m;
                 });
             }
         }
-
-        return new LLocale(lang, dateFormats, terms, styleOptions);
+        return terms;
     }
 
     /**
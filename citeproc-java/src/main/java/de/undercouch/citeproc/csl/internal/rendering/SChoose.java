@@ -1,6 +1,8 @@
 package de.undercouch.citeproc.csl.internal.rendering;
 
 import de.undercouch.citeproc.csl.internal.RenderContext;
+import de.undercouch.citeproc.csl.internal.VariableDependencies;
+import de.undercouch.citeproc.csl.internal.VariableDependencyAnalyzer;
 import de.undercouch.citeproc.csl.internal.rendering.condition.SCondition;
 import de.undercouch.citeproc.csl.internal.rendering.condition.SElse;
 import de.undercouch.citeproc.csl.internal.rendering.condition.SIf;
@@ -68,6 +70,22 @@ public class SChoose {
         }
     }
 
+    /**
+     * Statically analyze which variables the children of this element may
+     * fetch when they are rendered
+     * @param analyzer the analyzer that resolves macros
+     * @return the variable dependencies
+     */
+    public VariableDependencies analyzeVariables(VariableDependencyAnalyzer analyzer) {
+        List<VariableDependencies> alternatives = new ArrayList<>(conditions.size());
+        boolean exhaustive = false;
+        for (SCondition c : conditions) {
+            alternatives.add(c.analyzeVariables(analyzer));
+            exhaustive |= c instanceof SElse;
+        }
+        return VariableDependencies.choice(alternatives, exhaustive);
+    }
+
     public List<SRenderingElement> evaluate(RenderContext ctx) {
         List<SRenderingElement> result = new ArrayList<>();
         for (SCondition c : conditions) {
@@ -2,12 +2,14 @@ package de.undercouch.citeproc.csl.internal.rendering;
 
 import de.undercouch.citeproc.csl.CSLDate;
 import de.undercouch.citeproc.csl.internal.RenderContext;
+import de.undercouch.citeproc.csl.internal.VariableDependencies;
+import de.undercouch.citeproc.csl.internal.VariableDependencyAnalyzer;
+import de.undercouch.citeproc.csl.internal.VariableForm;
 import de.undercouch.citeproc.csl.internal.behavior.Affixes;
 import de.undercouch.citeproc.csl.internal.locale.LDate;
 import de.undercouch.citeproc.csl.internal.token.TextToken;
 import de.undercouch.citeproc.csl.internal.token.Token;
 import de.undercouch.citeproc.helper.NodeHelper;
-import de.undercouch.citeproc.helper.time.AnyDateParser;
 import org.apache.commons.lang3.ArrayUtils;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
@@ -79,6 +81,15 @@ public class SDate implements SRenderingElement {
         affixes.wrap(this::renderInternal).accept(ctx);
     }
 
+    @Override
+    public VariableDependencies analyzeVariables(VariableDependencyAnalyzer analyzer) {
+        if (variable == null) {
+            return VariableDependencies.UNKNOWN;
+        }
+        return VariableDependencies.of(VariableDependencies.Kind.DATE,
+                variable, VariableForm.LONG);
+    }
+
     private void renderInternal(RenderContext ctx) {
         // fetch date variable but don't notify listeners until we know
         // if we need to render anything or not
@@ -95,8 +106,8 @@ public class SDate implements SRenderingElement {
         if (dps == null && date.getRaw() != null) {
             try {
                 // try to parse raw date
-                TemporalAccessor ta = AnyDateParser.parse(date.getRaw(),
-                        ctx.getLocale().getLang());
+                TemporalAccessor ta = ctx.getPreparedItem().parseDate(
+                        date.getRaw(), ctx.getLocale().getLang());
                 if (ta.isSupported(ChronoField.YEAR)) {
                     if (ta.isSupported(ChronoField.MONTH_OF_YEAR)) {
                         if (ta.isSupported(ChronoField.DAY_OF_MONTH)) {
@@ -204,21 +215,18 @@ public class SDate implements SRenderingElement {
                     if (datePartDelimiter != null && !result.getResult().isEmpty()) {
                         result.emit(datePartDelimiter, DELIMITER);
                     }
-                    dp.setDate(first);
-                    dp.render(result);
+                    dp.render(result, first);
                 } else {
                     // push first and last date to buffers until we merge them
                     if (datePartDelimiter != null && !left.getResult().isEmpty()) {
                         left.emit(datePartDelimiter, DELIMITER);
                     }
-                    dp.setDate(first);
-                    dp.render(left);
+                    dp.render(left, first);
 
                     if (datePartDelimiter != null && !right.getResult().isEmpty()) {
                         right.emit(datePartDelimiter, DELIMITER);
                     }
-                    dp.setDate(last);
-                    dp.render(right);
+                    dp.render(right, last);
 
                     rangeDelimiter = dp.getRangeDelimiter();
                 }
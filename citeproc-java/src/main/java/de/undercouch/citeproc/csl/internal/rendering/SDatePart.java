@@ -1,7 +1,6 @@
 package de.undercouch.citeproc.csl.internal.rendering;
 
 import de.undercouch.citeproc.csl.internal.RenderContext;
-import de.undercouch.citeproc.csl.internal.SElement;
 import de.undercouch.citeproc.csl.internal.behavior.Affixes;
 import de.undercouch.citeproc.csl.internal.behavior.StripPeriods;
 import de.undercouch.citeproc.csl.internal.locale.LTerm;
@@ -15,9 +14,7 @@ import java.util.Objects;
  * A date-part element from a style file
  * @author Michel Kraemer
  */
-public class SDatePart implements SElement {
-    private int[] date;
-
+public class SDatePart {
     private final String name;
     private final String form;
     private final Affixes affixes;
@@ -45,12 +42,17 @@ public class SDatePart implements SElement {
         rangeDelimiter = Objects.requireNonNullElse(rd, "–");
     }
 
-    @Override
-    public void render(RenderContext ctx) {
-        affixes.wrap(stripPeriods.wrap(this::renderInternal)).accept(ctx);
+    /**
+     * Renders the given date
+     * @param ctx the context in which to render
+     * @param date the date to render
+     */
+    public void render(RenderContext ctx, int[] date) {
+        affixes.wrap(stripPeriods.wrap(ctx2 -> renderInternal(ctx2, date)))
+                .accept(ctx);
     }
 
-    private void renderInternal(RenderContext ctx) {
+    private void renderInternal(RenderContext ctx, int[] date) {
         String value = null;
         switch (name) {
             case "year":
@@ -118,14 +120,6 @@ public class SDatePart implements SElement {
         return name;
     }
 
-    /**
-     * Set the date to render
-     * @param date the date
-     */
-    public void setDate(int[] date) {
-        this.date = date;
-    }
-
     /**
      * Get the delimiter to use to express ranges between this date part and
      * another one with the same name (i.e. between two years, two months,
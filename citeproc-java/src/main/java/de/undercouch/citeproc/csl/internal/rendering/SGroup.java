@@ -3,6 +3,9 @@ package de.undercouch.citeproc.csl.internal.rendering;
 import de.undercouch.citeproc.csl.internal.CountingVariableListener;
 import de.undercouch.citeproc.csl.internal.RenderContext;
 import de.undercouch.citeproc.csl.internal.SRenderingElementContainerElement;
+import de.undercouch.citeproc.csl.internal.VariableDependencies;
+import de.undercouch.citeproc.csl.internal.VariableDependencyAnalyzer;
+import de.undercouch.citeproc.csl.internal.VariableListener;
 import de.undercouch.citeproc.csl.internal.behavior.Affixes;
 import de.undercouch.citeproc.csl.internal.behavior.Display;
 import de.undercouch.citeproc.csl.internal.behavior.FormattingAttributes;
@@ -18,11 +21,19 @@ import static de.undercouch.citeproc.csl.internal.token.TextToken.Type.DELIMITER
  * @author Michel Kraemer
  */
 public class SGroup extends SRenderingElementContainerElement implements SRenderingElement {
+    private static final String DUMMY_VARIABLE = "__dummy_group_variable";
+
     private final Display display;
     private final Affixes affixes;
     private final int formattingAttributes;
     private final String delimiter;
 
+    /**
+     * Variables the group's children may fetch (computed when the style is
+     * loaded, {@code null} if the group has not been analyzed)
+     */
+    private VariableDependencies variableDependencies;
+
     /**
      * Creates the group from an XML node
      * @param node the XML node
@@ -35,16 +46,52 @@ public class SGroup extends SRenderingElementContainerElement implements SRender
         delimiter = NodeHelper.getAttrValue(node, "delimiter");
     }
 
+    @Override
+    public VariableDependencies analyzeVariables(VariableDependencyAnalyzer analyzer) {
+        variableDependencies = super.analyzeVariables(analyzer);
+        return VariableDependencies.group(variableDependencies);
+    }
+
     @Override
     public void render(RenderContext ctx) {
+        if (variableDependencies != null && canSkip(ctx)) {
+            // Do not render the group at all. Tell parent groups that we
+            // fetched an empty variable so they come to the same conclusion
+            // as if we had rendered the group.
+            ctx.getVariableListeners().forEach(l -> l.onFetchStringVariable(
+                    DUMMY_VARIABLE, null));
+            return;
+        }
         display.wrap(affixes.wrap(this::renderInternal)).accept(ctx);
     }
 
+    /**
+     * Check if we know for sure that the group will not be rendered because
+     * all variables it may fetch are empty
+     * @param ctx the current render context
+     * @return {@code true} if the group does not have to be rendered
+     */
+    private boolean canSkip(RenderContext ctx) {
+        // we can only simulate what counting listeners of parent groups
+        // would observe
+        for (VariableListener l : ctx.getVariableListeners()) {
+            if (!(l instanceof CountingVariableListener)) {
+                return false;
+            }
+        }
+        return variableDependencies.isAlwaysEmpty(ctx);
+    }
+
     private void renderInternal(RenderContext ctx) {
         // render elements in a separate context and count called variables
+        // (unless we know the group will fetch a non-empty variable)
         RenderContext child = new RenderContext(ctx);
-        CountingVariableListener vl = new CountingVariableListener();
-        child.addVariableListener(vl);
+        CountingVariableListener vl = null;
+        if (variableDependencies == null ||
+                !variableDependencies.isNeverEmpty(ctx)) {
+            vl = new CountingVariableListener();
+            child.addVariableListener(vl);
+        }
         List<SRenderingElement> elements = getElements(ctx);
         for (SRenderingElement e : elements) {
             RenderContext tmp = new RenderContext(child);
@@ -57,10 +104,13 @@ public class SGroup extends SRenderingElementContainerElement implements SRender
                 child.emit(tmp.getResult());
             }
         }
-        child.removeVariableListener(vl);
+        boolean allEmpty = false;
+        if (vl != null) {
+            child.removeVariableListener(vl);
 
-        // do not render the group if all called variables were empty
-        boolean allEmpty = vl.getCalled() > 0 && vl.getCalled() == vl.getEmpty();
+            // do not render the group if all called variables were empty
+            allEmpty = vl.getCalled() > 0 && vl.getCalled() == vl.getEmpty();
+        }
 
         if (!allEmpty && !child.getResult().isEmpty()) {
             ctx.emit(child.getResult(), formattingAttributes);
@@ -70,7 +120,7 @@ public class SGroup extends SRenderingElementContainerElement implements SRender
             // value. This will make the parent variable listeners count this
             // variable and, therefore, force the parent group to be rendered.
             ctx.getVariableListeners().forEach(l -> l.onFetchStringVariable(
-                    "__dummy_group_variable", "__dummy_value"));
+                    DUMMY_VARIABLE, "__dummy_value"));
         }
     }
 }
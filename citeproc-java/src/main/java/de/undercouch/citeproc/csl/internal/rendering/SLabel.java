@@ -1,15 +1,16 @@
 package de.undercouch.citeproc.csl.internal.rendering;
 
-import de.undercouch.citeproc.bibtex.PageParser;
 import de.undercouch.citeproc.bibtex.PageRanges;
 import de.undercouch.citeproc.csl.CSLLabel;
 import de.undercouch.citeproc.csl.CSLName;
 import de.undercouch.citeproc.csl.internal.RenderContext;
+import de.undercouch.citeproc.csl.internal.VariableDependencies;
+import de.undercouch.citeproc.csl.internal.VariableDependencyAnalyzer;
+import de.undercouch.citeproc.csl.internal.VariableForm;
 import de.undercouch.citeproc.csl.internal.behavior.Affixes;
 import de.undercouch.citeproc.csl.internal.behavior.StripPeriods;
 import de.undercouch.citeproc.csl.internal.behavior.TextCase;
 import de.undercouch.citeproc.csl.internal.helper.NumberElement;
-import de.undercouch.citeproc.csl.internal.helper.NumberParser;
 import de.undercouch.citeproc.csl.internal.locale.LTerm;
 import de.undercouch.citeproc.helper.NodeHelper;
 import org.w3c.dom.Node;
@@ -70,6 +71,15 @@ public class SLabel implements SRenderingElement {
                 renderInternal(ctx2, nNumberElement)))).accept(ctx);
     }
 
+    @Override
+    public VariableDependencies analyzeVariables(VariableDependencyAnalyzer analyzer) {
+        if (variable == null || variable.isEmpty()) {
+            return VariableDependencies.NONE;
+        }
+        return VariableDependencies.of(VariableDependencies.Kind.ANY,
+                variable, VariableForm.LONG);
+    }
+
     private void renderInternal(RenderContext ctx, int nNumberElement) {
         if (variable == null || variable.isEmpty()) {
             return;
@@ -85,10 +95,11 @@ public class SLabel implements SRenderingElement {
         boolean isLocator = false;
         CSLName[] names;
         if (variable.equals("page")) {
-            PageRanges ranges = PageParser.parse(String.valueOf(value));
+            PageRanges ranges = ctx.getPreparedItem().getPageRanges(String.valueOf(value));
             plural = ranges.isMultiplePages();
         } else if (variable.equals("number") || (isLocator = variable.equals("locator"))) {
-            List<NumberElement> elements = NumberParser.parse(String.valueOf(value));
+            List<NumberElement> elements = ctx.getPreparedItem().getNumberElements(
+                    String.valueOf(value));
             if (elements.size() > nNumberElement) {
                 NumberElement element = elements.get(nNumberElement);
                 if (element != null) {
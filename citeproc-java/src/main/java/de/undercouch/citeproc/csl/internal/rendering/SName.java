@@ -8,13 +8,13 @@ import de.undercouch.citeproc.csl.internal.behavior.Affixes;
 import de.undercouch.citeproc.csl.internal.behavior.FormattingAttributes;
 import de.undercouch.citeproc.csl.internal.behavior.TextCase;
 import de.undercouch.citeproc.helper.NodeHelper;
-import de.undercouch.citeproc.helper.StringHelper;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 
 import static de.undercouch.citeproc.csl.internal.token.TextToken.Type.DELIMITER;
 import static de.undercouch.citeproc.csl.internal.token.TextToken.Type.TEXT;
@@ -216,8 +216,11 @@ public class SName implements SElement {
         for (int i = 0; i < names.size(); ++i) {
             boolean nameAsSort = "all".equals(nameAsSortOrder) ||
                     (i == 0 && "first".equals(nameAsSortOrder));
-            buffer.append(render(names.get(i), nameAsSort, initializeWith,
-                    initialize, sortSeparator, ctx));
+            NameKey key = new NameKey(this, names.get(i), nameAsSort,
+                    initializeWith, initialize, sortSeparator);
+            buffer.append(ctx.getPreparedItem().getRenderedName(key,
+                    () -> render(key.name, key.nameAsSort, key.initializeWith,
+                            key.initialize, key.sortSeparator, ctx)));
 
             if (i < names.size() - 1) {
                 if (i == max - 1) {
@@ -411,7 +414,8 @@ public class SName implements SElement {
         // render long form
         String strGiven = name.getGiven();
         if (initializeWith != null && !family.isEmpty() && strGiven != null) {
-            strGiven = StringHelper.initializeName(strGiven, initializeWith, !initialize);
+            strGiven = ctx.getPreparedItem().initializeName(strGiven,
+                    initializeWith, !initialize);
         }
         TokenBuffer given = new TokenBuffer();
         if (strGiven != null) {
@@ -447,4 +451,57 @@ public class SName implements SElement {
 
         return result;
     }
+
+    /**
+     * A cache key for rendered names. Besides the name itself, the key
+     * contains this element (which holds the form, affixes, text cases,
+     * and formatting attributes of the name parts) and all inherited
+     * attributes that influence how a single name is rendered.
+     */
+    private static final class NameKey {
+        private final SName element;
+        private final CSLName name;
+        private final boolean nameAsSort;
+        private final String initializeWith;
+        private final boolean initialize;
+        private final String sortSeparator;
+
+        NameKey(SName element, CSLName name, boolean nameAsSort,
+                String initializeWith, boolean initialize, String sortSeparator) {
+            this.element = element;
+            this.name = name;
+            this.nameAsSort = nameAsSort;
+            this.initializeWith = initializeWith;
+            this.initialize = initialize;
+            this.sortSeparator = sortSeparator;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof NameKey)) {
+                return false;
+            }
+            NameKey other = (NameKey)o;
+            return element == other.element &&
+                    nameAsSort == other.nameAsSort &&
+                    initialize == other.initialize &&
+                    name.equals(other.name) &&
+                    Objects.equals(initializeWith, other.initializeWith) &&
+                    Objects.equals(sortSeparator, other.sortSeparator);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = System.identityHashCode(element);
+            result = 31 * result + name.hashCode();
+            result = 31 * result + (nameAsSort ? 1 : 0);
+            result = 31 * result + Objects.hashCode(initializeWith);
+            result = 31 * result + (initialize ? 1 : 0);
+            result = 31 * result + Objects.hashCode(sortSeparator);
+            return result;
+        }
+    }
 }
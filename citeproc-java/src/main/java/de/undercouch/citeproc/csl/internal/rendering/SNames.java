@@ -2,6 +2,8 @@ package de.undercouch.citeproc.csl.internal.rendering;
 
 import de.undercouch.citeproc.csl.internal.RenderContext;
 import de.undercouch.citeproc.csl.internal.SElement;
+import de.undercouch.citeproc.csl.internal.VariableDependencies;
+import de.undercouch.citeproc.csl.internal.VariableDependencyAnalyzer;
 import de.undercouch.citeproc.csl.internal.behavior.Affixes;
 import de.undercouch.citeproc.csl.internal.behavior.FormattingAttributes;
 import de.undercouch.citeproc.helper.NodeHelper;
@@ -133,6 +135,21 @@ public class SNames implements SRenderingElement {
         return variableAttribute;
     }
 
+    @Override
+    public VariableDependencies analyzeVariables(VariableDependencyAnalyzer analyzer) {
+        String[] variables;
+        if (variableAttribute == null) {
+            variables = new String[0];
+        } else {
+            variables = variableAttribute.split("\\s+");
+        }
+        VariableDependencies substituteDependencies = null;
+        if (substitute != null) {
+            substituteDependencies = substitute.analyzeVariables(analyzer);
+        }
+        return VariableDependencies.names(variables, substituteDependencies);
+    }
+
     @Override
     public void render(RenderContext ctx) {
         RenderContext tmp = new RenderContext(ctx);
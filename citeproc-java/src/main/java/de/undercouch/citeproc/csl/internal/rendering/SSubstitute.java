@@ -3,9 +3,12 @@ package de.undercouch.citeproc.csl.internal.rendering;
 import de.undercouch.citeproc.csl.internal.CollectingVariableListener;
 import de.undercouch.citeproc.csl.internal.RenderContext;
 import de.undercouch.citeproc.csl.internal.SRenderingElementContainerElement;
+import de.undercouch.citeproc.csl.internal.VariableDependencies;
+import de.undercouch.citeproc.csl.internal.VariableDependencyAnalyzer;
 import org.w3c.dom.Node;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -26,6 +29,14 @@ public class SSubstitute extends SRenderingElementContainerElement {
         this.parentNamesNode = parentNamesNode;
     }
 
+    @Override
+    public VariableDependencies analyzeVariables(VariableDependencyAnalyzer analyzer) {
+        // children are rendered one after the other until one of them
+        // produces output, so none of them can be considered required
+        return VariableDependencies.choice(Collections.singletonList(
+                super.analyzeVariables(analyzer)), false);
+    }
+
     @Override
     public void render(RenderContext ctx) {
         List<SRenderingElement> originalElements = getElements(ctx);
@@ -1,10 +1,11 @@
 package de.undercouch.citeproc.csl.internal.rendering;
 
-import de.undercouch.citeproc.bibtex.PageParser;
 import de.undercouch.citeproc.bibtex.PageRange;
 import de.undercouch.citeproc.bibtex.PageRanges;
 import de.undercouch.citeproc.csl.internal.RenderContext;
 import de.undercouch.citeproc.csl.internal.SMacro;
+import de.undercouch.citeproc.csl.internal.VariableDependencies;
+import de.undercouch.citeproc.csl.internal.VariableDependencyAnalyzer;
 import de.undercouch.citeproc.csl.internal.VariableForm;
 import de.undercouch.citeproc.csl.internal.behavior.Affixes;
 import de.undercouch.citeproc.csl.internal.behavior.Display;
@@ -12,7 +13,6 @@ import de.undercouch.citeproc.csl.internal.behavior.FormattingAttributes;
 import de.undercouch.citeproc.csl.internal.behavior.Quotes;
 import de.undercouch.citeproc.csl.internal.behavior.TextCase;
 import de.undercouch.citeproc.csl.internal.helper.NumberElement;
-import de.undercouch.citeproc.csl.internal.helper.NumberParser;
 import de.undercouch.citeproc.csl.internal.locale.LTerm;
 import de.undercouch.citeproc.helper.NodeHelper;
 import de.undercouch.citeproc.helper.PageRangeFormatter;
@@ -99,7 +99,7 @@ public class SText implements SRenderingElement {
         }
 
         if (format != null) {
-            PageRanges prs = PageParser.parse(page);
+            PageRanges prs = ctx.getPreparedItem().getPageRanges(page);
             int i = 0;
             for (PageRange r : prs) {
                 if (i > 0) {
@@ -114,6 +114,23 @@ public class SText implements SRenderingElement {
         }
     }
 
+    @Override
+    public VariableDependencies analyzeVariables(VariableDependencyAnalyzer analyzer) {
+        if (variable != null && !variable.isEmpty()) {
+            if (variable.equals("year-suffix")) {
+                // listeners are not notified about year-suffix
+                return VariableDependencies.CONSTANT;
+            }
+            return VariableDependencies.of(VariableDependencies.Kind.STRING,
+                    variable, VariableForm.fromString(form));
+        } else if (macro != null && !macro.isEmpty()) {
+            return analyzer.analyzeMacro(macro);
+        } else if ((term != null && !term.isEmpty()) || value != null) {
+            return VariableDependencies.CONSTANT;
+        }
+        return VariableDependencies.NONE;
+    }
+
     private void renderInternal(RenderContext ctx) {
         if (variable != null && !variable.isEmpty()) {
             // year-suffix is a special variable that is used to disambiguate
@@ -130,7 +147,7 @@ public class SText implements SRenderingElement {
 
                     case "locator":
                     case "number": {
-                        List<NumberElement> elements = NumberParser.parse(v);
+                        List<NumberElement> elements = ctx.getPreparedItem().getNumberElements(v);
                         for (int i = 0; i < elements.size(); ++i) {
                             NumberElement e = elements.get(i);
                             SLabel lastLabel = ctx.getLastLabelRendered();
@@ -6,9 +6,7 @@ import de.undercouch.citeproc.csl.CSLType;
 import de.undercouch.citeproc.csl.internal.GeneratedCitation;
 import de.undercouch.citeproc.csl.internal.RenderContext;
 import de.undercouch.citeproc.csl.internal.helper.NumberElement;
-import de.undercouch.citeproc.csl.internal.helper.NumberParser;
 import de.undercouch.citeproc.helper.NodeHelper;
-import de.undercouch.citeproc.helper.NumberHelper;
 import org.w3c.dom.Node;
 
 import java.util.List;
@@ -193,7 +191,7 @@ public class SIf extends SCondition {
             for (String v : isNumerics) {
                 Object o = ctx.getVariable(v, true);
                 boolean numeric = o != null && (o instanceof Number ||
-                        NumberHelper.isNumeric(String.valueOf(o)));
+                        ctx.getPreparedItem().isNumeric(String.valueOf(o)));
                 if (match == ALL && !numeric) {
                     return Boolean.FALSE;
                 }
@@ -234,7 +232,7 @@ public class SIf extends SCondition {
             String v = ctx.getStringVariable("number", true);
             String firstLabel = null;
             if (v != null) {
-                List<NumberElement> elements = NumberParser.parse(v);
+                List<NumberElement> elements = ctx.getPreparedItem().getNumberElements(v);
                 if (elements.get(0).getLabel() != null) {
                     firstLabel = elements.get(0).getLabel().toString();
                 }
@@ -1,10 +1,10 @@
 package de.undercouch.citeproc.helper;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.HttpURLConnection;
 import java.net.URL;
-import java.net.URLConnection;
 
 /**
  * Utilities for the CSL processor
@@ -12,38 +12,52 @@ import java.net.URLConnection;
  */
 public class CSLUtils {
     /**
-     * Reads a string from a URL
+     * The cache used for HTTP(S) URLs
+     */
+    private static volatile URLContentCache urlContentCache = new URLContentCache();
+
+    /**
+     * Sets the cache used by {@link #readURLToString(URL, String)} for
+     * HTTP(S) URLs. By default, contents are only cached in memory.
+     * @param cache the cache
+     */
+    public static void setURLContentCache(URLContentCache cache) {
+        urlContentCache = cache;
+    }
+
+    /**
+     * @return the cache used by {@link #readURLToString(URL, String)} for
+     * HTTP(S) URLs
+     */
+    public static URLContentCache getURLContentCache() {
+        return urlContentCache;
+    }
+
+    /**
+     * Reads a string from a URL. The contents of HTTP(S) URLs are cached
+     * (see {@link #setURLContentCache(URLContentCache)}).
      * @param u the URL
      * @param encoding the character encoding
      * @return the string
      * @throws IOException if the URL contents could not be read
      */
     public static String readURLToString(URL u, String encoding) throws IOException {
-        for (int i = 0; i < 30; ++i) {
-            URLConnection conn = u.openConnection();
-
-            // handle HTTP URLs
-            if (conn instanceof HttpURLConnection) {
-                HttpURLConnection hconn = (HttpURLConnection)conn;
-
-                // set timeouts
-                hconn.setConnectTimeout(15000);
-                hconn.setReadTimeout(15000);
-
-                // handle redirects
-                switch (hconn.getResponseCode()) {
-                    case HttpURLConnection.HTTP_MOVED_PERM:
-                    case HttpURLConnection.HTTP_MOVED_TEMP:
-                        String location = hconn.getHeaderField("Location");
-                        u = new URL(u, location);
-                        continue;
-                }
-            }
+        return readStreamToString(openURL(u), encoding);
+    }
 
-            return readStreamToString(conn.getInputStream(), encoding);
+    /**
+     * Opens a stream to read from a URL. The contents of HTTP(S) URLs are
+     * cached (see {@link #setURLContentCache(URLContentCache)}).
+     * @param u the URL
+     * @return the stream (must be closed by the caller)
+     * @throws IOException if the URL could not be opened
+     */
+    public static InputStream openURL(URL u) throws IOException {
+        String protocol = u.getProtocol();
+        if ("http".equals(protocol) || "https".equals(protocol)) {
+            return new ByteArrayInputStream(urlContentCache.read(u));
         }
-
-        throw new IOException("Too many HTTP redirects");
+        return u.openStream();
     }
 
     /**
@@ -55,13 +69,15 @@ public class CSLUtils {
      */
     public static String readStreamToString(InputStream is, String encoding) throws IOException {
         try {
-            StringBuilder sb = new StringBuilder();
+            // decode all bytes at once, so multi-byte characters are not
+            // split between buffers
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
             byte[] buf = new byte[1024 * 10];
             int read;
             while ((read = is.read(buf)) >= 0) {
-                sb.append(new String(buf, 0, read, encoding));
+                bos.write(buf, 0, read);
             }
-            return sb.toString();
+            return bos.toString(encoding);
         } finally {
             is.close();
         }
@@ -1,7 +1,5 @@
 package de.undercouch.citeproc.helper;
 
-import java.util.regex.Pattern;
-
 /**
  * <p>Applies rules of French punctuation spacing.</p>
  * <p>See the following links for reference:</p>
@@ -15,30 +13,159 @@ import java.util.regex.Pattern;
  * @author Michel Kraemer
  */
 public class FrenchPunctuationSpacing {
-    // narrow non-breaking spaces before and after guillemets
-    private static final Pattern SPACE_AFTER_LEFT_GUILLEMET =
-            Pattern.compile("([«|‹])\\h*(?=\\H)");
-    private static final Pattern SPACE_BEFORE_RIGHT_GUILLEMET =
-            Pattern.compile("(?<=\\H)\\h*([»|›])");
-
-    // equal-width spaces around colon
-    private static final Pattern SPACES_AROUND_COLON =
-            Pattern.compile("(?<=\\H)\\h*(:[\\s\u00a0])(?=\\H)");
-
-    // narrow non-breaking space before ';', '?', and '!'
-    private static final Pattern SPACE_BEFORE_PUNCTUATION =
-            Pattern.compile("(?<=[^\\h;?!])\\h*([;?!])");
+    private static final char NARROW_NBSP = '\u202f';
+    private static final char NBSP = '\u00a0';
 
     /**
-     * Apply rules of French punctuation spacing
+     * Apply rules of French punctuation spacing. The method handles each
+     * sequence of horizontal whitespace between two other characters
+     * (which may also be empty) in a single pass over the string:
+     * <ul>
+     *     <li>narrow non-breaking spaces after opening guillemets</li>
+     *     <li>narrow non-breaking spaces before closing guillemets</li>
+     *     <li>an equal-width non-breaking space before a colon that is
+     *     followed by exactly one whitespace character</li>
+     *     <li>narrow non-breaking spaces before ';', '?', and '!'</li>
+     * </ul>
+     * <p>If more than one rule applies, the later one wins.</p>
      * @param str the input string
-     * @return the processed string
+     * @return the processed string (or the input string itself if nothing
+     * had to be changed)
      */
     public static String apply(String str) {
-        str = SPACE_AFTER_LEFT_GUILLEMET.matcher(str).replaceAll("$1\u202F");
-        str = SPACE_BEFORE_RIGHT_GUILLEMET.matcher(str).replaceAll("\u202F$1");
-        str = SPACES_AROUND_COLON.matcher(str).replaceAll("\u00a0$1");
-        str = SPACE_BEFORE_PUNCTUATION.matcher(str).replaceAll("\u202F$1");
-        return str;
+        int len = str.length();
+        int first = 0;
+        while (first < len && !isSpecial(str.charAt(first))) {
+            ++first;
+        }
+        if (first == len) {
+            return str;
+        }
+
+        StringBuilder sb = new StringBuilder(len + 8);
+        int gapStart = 0;
+        char prev = 0;
+        boolean hasPrev = false;
+        boolean colonBlocked = false;
+        for (int i = 0; i < len; ++i) {
+            char c = str.charAt(i);
+            if (isHorizontalWhitespace(c)) {
+                continue;
+            }
+
+            // decide what to put in the whitespace in front of c
+            char replacement = 0;
+            boolean blocked = colonBlocked;
+            colonBlocked = false;
+            if (hasPrev) {
+                if (isOpeningGuillemet(prev) || isClosingGuillemet(c)) {
+                    replacement = NARROW_NBSP;
+                }
+                if (c == ':' && !blocked) {
+                    int m = matchColon(str, i);
+                    if (m != 0) {
+                        replacement = NBSP;
+                        // the whitespace after the colon belongs to this
+                        // match, so a colon following it cannot match
+                        colonBlocked = m > 0;
+                    }
+                }
+                if (isSpacedPunctuation(c) && !isSpacedPunctuation(prev)) {
+                    replacement = NARROW_NBSP;
+                }
+            }
+
+            if (replacement != 0) {
+                sb.append(replacement);
+            } else {
+                sb.append(str, gapStart, i);
+            }
+            sb.append(c);
+
+            prev = c;
+            hasPrev = true;
+            gapStart = i + 1;
+        }
+        sb.append(str, gapStart, len);
+
+        return sb.toString();
+    }
+
+    /**
+     * Check if the colon at the given position is followed by exactly one
+     * whitespace character and then something else than horizontal
+     * whitespace. Closing guillemets after the colon are treated as if
+     * they were already preceded by a narrow non-breaking space.
+     * @param str the string
+     * @param colon the colon's position
+     * @return {@code 0} if there is no match, {@code 1} if the colon is
+     * followed by a horizontal whitespace character, or {@code -1} if it
+     * is followed by a line break
+     */
+    private static int matchColon(String str, int colon) {
+        int len = str.length();
+        int next = colon + 1;
+        while (next < len && isHorizontalWhitespace(str.charAt(next))) {
+            ++next;
+        }
+        if (next == len) {
+            return 0;
+        }
+
+        int gap = next - colon - 1;
+        if (isClosingGuillemet(str.charAt(next))) {
+            // the whitespace will be replaced by a narrow non-breaking space
+            return 0;
+        }
+        if (gap == 1) {
+            char ws = str.charAt(colon + 1);
+            return (ws == ' ' || ws == '\t' || ws == NBSP) ? 1 : 0;
+        }
+        if (gap > 1) {
+            return 0;
+        }
+
+        char ws = str.charAt(next);
+        if (ws != '\n' && ws != 0x0b && ws != '\f' && ws != '\r') {
+            return 0;
+        }
+        int after = next + 1;
+        if (after == len) {
+            return 0;
+        }
+        char a = str.charAt(after);
+        return (!isHorizontalWhitespace(a) && !isClosingGuillemet(a)) ? -1 : 0;
+    }
+
+    private static boolean isSpecial(char c) {
+        return isOpeningGuillemet(c) || isClosingGuillemet(c) || c == ':' ||
+                isSpacedPunctuation(c);
+    }
+
+    /**
+     * Note that '|' is treated as both an opening and closing guillemet
+     * to preserve the behavior of earlier versions
+     */
+    private static boolean isOpeningGuillemet(char c) {
+        return c == '«' || c == '‹' || c == '|';
+    }
+
+    private static boolean isClosingGuillemet(char c) {
+        return c == '»' || c == '›' || c == '|';
+    }
+
+    private static boolean isSpacedPunctuation(char c) {
+        return c == ';' || c == '?' || c == '!';
+    }
+
+    /**
+     * Check if a character matches {@code \h} in a regular expression
+     * @param c the character
+     * @return true if the character is horizontal whitespace
+     */
+    private static boolean isHorizontalWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == NBSP || c == '\u1680' ||
+                c == '\u180e' || (c >= '\u2000' && c <= '\u200a') ||
+                c == NARROW_NBSP || c == '\u205f' || c == '\u3000';
     }
 }
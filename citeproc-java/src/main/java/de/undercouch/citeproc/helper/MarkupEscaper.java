@@ -0,0 +1,218 @@
+package de.undercouch.citeproc.helper;
+
+import org.apache.commons.text.StringEscapeUtils;
+import org.apache.commons.text.translate.EntityArrays;
+
+import java.util.Map;
+
+/**
+ * <p>Escapes strings for HTML and XML output. The methods produce exactly
+ * the same results as {@link StringEscapeUtils#escapeHtml4(String)} and
+ * {@link StringEscapeUtils#escapeXml11(String)} but look up characters in
+ * a plain array instead of running a chain of translators over each code
+ * point.</p>
+ * <p>The methods returning a string return the input string itself if
+ * nothing has to be escaped. The other methods append to a given
+ * {@link StringBuilder} and copy runs of characters that do not have to be
+ * escaped at once.</p>
+ * @author Michel Kraemer
+ */
+public class MarkupEscaper {
+    /**
+     * Replacements for characters in HTML 4 mapped to the characters'
+     * values (or {@code null} if a character does not have to be escaped)
+     */
+    private static final String[] HTML4 = makeHtml4Table();
+
+    /**
+     * Replacements for characters in XML 1.1 below {@link #XML11_LIMIT}
+     * (or {@code null} if a character does not have to be escaped). Note
+     * that some characters are replaced by the empty string because they
+     * are not allowed in XML 1.1.
+     */
+    private static final String[] XML11 = makeXml11Table();
+
+    /**
+     * The length of the {@link #XML11} table. Except for the characters
+     * handled in {@link #xml11Replacement(String, int)}, no character above
+     * this limit has to be escaped.
+     */
+    private static final int XML11_LIMIT = 0xa0;
+
+    private MarkupEscaper() {
+        // hidden constructor
+    }
+
+    private static String[] makeHtml4Table() {
+        int max = 0;
+        for (Map<CharSequence, CharSequence> m : htmlMaps()) {
+            for (CharSequence k : m.keySet()) {
+                max = Math.max(max, k.charAt(0));
+            }
+        }
+        String[] result = new String[max + 1];
+        for (Map<CharSequence, CharSequence> m : htmlMaps()) {
+            for (Map.Entry<CharSequence, CharSequence> e : m.entrySet()) {
+                result[e.getKey().charAt(0)] = e.getValue().toString();
+            }
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<CharSequence, CharSequence>[] htmlMaps() {
+        return new Map[] { EntityArrays.BASIC_ESCAPE,
+                EntityArrays.ISO8859_1_ESCAPE, EntityArrays.HTML40_EXTENDED_ESCAPE };
+    }
+
+    private static String[] makeXml11Table() {
+        String[] result = new String[XML11_LIMIT];
+        for (Map.Entry<CharSequence, CharSequence> e :
+                EntityArrays.BASIC_ESCAPE.entrySet()) {
+            result[e.getKey().charAt(0)] = e.getValue().toString();
+        }
+        result['\''] = "&apos;";
+        result[0] = "";
+        for (int c = 0x1; c < XML11_LIMIT; ++c) {
+            boolean restricted = (c <= 0x8) || c == 0xb || c == 0xc ||
+                    (c >= 0xe && c <= 0x1f) || (c >= 0x7f && c <= 0x84) ||
+                    (c >= 0x86 && c <= 0x9f);
+            if (restricted) {
+                result[c] = "&#" + c + ";";
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Escape the given string for HTML 4
+     * @param str the string to escape (may be {@code null})
+     * @return the escaped string or the given string if nothing had to be
+     * escaped
+     * @see StringEscapeUtils#escapeHtml4(String)
+     */
+    public static String escapeHtml4(String str) {
+        if (str == null) {
+            return null;
+        }
+        int len = str.length();
+        for (int i = 0; i < len; ++i) {
+            char c = str.charAt(i);
+            if (c < HTML4.length && HTML4[c] != null) {
+                StringBuilder sb = new StringBuilder(len + 16);
+                sb.append(str, 0, i);
+                appendHtml4(str, i, sb);
+                return sb.toString();
+            }
+        }
+        return str;
+    }
+
+    /**
+     * Escape the given string for HTML 4 and append the result to the
+     * given string builder
+     * @param str the string to escape
+     * @param sb the string builder to append to
+     * @see StringEscapeUtils#escapeHtml4(String)
+     */
+    public static void escapeHtml4(String str, StringBuilder sb) {
+        appendHtml4(str, 0, sb);
+    }
+
+    private static void appendHtml4(String str, int start, StringBuilder sb) {
+        int len = str.length();
+        for (int i = start; i < len; ++i) {
+            char c = str.charAt(i);
+            if (c < HTML4.length) {
+                String r = HTML4[c];
+                if (r != null) {
+                    sb.append(str, start, i).append(r);
+                    start = i + 1;
+                }
+            }
+        }
+        sb.append(str, start, len);
+    }
+
+    /**
+     * Escape the given string for XML 1.1
+     * @param str the string to escape (may be {@code null})
+     * @return the escaped string or the given string if nothing had to be
+     * escaped
+     * @see StringEscapeUtils#escapeXml11(String)
+     */
+    public static String escapeXml11(String str) {
+        if (str == null) {
+            return null;
+        }
+        int len = str.length();
+        for (int i = 0; i < len; ++i) {
+            if (xml11Replacement(str, i) != null) {
+                StringBuilder sb = new StringBuilder(len + 16);
+                sb.append(str, 0, i);
+                appendXml11(str, i, sb);
+                return sb.toString();
+            }
+            if (Character.isHighSurrogate(str.charAt(i))) {
+                // skip low surrogate of a valid pair
+                ++i;
+            }
+        }
+        return str;
+    }
+
+    /**
+     * Escape the given string for XML 1.1 and append the result to the
+     * given string builder
+     * @param str the string to escape
+     * @param sb the string builder to append to
+     * @see StringEscapeUtils#escapeXml11(String)
+     */
+    public static void escapeXml11(String str, StringBuilder sb) {
+        appendXml11(str, 0, sb);
+    }
+
+    private static void appendXml11(String str, int start, StringBuilder sb) {
+        int len = str.length();
+        for (int i = start; i < len; ++i) {
+            String r = xml11Replacement(str, i);
+            if (r != null) {
+                sb.append(str, start, i).append(r);
+                start = i + 1;
+            } else if (Character.isHighSurrogate(str.charAt(i))) {
+                // skip low surrogate of a valid pair
+                ++i;
+            }
+        }
+        sb.append(str, start, len);
+    }
+
+    /**
+     * Get the replacement for the character at the given position
+     * @param str the string
+     * @param i the position
+     * @return the replacement or {@code null} if the character does not
+     * have to be escaped
+     */
+    private static String xml11Replacement(String str, int i) {
+        char c = str.charAt(i);
+        if (c < XML11_LIMIT) {
+            return XML11[c];
+        }
+        if (c == 0xfffe || c == 0xffff) {
+            return "";
+        }
+        if (Character.isHighSurrogate(c)) {
+            if (i + 1 < str.length() &&
+                    Character.isLowSurrogate(str.charAt(i + 1))) {
+                return null;
+            }
+            return "";
+        }
+        if (Character.isLowSurrogate(c)) {
+            // valid pairs are skipped by the callers, so this one is unpaired
+            return "";
+        }
+        return null;
+    }
+}
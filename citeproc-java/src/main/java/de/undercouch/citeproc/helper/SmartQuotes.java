@@ -29,6 +29,13 @@ public class SmartQuotes {
     private final Pattern[] patterns;
     private final String[] replacements;
 
+    /**
+     * The custom left single quotation mark if it can be searched for
+     * literally, or {@code null} if {@link #apply(String)} should never
+     * skip a string
+     */
+    private final String literalLeftSingleQuote;
+
     /**
      * Creates the smart-quotes parser
      */
@@ -98,6 +105,17 @@ public class SmartQuotes {
                 new String[] { "'", prime }
         };
 
+        // All patterns either contain a straight quotation mark or the
+        // custom left single quotation mark. Remember the latter so we can
+        // skip strings that do not contain any of them.
+        String lsq = String.valueOf(leftSingleQuote);
+        if (lsq.isEmpty() || lsq.chars().anyMatch(
+                c -> "\\^$.|?*+()[]{}".indexOf(c) >= 0)) {
+            this.literalLeftSingleQuote = null;
+        } else {
+            this.literalLeftSingleQuote = lsq;
+        }
+
         this.patterns = new Pattern[replacements.length];
         this.replacements = new String[replacements.length];
         for (int i = 0; i < replacements.length; ++i) {
@@ -113,6 +131,11 @@ public class SmartQuotes {
      * @return the processed string
      */
     public String apply(String str) {
+        if (literalLeftSingleQuote != null && str.indexOf('\'') < 0 &&
+                str.indexOf('"') < 0 && !str.contains(literalLeftSingleQuote)) {
+            // there is nothing to replace
+            return str;
+        }
         for (int i = 0; i < patterns.length; ++i) {
             str = patterns[i].matcher(str).replaceAll(replacements[i]);
         }
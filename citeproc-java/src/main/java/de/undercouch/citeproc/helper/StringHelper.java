@@ -5,6 +5,9 @@ import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -114,6 +117,18 @@ public class StringHelper {
     private static final Pattern POSSESSIVE_S_PATTERN = Pattern.compile(
             "^['’]s" + TITLECASE_STOPWORD_FOLLOWEDBY, Pattern.CASE_INSENSITIVE);
 
+    /**
+     * The maximum number of entries in {@link #INITIALIZED_NAMES}
+     */
+    private static final int MAX_INITIALIZED_NAMES = 4096;
+
+    /**
+     * Names that have already been initialized or normalized. The cache is
+     * cleared when it exceeds {@link #MAX_INITIALIZED_NAMES} entries.
+     */
+    private static final Map<NameKey, String> INITIALIZED_NAMES =
+            new ConcurrentHashMap<>();
+
     private static class NamePart {
         final String part;
         final boolean hyphen;
@@ -126,6 +141,42 @@ public class StringHelper {
         }
     }
 
+    /**
+     * A cache key for initialized names
+     */
+    private static final class NameKey {
+        final String name;
+        final String initializeWith;
+        final boolean onlyNormalize;
+
+        NameKey(String name, String initializeWith, boolean onlyNormalize) {
+            this.name = name;
+            this.initializeWith = initializeWith;
+            this.onlyNormalize = onlyNormalize;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof NameKey)) {
+                return false;
+            }
+            NameKey other = (NameKey)o;
+            return onlyNormalize == other.onlyNormalize &&
+                    name.equals(other.name) &&
+                    Objects.equals(initializeWith, other.initializeWith);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = name.hashCode();
+            result = 31 * result + Objects.hashCode(initializeWith);
+            return 31 * result + (onlyNormalize ? 1 : 0);
+        }
+    }
+
     /**
      * Sanitizes a string so it can be used as an identifier
      * @param s the string to sanitize
@@ -540,6 +591,12 @@ public class StringHelper {
      */
     public static boolean containsLatinScriptOnly(String s) {
         for (int i = 0; i < s.length(); ) {
+            if (s.charAt(i) < 0x250) {
+                // Basic Latin, Latin-1 Supplement, and Latin Extended-A
+                // and -B only contain Latin and Common characters
+                ++i;
+                continue;
+            }
             int codePoint = s.codePointAt(i);
             Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
 
@@ -575,17 +632,26 @@ public class StringHelper {
      */
     public static String initializeName(String name, String initializeWith,
             boolean onlyNormalize) {
+        NameKey key = new NameKey(name, initializeWith, onlyNormalize);
+        String result = INITIALIZED_NAMES.get(key);
+        if (result == null) {
+            result = doInitializeName(name, initializeWith, onlyNormalize);
+            if (INITIALIZED_NAMES.size() >= MAX_INITIALIZED_NAMES) {
+                INITIALIZED_NAMES.clear();
+            }
+            INITIALIZED_NAMES.put(key, result);
+        }
+        return result;
+    }
+
+    private static String doInitializeName(String name, String initializeWith,
+            boolean onlyNormalize) {
         if (!containsLatinScriptOnly(name)) {
             // initialization only applies to names with Latin characters
             return name;
         }
 
-        // trim string, normalize spaces, normalize hyphens
-        name = name.trim()
-                .replaceAll("\\s+", " ")
-                .replaceAll("\\s*\\.", ".")
-                .replaceAll("\\.+", ".")
-                .replaceAll("\\s*[-‐‑‒–—―]+\\s*", "-");
+        name = normalizeName(name);
 
         List<NamePart> parts = new ArrayList<>();
         int lp = 0;
@@ -639,8 +705,102 @@ public class StringHelper {
             }
         }
 
-        return result.toString()
-                .replaceAll("\\s+-", "-")
-                .trim();
+        // remove whitespace in front of hyphens and trim result
+        int len = 0;
+        for (int i = 0; i < result.length(); ++i) {
+            char c = result.charAt(i);
+            if (c == '-') {
+                while (len > 0 && isRegexWhitespace(result.charAt(len - 1))) {
+                    --len;
+                }
+            }
+            result.setCharAt(len++, c);
+        }
+        int start = 0;
+        while (start < len && result.charAt(start) <= ' ') {
+            ++start;
+        }
+        while (len > start && result.charAt(len - 1) <= ' ') {
+            --len;
+        }
+        return result.substring(start, len);
+    }
+
+    /**
+     * Trim the given name, collapse whitespace to single spaces, remove
+     * whitespace in front of periods, collapse consecutive periods, and
+     * replace hyphens and dashes (including surrounding whitespace) by
+     * a hyphen-minus
+     * @param name the name to normalize
+     * @return the normalized name
+     */
+    private static String normalizeName(String name) {
+        int start = 0;
+        int end = name.length();
+        while (start < end && name.charAt(start) <= ' ') {
+            ++start;
+        }
+        while (end > start && name.charAt(end - 1) <= ' ') {
+            --end;
+        }
+
+        StringBuilder sb = new StringBuilder(end - start);
+        boolean pendingSpace = false;
+        boolean afterHyphen = false;
+        boolean inHyphenRun = false;
+        for (int i = start; i < end; ++i) {
+            char c = name.charAt(i);
+            if (isRegexWhitespace(c)) {
+                // whitespace after a hyphen is removed
+                pendingSpace = !afterHyphen;
+                inHyphenRun = false;
+            } else if (c == '.') {
+                // whitespace in front of a period is removed
+                if (sb.length() == 0 || sb.charAt(sb.length() - 1) != '.') {
+                    sb.append(c);
+                }
+                pendingSpace = false;
+                afterHyphen = false;
+                inHyphenRun = false;
+            } else if (isHyphen(c)) {
+                // whitespace in front of a hyphen is removed
+                if (!inHyphenRun) {
+                    sb.append('-');
+                }
+                pendingSpace = false;
+                afterHyphen = true;
+                inHyphenRun = true;
+            } else {
+                if (pendingSpace) {
+                    sb.append(' ');
+                }
+                sb.append(c);
+                pendingSpace = false;
+                afterHyphen = false;
+                inHyphenRun = false;
+            }
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Check if the given character matches {@code \s} in a regular
+     * expression
+     * @param c the character
+     * @return true if the character is whitespace
+     */
+    private static boolean isRegexWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == 0x0b ||
+                c == '\f' || c == '\r';
+    }
+
+    /**
+     * Check if the given character is a hyphen or a dash
+     * @param c the character
+     * @return true if the character is a hyphen or a dash
+     */
+    private static boolean isHyphen(char c) {
+        return c == '-' || (c >= '\u2010' && c <= '\u2015');
     }
 }
@@ -0,0 +1,318 @@
+package de.undercouch.citeproc.helper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>Caches the contents of remote HTTP(S) resources such as citation
+ * styles and locales. Contents are kept in memory (up to a fixed number
+ * of entries) and, optionally, in a directory on disk, so they survive
+ * restarts.</p>
+ * <p>Cached contents are served without contacting the server until they
+ * are older than a given maximum age. After that, they are revalidated with
+ * a conditional request using the <code>ETag</code> and
+ * <code>Last-Modified</code> headers of the last response. If the server
+ * cannot be reached, stale contents are served.</p>
+ * <p>Objects of this class are thread-safe.</p>
+ * @author Michel Kraemer
+ */
+public class URLContentCache {
+    /**
+     * The default time in milliseconds after which cached contents are
+     * revalidated
+     */
+    public static final long DEFAULT_MAX_AGE = 24 * 60 * 60 * 1000L;
+
+    /**
+     * The maximum number of contents kept in memory. The memory cache is
+     * cleared when it is full. Entries stored on disk are read again when
+     * they are needed.
+     */
+    private static final int MAX_ENTRIES = 128;
+
+    private static final int MAX_REDIRECTS = 30;
+    private static final int TIMEOUT = 15000;
+
+    private final File directory;
+    private final long maxAge;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a cache that only keeps contents in memory
+     */
+    public URLContentCache() {
+        this(null, DEFAULT_MAX_AGE);
+    }
+
+    /**
+     * Creates a cache
+     * @param directory the directory where contents should be stored (may
+     * be {@code null} if contents should only be kept in memory)
+     * @param maxAge the time in milliseconds after which cached contents
+     * should be revalidated
+     */
+    public URLContentCache(File directory, long maxAge) {
+        this.directory = directory;
+        this.maxAge = maxAge;
+    }
+
+    /**
+     * Reads the contents of an HTTP(S) URL from the cache or from the
+     * server if they are not cached or if they have to be revalidated
+     * @param u the URL
+     * @return the contents
+     * @throws IOException if the contents are not cached and could not
+     * be read from the server
+     */
+    public byte[] read(URL u) throws IOException {
+        String key = u.toString();
+        Entry e = entries.get(key);
+        if (e == null) {
+            e = readEntry(key);
+        }
+
+        long now = System.currentTimeMillis();
+        if (e != null && now - e.fetched < maxAge) {
+            return e.content;
+        }
+
+        Entry ne;
+        try {
+            ne = fetch(u, e, now);
+        } catch (IOException ex) {
+            if (e != null) {
+                // server cannot be reached. serve stale contents.
+                remember(key, e);
+                return e.content;
+            }
+            throw ex;
+        }
+
+        remember(key, ne);
+        writeEntry(key, ne);
+        return ne.content;
+    }
+
+    /**
+     * Removes all contents from memory (but not from disk)
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Keeps an entry in memory. Clears the memory cache first if it is full.
+     * @param key the entry's key
+     * @param e the entry
+     */
+    private void remember(String key, Entry e) {
+        if (entries.size() >= MAX_ENTRIES && !entries.containsKey(key)) {
+            entries.clear();
+        }
+        entries.put(key, e);
+    }
+
+    /**
+     * Reads contents from the server
+     * @param u the URL to read from
+     * @param cached the cached entry to revalidate (may be {@code null})
+     * @param now the current time
+     * @return the new entry
+     * @throws IOException if the contents could not be read
+     */
+    private static Entry fetch(URL u, Entry cached, long now) throws IOException {
+        for (int i = 0; i < MAX_REDIRECTS; ++i) {
+            HttpURLConnection conn = (HttpURLConnection)u.openConnection();
+            conn.setConnectTimeout(TIMEOUT);
+            conn.setReadTimeout(TIMEOUT);
+            if (cached != null) {
+                if (cached.etag != null) {
+                    conn.setRequestProperty("If-None-Match", cached.etag);
+                }
+                if (cached.lastModified != null) {
+                    conn.setRequestProperty("If-Modified-Since",
+                            cached.lastModified);
+                }
+            }
+
+            switch (conn.getResponseCode()) {
+                case HttpURLConnection.HTTP_MOVED_PERM:
+                case HttpURLConnection.HTTP_MOVED_TEMP:
+                    String location = conn.getHeaderField("Location");
+                    u = new URL(u, location);
+                    continue;
+
+                case HttpURLConnection.HTTP_NOT_MODIFIED:
+                    if (cached != null) {
+                        conn.disconnect();
+                        return new Entry(cached.content, cached.etag,
+                                cached.lastModified, now);
+                    }
+                    break;
+
+                default:
+                    break;
+            }
+
+            byte[] content;
+            try (InputStream is = conn.getInputStream()) {
+                content = readAll(is);
+            }
+            return new Entry(content, conn.getHeaderField("ETag"),
+                    conn.getHeaderField("Last-Modified"), now);
+        }
+
+        throw new IOException("Too many HTTP redirects");
+    }
+
+    private static byte[] readAll(InputStream is) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        byte[] buf = new byte[1024 * 10];
+        int read;
+        while ((read = is.read(buf)) >= 0) {
+            bos.write(buf, 0, read);
+        }
+        return bos.toByteArray();
+    }
+
+    /**
+     * Reads an entry from disk and keeps it in memory
+     * @param key the entry's key
+     * @return the entry or {@code null} if there is no entry on disk or if
+     * it could not be read
+     */
+    private Entry readEntry(String key) {
+        if (directory == null) {
+            return null;
+        }
+
+        String name = fileName(key);
+        File metaFile = new File(directory, name + ".properties");
+        File contentFile = new File(directory, name);
+        if (!metaFile.exists() || !contentFile.exists()) {
+            return null;
+        }
+
+        try {
+            Properties meta = new Properties();
+            try (InputStream is = new FileInputStream(metaFile)) {
+                meta.load(is);
+            }
+            if (!key.equals(meta.getProperty("url"))) {
+                return null;
+            }
+            byte[] content = Files.readAllBytes(contentFile.toPath());
+            Entry e = new Entry(content, meta.getProperty("etag"),
+                    meta.getProperty("lastModified"),
+                    Long.parseLong(meta.getProperty("fetched", "0")));
+            remember(key, e);
+            return e;
+        } catch (IOException | NumberFormatException e) {
+            // treat broken entries as missing
+            return null;
+        }
+    }
+
+    /**
+     * Writes an entry to disk. Ignores errors because the entry is
+     * still kept in memory.
+     * @param key the entry's key
+     * @param e the entry
+     */
+    private void writeEntry(String key, Entry e) {
+        if (directory == null) {
+            return;
+        }
+
+        String name = fileName(key);
+        Properties meta = new Properties();
+        meta.setProperty("url", key);
+        meta.setProperty("fetched", String.valueOf(e.fetched));
+        if (e.etag != null) {
+            meta.setProperty("etag", e.etag);
+        }
+        if (e.lastModified != null) {
+            meta.setProperty("lastModified", e.lastModified);
+        }
+
+        try {
+            Files.createDirectories(directory.toPath());
+
+            // write to temporary files first, so other processes never
+            // read incomplete contents
+            File tmpContent = File.createTempFile(name, ".tmp", directory);
+            File tmpMeta = File.createTempFile(name, ".tmp", directory);
+            try {
+                Files.write(tmpContent.toPath(), e.content);
+                try (OutputStream os = new FileOutputStream(tmpMeta)) {
+                    meta.store(os, null);
+                }
+                Files.move(tmpContent.toPath(), new File(directory, name).toPath(),
+                        StandardCopyOption.REPLACE_EXISTING);
+                Files.move(tmpMeta.toPath(), new File(directory,
+                        name + ".properties").toPath(),
+                        StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                tmpContent.delete();
+                tmpMeta.delete();
+            }
+        } catch (IOException ex) {
+            // ignore
+        }
+    }
+
+    /**
+     * Calculates the name of the file where the contents of the given URL
+     * are stored
+     * @param key the URL
+     * @return the file name
+     */
+    private static String fileName(String key) {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // should never happen. every JVM supports SHA-256.
+            throw new IllegalStateException(e);
+        }
+        byte[] digest = md.digest(key.getBytes(StandardCharsets.UTF_8));
+        StringBuilder sb = new StringBuilder(digest.length * 2);
+        for (byte b : digest) {
+            sb.append(Character.forDigit((b >> 4) & 0xf, 16));
+            sb.append(Character.forDigit(b & 0xf, 16));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Cached contents and the information needed to revalidate them
+     */
+    private static class Entry {
+        final byte[] content;
+        final String etag;
+        final String lastModified;
+        final long fetched;
+
+        Entry(byte[] content, String etag, String lastModified, long fetched) {
+            this.content = content;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.fetched = fetched;
+        }
+    }
+}
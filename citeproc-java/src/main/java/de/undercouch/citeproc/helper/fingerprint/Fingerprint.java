@@ -0,0 +1,97 @@
+package de.undercouch.citeproc.helper.fingerprint;
+
+/**
+ * <p>A 128-bit fingerprint of an object's contents. Fingerprints are stable
+ * across JVM instances and can be used as keys in caches and on-disk
+ * stores.</p>
+ * <p>Fingerprints are calculated with a non-cryptographic hash function.
+ * They are very unlikely to collide by accident but they are not suitable
+ * for security purposes.</p>
+ * @see FingerprintBuilder
+ * @author Michel Kraemer
+ */
+public final class Fingerprint {
+    private final long high;
+    private final long low;
+
+    /**
+     * Create a new fingerprint
+     * @param high the most significant 64 bits of the fingerprint
+     * @param low the least significant 64 bits of the fingerprint
+     */
+    public Fingerprint(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    /**
+     * Parse a fingerprint from a string created by {@link #toString()}
+     * @param s the string to parse
+     * @return the fingerprint
+     * @throws IllegalArgumentException if the string is not a valid
+     * fingerprint
+     */
+    public static Fingerprint fromString(String s) {
+        if (s.length() != 32) {
+            throw new IllegalArgumentException("Fingerprint must consist of " +
+                    "32 hexadecimal digits: " + s);
+        }
+        try {
+            return new Fingerprint(Long.parseUnsignedLong(s.substring(0, 16), 16),
+                    Long.parseUnsignedLong(s.substring(16), 16));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid fingerprint: " + s, e);
+        }
+    }
+
+    /**
+     * @return the most significant 64 bits of the fingerprint
+     */
+    public long getHigh() {
+        return high;
+    }
+
+    /**
+     * @return the least significant 64 bits of the fingerprint
+     */
+    public long getLow() {
+        return low;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int)(low ^ (low >>> 32));
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof Fingerprint)) {
+            return false;
+        }
+        Fingerprint other = (Fingerprint)obj;
+        return high == other.high && low == other.low;
+    }
+
+    /**
+     * @return the fingerprint as a string of 32 hexadecimal digits
+     */
+    @Override
+    public String toString() {
+        return hex(high) + hex(low);
+    }
+
+    private static String hex(long v) {
+        String s = Long.toHexString(v);
+        if (s.length() == 16) {
+            return s;
+        }
+        StringBuilder sb = new StringBuilder(16);
+        for (int i = s.length(); i < 16; ++i) {
+            sb.append('0');
+        }
+        return sb.append(s).toString();
+    }
+}
@@ -0,0 +1,149 @@
+package de.undercouch.citeproc.helper.fingerprint;
+
+/**
+ * <p>Calculates a {@link Fingerprint} from a sequence of values. The
+ * builder uses the mixing steps of MurmurHash3 (x64, 128-bit variant)
+ * but operates on a stream of 64-bit words instead of bytes.</p>
+ * <p>Every value is preceded by a tag denoting its type, so different
+ * sequences of values (e.g. {@code "ab", "c"} and {@code "a", "bc"})
+ * yield different fingerprints.</p>
+ * @author Michel Kraemer
+ */
+public class FingerprintBuilder {
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private static final int TAG_NULL = 0;
+    private static final int TAG_STRING = 1;
+    private static final int TAG_BOOLEAN = 2;
+    private static final int TAG_INTEGER = 3;
+    private static final int TAG_FLOAT = 4;
+    private static final int TAG_ENUM = 5;
+    private static final int TAG_OBJECT = 6;
+    private static final int TAG_ARRAY = 7;
+    private static final int TAG_PROPERTY = 8;
+
+    private long h1;
+    private long h2;
+    private long length;
+
+    /**
+     * Add a named property to the fingerprint. Does nothing if the value
+     * is {@code null}, so properties that are not set do not influence the
+     * fingerprint.
+     * @param name the property's name
+     * @param value the property's value (may be {@code null})
+     * @return this builder
+     * @throws IllegalArgumentException if the value has an unsupported type
+     */
+    public FingerprintBuilder add(String name, Object value) {
+        if (value == null) {
+            return this;
+        }
+        word(TAG_PROPERTY);
+        string(name);
+        return add(value);
+    }
+
+    /**
+     * Add a value to the fingerprint. Supported values are {@code null},
+     * character sequences, booleans, numbers, enums, {@link Fingerprintable}
+     * objects, and arrays of these values (including arrays of primitives).
+     * @param value the value to add
+     * @return this builder
+     * @throws IllegalArgumentException if the value has an unsupported type
+     */
+    public FingerprintBuilder add(Object value) {
+        if (value == null) {
+            word(TAG_NULL);
+        } else if (value instanceof CharSequence) {
+            word(TAG_STRING);
+            string((CharSequence)value);
+        } else if (value instanceof Boolean) {
+            word(TAG_BOOLEAN);
+            word((Boolean)value ? 1 : 0);
+        } else if (value instanceof Double || value instanceof Float) {
+            word(TAG_FLOAT);
+            word(Double.doubleToLongBits(((Number)value).doubleValue()));
+        } else if (value instanceof Number) {
+            word(TAG_INTEGER);
+            word(((Number)value).longValue());
+        } else if (value instanceof Enum) {
+            word(TAG_ENUM);
+            string(((Enum<?>)value).name());
+        } else if (value instanceof Fingerprintable) {
+            Fingerprint f = ((Fingerprintable)value).getFingerprint();
+            word(TAG_OBJECT);
+            word(f.getHigh());
+            word(f.getLow());
+        } else if (value instanceof Object[]) {
+            Object[] a = (Object[])value;
+            word(TAG_ARRAY);
+            word(a.length);
+            for (Object o : a) {
+                add(o);
+            }
+        } else if (value instanceof int[]) {
+            int[] a = (int[])value;
+            word(TAG_ARRAY);
+            word(a.length);
+            for (int i : a) {
+                word(TAG_INTEGER);
+                word(i);
+            }
+        } else {
+            throw new IllegalArgumentException("Unsupported value type: " +
+                    value.getClass().getName());
+        }
+        return this;
+    }
+
+    /**
+     * Calculate the fingerprint of all values added so far
+     * @return the fingerprint
+     */
+    public Fingerprint build() {
+        long r1 = h1 ^ length;
+        long r2 = h2 ^ length;
+        r1 += r2;
+        r2 += r1;
+        r1 = fmix64(r1);
+        r2 = fmix64(r2);
+        r1 += r2;
+        r2 += r1;
+        return new Fingerprint(r1, r2);
+    }
+
+    private void string(CharSequence s) {
+        int len = s.length();
+        word(len);
+        for (int i = 0; i < len; i += 4) {
+            long w = 0;
+            for (int j = i; j < i + 4 && j < len; ++j) {
+                w = (w << 16) | s.charAt(j);
+            }
+            word(w);
+        }
+    }
+
+    private void word(long k) {
+        h1 ^= Long.rotateLeft(k * C1, 31) * C2;
+        h1 = Long.rotateLeft(h1, 27) + h2;
+        h1 = h1 * 5 + 0x52dce729;
+
+        h2 ^= Long.rotateLeft(k * C2, 33) * C1;
+        h2 = Long.rotateLeft(h2, 31) + h1;
+        h2 = h2 * 5 + 0x38495ab5;
+
+        ++length;
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb93fe53c5a7bL;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -0,0 +1,16 @@
+package de.undercouch.citeproc.helper.fingerprint;
+
+/**
+ * Classes that implement this interface are able to calculate a stable
+ * fingerprint of their contents
+ * @author Michel Kraemer
+ */
+public interface Fingerprintable {
+    /**
+     * Get a fingerprint of this object's contents. Objects with equal
+     * contents always have the same fingerprint, even across different
+     * JVM instances.
+     * @return the fingerprint
+     */
+    Fingerprint getFingerprint();
+}
@@ -1,5 +1,8 @@
 package de.undercouch.citeproc.helper.json;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
 /**
  * Classes that implement this interface are able to convert their
  * contents to a JSON object
@@ -12,4 +15,19 @@ public interface JsonObject {
      * @return the JSON object
      */
     Object toJson(JsonBuilder builder);
+
+    /**
+     * Converts this object to JSON and writes the result directly to the
+     * given output without creating intermediate strings
+     * @param out the output to write to (e.g. a {@link java.io.Writer})
+     * @throws IOException if the JSON object could not be written
+     * @see StreamJsonBuilder
+     */
+    default void toJson(Appendable out) throws IOException {
+        try {
+            toJson(new StreamJsonBuilderFactory(out).createJsonBuilder());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
 }
@@ -0,0 +1,199 @@
+package de.undercouch.citeproc.helper.json;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * <p>A JSON builder that writes JSON directly to an {@link Appendable}
+ * (e.g. a {@link java.io.Writer}) without creating intermediate strings.
+ * Nested objects are written by builders sharing the same output, so each
+ * character is only written once regardless of the nesting level.</p>
+ * <p>Since the output is written while properties are added, the builder
+ * must be used strictly sequentially: a nested object has to be built
+ * completely before the next property of its parent object is added.
+ * This is always the case if {@link JsonObject#toJson(JsonBuilder)} is
+ * used.</p>
+ * <p>I/O errors are rethrown as {@link UncheckedIOException}s.</p>
+ * @author Michel Kraemer
+ */
+public class StreamJsonBuilder implements JsonBuilder {
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private final JsonBuilderFactory factory;
+    private final Appendable out;
+    private int c = 0;
+
+    /**
+     * Creates a JSON builder
+     * @param factory the factory that created this builder (used to create
+     * builders for nested objects, must create builders writing to the
+     * same output)
+     * @param out the output to write to
+     */
+    public StreamJsonBuilder(JsonBuilderFactory factory, Appendable out) {
+        this.factory = factory;
+        this.out = out;
+    }
+
+    @Override
+    public JsonBuilder add(String name, Object o) {
+        try {
+            out.append(c > 0 ? ',' : '{');
+            ++c;
+            writeString(name);
+            out.append(':');
+            write(o);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return this;
+    }
+
+    /**
+     * Finishes the JSON object
+     * @return the output the object has been written to
+     */
+    @Override
+    public Appendable build() {
+        try {
+            if (c == 0) {
+                out.append('{');
+            }
+            out.append('}');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out;
+    }
+
+    /**
+     * Writes the given object to the output
+     * @param o the object to write
+     * @return the output the object has been written to
+     */
+    @Override
+    public Appendable toJson(Object o) {
+        try {
+            write(o);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out;
+    }
+
+    /**
+     * Writes an object to the output. The given object can be a
+     * {@link JsonObject}, a primitive, a string, an array, a collection,
+     * or a map. Converts the object to a string via {@link Object#toString()}
+     * if its type is unknown and then writes this string.
+     * @param obj the object to write
+     * @throws IOException if the object could not be written
+     */
+    private void write(Object obj) throws IOException {
+        if (obj == null) {
+            out.append("null");
+        } else if (obj instanceof JsonObject) {
+            ((JsonObject)obj).toJson(factory.createJsonBuilder());
+        } else if (obj instanceof Number || obj instanceof Boolean) {
+            out.append(String.valueOf(obj));
+        } else if (obj instanceof CharSequence) {
+            writeString((CharSequence)obj);
+        } else if (obj.getClass().isArray()) {
+            out.append('[');
+            int len = Array.getLength(obj);
+            for (int i = 0; i < len; ++i) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                write(Array.get(obj, i));
+            }
+            out.append(']');
+        } else if (obj instanceof Collection) {
+            out.append('[');
+            boolean first = true;
+            for (Object ao : (Collection<?>)obj) {
+                if (!first) {
+                    out.append(',');
+                }
+                first = false;
+                write(ao);
+            }
+            out.append(']');
+        } else if (obj instanceof Map) {
+            out.append('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> e : ((Map<?, ?>)obj).entrySet()) {
+                if (!first) {
+                    out.append(',');
+                }
+                first = false;
+                writeString(String.valueOf(e.getKey()));
+                out.append(':');
+                write(e.getValue());
+            }
+            out.append('}');
+        } else {
+            writeString(String.valueOf(obj));
+        }
+    }
+
+    /**
+     * Writes a JSON string to the output. Escapes special characters the
+     * same way as {@link de.undercouch.citeproc.helper.StringHelper#escapeJava(String)}.
+     * Runs of characters that do not have to be escaped are written at once.
+     * @param s the string to write
+     * @throws IOException if the string could not be written
+     */
+    private void writeString(CharSequence s) throws IOException {
+        out.append('"');
+        int start = 0;
+        int len = s.length();
+        for (int i = 0; i < len; ++i) {
+            char ch = s.charAt(i);
+            if (ch >= 32 && ch <= 0x7f && ch != '"' && ch != '\\') {
+                continue;
+            }
+            if (start < i) {
+                out.append(s, start, i);
+            }
+            start = i + 1;
+            switch (ch) {
+                case '\b':
+                    out.append("\\b");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                case '\f':
+                    out.append("\\f");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '"':
+                    out.append("\\\"");
+                    break;
+                default:
+                    out.append("\\u")
+                            .append(HEX_DIGITS[(ch >> 12) & 0xF])
+                            .append(HEX_DIGITS[(ch >> 8) & 0xF])
+                            .append(HEX_DIGITS[(ch >> 4) & 0xF])
+                            .append(HEX_DIGITS[ch & 0xF]);
+                    break;
+            }
+        }
+        if (start < len) {
+            out.append(s, start, len);
+        }
+        out.append('"');
+    }
+}
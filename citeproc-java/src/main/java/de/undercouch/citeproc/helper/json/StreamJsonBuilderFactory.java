@@ -0,0 +1,23 @@
+package de.undercouch.citeproc.helper.json;
+
+/**
+ * A {@link JsonBuilderFactory} that creates {@link StreamJsonBuilder}s
+ * writing to the same output
+ * @author Michel Kraemer
+ */
+public class StreamJsonBuilderFactory implements JsonBuilderFactory {
+    private final Appendable out;
+
+    /**
+     * Creates a factory
+     * @param out the output all builders created by this factory write to
+     */
+    public StreamJsonBuilderFactory(Appendable out) {
+        this.out = out;
+    }
+
+    @Override
+    public JsonBuilder createJsonBuilder() {
+        return new StreamJsonBuilder(this, out);
+    }
+}
@@ -0,0 +1,45 @@
+package de.undercouch.citeproc.helper.xml;
+
+/**
+ * An attribute in a read-only XML tree
+ * @author Michel Kraemer
+ */
+class XmlAttr extends XmlNode {
+    private final String name;
+    private final String value;
+
+    /**
+     * Creates a new attribute
+     * @param name the attribute's qualified name (e.g. <code>xml:lang</code>)
+     * @param value the attribute's value
+     */
+    XmlAttr(String name, String value) {
+        this.name = name;
+        this.value = value;
+    }
+
+    @Override
+    void appendTextContent(StringBuilder sb) {
+        sb.append(value);
+    }
+
+    @Override
+    public String getNodeName() {
+        return name;
+    }
+
+    @Override
+    public String getNodeValue() {
+        return value;
+    }
+
+    @Override
+    public short getNodeType() {
+        return ATTRIBUTE_NODE;
+    }
+
+    @Override
+    public String getTextContent() {
+        return value;
+    }
+}
@@ -0,0 +1,142 @@
+package de.undercouch.citeproc.helper.xml;
+
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * An element in a read-only XML tree
+ * @author Michel Kraemer
+ */
+class XmlElement extends XmlNode {
+    private final String name;
+    private final XmlAttr[] attributes;
+    private final XmlNode[] children;
+    private final NodeList childList;
+    private final NamedNodeMap attributeMap;
+
+    /**
+     * Creates a new element
+     * @param name the element's qualified name
+     * @param attributes the element's attributes
+     * @param children the element's children
+     */
+    XmlElement(String name, XmlAttr[] attributes, XmlNode[] children) {
+        this.name = name;
+        this.attributes = attributes;
+        this.children = children;
+        for (int i = 0; i < attributes.length; ++i) {
+            attributes[i].setParent(this, i);
+        }
+        for (int i = 0; i < children.length; ++i) {
+            children[i].setParent(this, i);
+        }
+        this.childList = children.length == 0 ? EMPTY_NODE_LIST : new ChildList();
+        this.attributeMap = new AttributeMap();
+    }
+
+    @Override
+    void appendTextContent(StringBuilder sb) {
+        for (XmlNode c : children) {
+            c.appendTextContent(sb);
+        }
+    }
+
+    @Override
+    public String getNodeName() {
+        return name;
+    }
+
+    @Override
+    public short getNodeType() {
+        return ELEMENT_NODE;
+    }
+
+    @Override
+    public NodeList getChildNodes() {
+        return childList;
+    }
+
+    @Override
+    public NamedNodeMap getAttributes() {
+        return attributeMap;
+    }
+
+    @Override
+    public boolean hasAttributes() {
+        return attributes.length > 0;
+    }
+
+    @Override
+    public String getTextContent() {
+        if (children.length == 1) {
+            return children[0].getTextContent();
+        }
+        return super.getTextContent();
+    }
+
+    private class ChildList implements NodeList {
+        @Override
+        public Node item(int index) {
+            if (index < 0 || index >= children.length) {
+                return null;
+            }
+            return children[index];
+        }
+
+        @Override
+        public int getLength() {
+            return children.length;
+        }
+    }
+
+    private class AttributeMap implements NamedNodeMap {
+        @Override
+        public Node getNamedItem(String name) {
+            for (XmlAttr a : attributes) {
+                if (a.getNodeName().equals(name)) {
+                    return a;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public Node item(int index) {
+            if (index < 0 || index >= attributes.length) {
+                return null;
+            }
+            return attributes[index];
+        }
+
+        @Override
+        public int getLength() {
+            return attributes.length;
+        }
+
+        @Override
+        public Node getNamedItemNS(String namespaceURI, String localName) {
+            return null;
+        }
+
+        @Override
+        public Node setNamedItem(Node arg) {
+            throw readOnly();
+        }
+
+        @Override
+        public Node removeNamedItem(String name) {
+            throw readOnly();
+        }
+
+        @Override
+        public Node setNamedItemNS(Node arg) {
+            throw readOnly();
+        }
+
+        @Override
+        public Node removeNamedItemNS(String namespaceURI, String localName) {
+            throw readOnly();
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package de.undercouch.citeproc.helper.xml;
+
+import org.w3c.dom.DOMException;
+import org.w3c.dom.Document;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.w3c.dom.UserDataHandler;
+
+/**
+ * Base class for the nodes of a read-only XML tree created by
+ * {@link XmlTreeReader}. The nodes only implement the parts of the
+ * {@link Node} interface that are needed to read styles and locales.
+ * Methods that would modify the tree throw a {@link DOMException}.
+ * @author Michel Kraemer
+ */
+abstract class XmlNode implements Node {
+    /**
+     * An empty list of nodes
+     */
+    static final NodeList EMPTY_NODE_LIST = new NodeList() {
+        @Override
+        public Node item(int index) {
+            return null;
+        }
+
+        @Override
+        public int getLength() {
+            return 0;
+        }
+    };
+
+    private XmlNode parent;
+    private int index;
+
+    /**
+     * Sets this node's parent
+     * @param parent the parent
+     * @param index this node's position among the parent's children
+     */
+    void setParent(XmlNode parent, int index) {
+        this.parent = parent;
+        this.index = index;
+    }
+
+    /**
+     * Appends this node's text content to the given string builder
+     * @param sb the string builder
+     */
+    abstract void appendTextContent(StringBuilder sb);
+
+    static DOMException readOnly() {
+        return new DOMException(DOMException.NO_MODIFICATION_ALLOWED_ERR,
+                "XML tree is read-only");
+    }
+
+    private static DOMException notSupported() {
+        return new DOMException(DOMException.NOT_SUPPORTED_ERR,
+                "Operation is not supported");
+    }
+
+    @Override
+    public String getNodeValue() {
+        return null;
+    }
+
+    @Override
+    public void setNodeValue(String nodeValue) {
+        throw readOnly();
+    }
+
+    @Override
+    public Node getParentNode() {
+        return parent;
+    }
+
+    @Override
+    public NodeList getChildNodes() {
+        return EMPTY_NODE_LIST;
+    }
+
+    @Override
+    public Node getFirstChild() {
+        return getChildNodes().item(0);
+    }
+
+    @Override
+    public Node getLastChild() {
+        NodeList children = getChildNodes();
+        return children.item(children.getLength() - 1);
+    }
+
+    @Override
+    public Node getPreviousSibling() {
+        if (parent == null) {
+            return null;
+        }
+        return parent.getChildNodes().item(index - 1);
+    }
+
+    @Override
+    public Node getNextSibling() {
+        if (parent == null) {
+            return null;
+        }
+        return parent.getChildNodes().item(index + 1);
+    }
+
+    @Override
+    public NamedNodeMap getAttributes() {
+        return null;
+    }
+
+    @Override
+    public Document getOwnerDocument() {
+        return null;
+    }
+
+    @Override
+    public Node insertBefore(Node newChild, Node refChild) {
+        throw readOnly();
+    }
+
+    @Override
+    public Node replaceChild(Node newChild, Node oldChild) {
+        throw readOnly();
+    }
+
+    @Override
+    public Node removeChild(Node oldChild) {
+        throw readOnly();
+    }
+
+    @Override
+    public Node appendChild(Node newChild) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean hasChildNodes() {
+        return getChildNodes().getLength() > 0;
+    }
+
+    @Override
+    public Node cloneNode(boolean deep) {
+        throw notSupported();
+    }
+
+    @Override
+    public void normalize() {
+        // nothing to do
+    }
+
+    @Override
+    public boolean isSupported(String feature, String version) {
+        return false;
+    }
+
+    @Override
+    public String getNamespaceURI() {
+        return null;
+    }
+
+    @Override
+    public String getPrefix() {
+        return null;
+    }
+
+    @Override
+    public void setPrefix(String prefix) {
+        throw readOnly();
+    }
+
+    @Override
+    public String getLocalName() {
+        return null;
+    }
+
+    @Override
+    public boolean hasAttributes() {
+        return false;
+    }
+
+    @Override
+    public String getBaseURI() {
+        return null;
+    }
+
+    @Override
+    public short compareDocumentPosition(Node other) {
+        throw notSupported();
+    }
+
+    @Override
+    public String getTextContent() {
+        StringBuilder sb = new StringBuilder();
+        appendTextContent(sb);
+        return sb.toString();
+    }
+
+    @Override
+    public void setTextContent(String textContent) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean isSameNode(Node other) {
+        return this == other;
+    }
+
+    @Override
+    public String lookupPrefix(String namespaceURI) {
+        return null;
+    }
+
+    @Override
+    public boolean isDefaultNamespace(String namespaceURI) {
+        return false;
+    }
+
+    @Override
+    public String lookupNamespaceURI(String prefix) {
+        return null;
+    }
+
+    @Override
+    public boolean isEqualNode(Node arg) {
+        return this == arg;
+    }
+
+    @Override
+    public Object getFeature(String feature, String version) {
+        return null;
+    }
+
+    @Override
+    public Object setUserData(String key, Object data, UserDataHandler handler) {
+        throw notSupported();
+    }
+
+    @Override
+    public Object getUserData(String key) {
+        return null;
+    }
+}
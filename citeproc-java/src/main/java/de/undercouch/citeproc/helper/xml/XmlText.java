@@ -0,0 +1,42 @@
+package de.undercouch.citeproc.helper.xml;
+
+/**
+ * A text node in a read-only XML tree
+ * @author Michel Kraemer
+ */
+class XmlText extends XmlNode {
+    private final String text;
+
+    /**
+     * Creates a new text node
+     * @param text the text
+     */
+    XmlText(String text) {
+        this.text = text;
+    }
+
+    @Override
+    void appendTextContent(StringBuilder sb) {
+        sb.append(text);
+    }
+
+    @Override
+    public String getNodeName() {
+        return "#text";
+    }
+
+    @Override
+    public String getNodeValue() {
+        return text;
+    }
+
+    @Override
+    public short getNodeType() {
+        return TEXT_NODE;
+    }
+
+    @Override
+    public String getTextContent() {
+        return text;
+    }
+}
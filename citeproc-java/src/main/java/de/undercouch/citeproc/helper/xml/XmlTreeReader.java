@@ -0,0 +1,144 @@
+package de.undercouch.citeproc.helper.xml;
+
+import org.w3c.dom.Node;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * <p>Reads XML documents such as citation styles and locales from a
+ * stream into a compact, read-only tree of {@link Node}s. The tree is
+ * built directly from StAX events without creating a W3C DOM document.
+ * It only contains elements, attributes, and text. Comments and processing
+ * instructions are skipped.</p>
+ * <p>Element and attribute names are qualified names (e.g.
+ * <code>xml:lang</code>), just like in a DOM document created by a
+ * parser that is not namespace-aware.</p>
+ * @author Michel Kraemer
+ */
+public class XmlTreeReader {
+    private static final ThreadLocal<XMLInputFactory> FACTORY =
+            ThreadLocal.withInitial(() -> {
+                XMLInputFactory f = XMLInputFactory.newInstance();
+                f.setProperty(XMLInputFactory.IS_COALESCING, true);
+                f.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+                f.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+                return f;
+            });
+
+    private XmlTreeReader() {
+        // hidden constructor
+    }
+
+    /**
+     * Reads an XML document from a stream. Does not close the stream.
+     * @param is the stream
+     * @return the document's root element
+     * @throws IOException if the stream could not be read or parsed
+     */
+    public static Node read(InputStream is) throws IOException {
+        try {
+            return read(FACTORY.get().createXMLStreamReader(is));
+        } catch (XMLStreamException e) {
+            throw new IOException("Could not parse XML document", e);
+        }
+    }
+
+    /**
+     * Reads an XML document from a reader. Does not close the reader.
+     * @param r the reader
+     * @return the document's root element
+     * @throws IOException if the reader could not be read or parsed
+     */
+    public static Node read(Reader r) throws IOException {
+        try {
+            return read(FACTORY.get().createXMLStreamReader(r));
+        } catch (XMLStreamException e) {
+            throw new IOException("Could not parse XML document", e);
+        }
+    }
+
+    private static Node read(XMLStreamReader r) throws XMLStreamException {
+        Deque<ElementBuilder> stack = new ArrayDeque<>();
+        XmlElement root = null;
+        try {
+            while (r.hasNext()) {
+                switch (r.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        stack.push(new ElementBuilder(r));
+                        break;
+
+                    case XMLStreamConstants.END_ELEMENT:
+                        XmlElement e = stack.pop().build();
+                        if (stack.isEmpty()) {
+                            root = e;
+                        } else {
+                            stack.peek().children.add(e);
+                        }
+                        break;
+
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                    case XMLStreamConstants.SPACE:
+                        if (!stack.isEmpty()) {
+                            stack.peek().children.add(new XmlText(r.getText()));
+                        }
+                        break;
+
+                    default:
+                        break;
+                }
+            }
+        } finally {
+            r.close();
+        }
+
+        if (root == null) {
+            throw new XMLStreamException("XML document does not have a " +
+                    "root element");
+        }
+        return root;
+    }
+
+    /**
+     * Collects the attributes and children of an element while it is
+     * being read
+     */
+    private static class ElementBuilder {
+        final String name;
+        final XmlAttr[] attributes;
+        final List<XmlNode> children = new ArrayList<>();
+
+        ElementBuilder(XMLStreamReader r) {
+            name = qualifiedName(r.getPrefix(), r.getLocalName());
+            int n = r.getAttributeCount();
+            attributes = new XmlAttr[n];
+            for (int i = 0; i < n; ++i) {
+                attributes[i] = new XmlAttr(qualifiedName(
+                        r.getAttributePrefix(i), r.getAttributeLocalName(i)),
+                        r.getAttributeValue(i));
+            }
+        }
+
+        XmlElement build() {
+            return new XmlElement(name, attributes,
+                    children.toArray(new XmlNode[0]));
+        }
+
+        private static String qualifiedName(String prefix, String localName) {
+            if (prefix == null || prefix.isEmpty()) {
+                return localName;
+            }
+            return prefix + ":" + localName;
+        }
+    }
+}
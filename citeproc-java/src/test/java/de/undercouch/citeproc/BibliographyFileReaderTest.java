@@ -0,0 +1,231 @@
+package de.undercouch.citeproc;
+
+import de.undercouch.citeproc.BibliographyFileReader.FileFormat;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Tests for {@link BibliographyFileReader}
+ * @author Michel Kraemer
+ */
+public class BibliographyFileReaderTest {
+    private static final String JSON = "  [{\"id\": \"A\", \"title\": \"The A\"}]";
+
+    private static final String RIS = "TY  - JOUR\nID  - B\nTI  - The B\nER  - \n";
+
+    /**
+     * Test if file formats can be determined from byte buffers
+     */
+    @Test
+    public void determineFileFormatFromBuffer() {
+        BibliographyFileReader r = new BibliographyFileReader();
+        assertEquals(FileFormat.JSON_ARRAY, r.determineFileFormat(
+                buffer(JSON), null));
+        assertEquals(FileFormat.JSON_OBJECT, r.determineFileFormat(
+                buffer("\n{}"), null));
+        assertEquals(FileFormat.RIS, r.determineFileFormat(
+                buffer(RIS), null));
+        assertEquals(FileFormat.YAML, r.determineFileFormat(
+                buffer("%YAML 1.2\n---\n"), null));
+        assertEquals(FileFormat.YAML, r.determineFileFormat(
+                buffer("- id: A\n"), "test.yml"));
+        assertEquals(FileFormat.ENDNOTE, r.determineFileFormat(
+                buffer("%0 Journal Article\n"), null));
+        assertEquals(FileFormat.BIBTEX, r.determineFileFormat(
+                buffer("% comment\n@article{A}"), "test.bib"));
+        assertEquals(FileFormat.UNKNOWN, r.determineFileFormat(
+                buffer(""), null));
+        assertEquals(FileFormat.UNKNOWN, r.determineFileFormat(
+                buffer("   \n  "), null));
+    }
+
+    /**
+     * Test if the buffer's position is respected and not modified
+     */
+    @Test
+    public void determineFileFormatKeepsPosition() {
+        ByteBuffer buf = buffer("xx{}");
+        buf.position(2);
+        assertEquals(FileFormat.JSON_OBJECT, new BibliographyFileReader()
+                .determineFileFormat(buf, null));
+        assertEquals(2, buf.position());
+    }
+
+    /**
+     * Test if a file can be read
+     * @throws Exception if something goes wrong
+     */
+    @Test
+    public void readFile() throws Exception {
+        File f = File.createTempFile("citeproc-java", ".json");
+        try {
+            Files.write(f.toPath(), JSON.getBytes(StandardCharsets.UTF_8));
+            ItemDataProvider p = new BibliographyFileReader().readBibliographyFile(f);
+            assertEquals("The A", p.retrieveItem("A").getTitle());
+        } finally {
+            f.delete();
+        }
+    }
+
+    /**
+     * Test if a UTF-8 byte order mark at the beginning of a file is skipped
+     * @throws Exception if something goes wrong
+     */
+    @Test
+    public void readFileWithByteOrderMark() throws Exception {
+        File f = File.createTempFile("citeproc-java", ".json");
+        try {
+            Files.write(f.toPath(), ("\uFEFF" + JSON).getBytes(StandardCharsets.UTF_8));
+            BibliographyFileReader r = new BibliographyFileReader();
+            assertEquals(FileFormat.JSON_ARRAY, r.determineFileFormat(f));
+            ItemDataProvider p = r.readBibliographyFile(f);
+            assertEquals("The A", p.retrieveItem("A").getTitle());
+        } finally {
+            f.delete();
+        }
+    }
+
+    /**
+     * Test if a UTF-8 byte order mark is skipped in streams and buffers
+     * @throws Exception if something goes wrong
+     */
+    @Test
+    public void readStreamWithByteOrderMark() throws Exception {
+        byte[] bytes = ("\uFEFF" + JSON).getBytes(StandardCharsets.UTF_8);
+        BibliographyFileReader r = new BibliographyFileReader();
+        assertEquals(FileFormat.JSON_ARRAY, r.determineFileFormat(
+                ByteBuffer.wrap(bytes), null));
+        ItemDataProvider p = r.readBibliographyFile(
+                new ByteArrayInputStream(bytes), null);
+        assertEquals("The A", p.retrieveItem("A").getTitle());
+    }
+
+    /**
+     * Test if a UTF-16 encoded YAML file can be read
+     * @throws Exception if something goes wrong
+     */
+    @Test
+    public void readUtf16YamlFile() throws Exception {
+        File f = File.createTempFile("citeproc-java", ".yaml");
+        try {
+            // the UTF_16 charset writes a big-endian byte order mark
+            Files.write(f.toPath(), "- id: A\n  title: The \u00c4\n"
+                    .getBytes(StandardCharsets.UTF_16));
+            ItemDataProvider p = new BibliographyFileReader().readBibliographyFile(f);
+            assertEquals("The \u00c4", p.retrieveItem("A").getTitle());
+        } finally {
+            f.delete();
+        }
+    }
+
+    /**
+     * Test if a gzip-compressed BibTeX file can be read
+     * @throws Exception if something goes wrong
+     */
+    @Test
+    public void readGzipFile() throws Exception {
+        File f = File.createTempFile("citeproc-java", ".bib.gz");
+        try {
+            try (InputStream is = BibliographyFileReaderTest.class
+                    .getResourceAsStream("/unix.bib.gz")) {
+                Files.copy(is, f.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            BibliographyFileReader r = new BibliographyFileReader();
+            assertEquals(FileFormat.BIBTEX, r.determineFileFormat(f));
+            ItemDataProvider p = r.readBibliographyFile(f);
+            assertEquals("Ritchie", p.retrieveItem("Ritchie:1974:UTS")
+                    .getAuthor()[0].getFamily());
+        } finally {
+            f.delete();
+        }
+    }
+
+    /**
+     * Test if a gzip-compressed stream can be read
+     * @throws Exception if something goes wrong
+     */
+    @Test
+    public void readGzipStream() throws Exception {
+        try (InputStream is = BibliographyFileReaderTest.class
+                .getResourceAsStream("/unix.bib.gz")) {
+            ItemDataProvider p = new BibliographyFileReader()
+                    .readBibliographyFile(is, "unix.bib.gz");
+            assertNotNull(p.retrieveItem("Ritchie:1974:UTS"));
+        }
+    }
+
+    /**
+     * Test if Zstandard-compressed input is rejected with a helpful message
+     * @throws Exception if something goes wrong
+     */
+    @Test(expected = IOException.class)
+    public void rejectZstd() throws Exception {
+        byte[] zstd = new byte[] { 0x28, (byte)0xb5, 0x2f, (byte)0xfd, 0, 0 };
+        new BibliographyFileReader().readBibliographyFile(
+                new ByteArrayInputStream(zstd), "test.bib.zst");
+    }
+
+    /**
+     * Test if multiple files can be read concurrently and if the first
+     * file takes precedence for duplicate IDs
+     * @throws Exception if something goes wrong
+     */
+    @Test
+    public void readMultipleFiles() throws Exception {
+        List<File> files = new ArrayList<>();
+        try {
+            files.add(writeTempFile(".json", JSON));
+            files.add(writeTempFile(".ris", RIS));
+            files.add(writeTempFile(".json",
+                    "[{\"id\": \"A\", \"title\": \"Another A\"}," +
+                    "{\"id\": \"C\", \"title\": \"The C\"}]"));
+
+            MergedItemDataProvider p = new BibliographyFileReader()
+                    .readBibliographyFiles(files, 2);
+            assertEquals(Arrays.asList("A", "B", "C"),
+                    new ArrayList<>(p.getIds()));
+            assertEquals("The A", p.retrieveItem("A").getTitle());
+            assertEquals("The B", p.retrieveItem("B").getTitle());
+            assertEquals("The C", p.retrieveItem("C").getTitle());
+
+            List<BibliographyFileReport> reports = p.getReports();
+            assertEquals(3, reports.size());
+            for (int i = 0; i < reports.size(); ++i) {
+                assertEquals(files.get(i), reports.get(i).getFile());
+            }
+            assertEquals(1, reports.get(0).getItemCount());
+            assertEquals(0, reports.get(0).getDuplicateCount());
+            assertEquals(2, reports.get(2).getItemCount());
+            assertEquals(1, reports.get(2).getDuplicateCount());
+        } finally {
+            for (File f : files) {
+                f.delete();
+            }
+        }
+    }
+
+    private static File writeTempFile(String suffix, String contents)
+            throws IOException {
+        File f = File.createTempFile("citeproc-java", suffix);
+        Files.write(f.toPath(), contents.getBytes(StandardCharsets.UTF_8));
+        return f;
+    }
+
+    private static ByteBuffer buffer(String s) {
+        return ByteBuffer.wrap(s.getBytes(StandardCharsets.UTF_8));
+    }
+}
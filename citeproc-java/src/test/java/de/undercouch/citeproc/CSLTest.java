@@ -1,5 +1,7 @@
 package de.undercouch.citeproc;
 
+import de.undercouch.citeproc.csl.CSLCitation;
+import de.undercouch.citeproc.csl.CSLCitationItem;
 import de.undercouch.citeproc.csl.CSLDateBuilder;
 import de.undercouch.citeproc.csl.CSLItemData;
 import de.undercouch.citeproc.csl.CSLItemDataBuilder;
@@ -9,11 +11,16 @@ import de.undercouch.citeproc.output.Bibliography;
 import de.undercouch.citeproc.output.Citation;
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -343,6 +350,25 @@ public class CSLTest {
                 + "</fo:block>\n", b.getEntries()[0]);
     }
 
+    /**
+     * Tests if a bibliography appended to a string builder equals the one
+     * generated by {@link CSL#makeBibliography()} in all output formats
+     * @throws Exception if something goes wrong
+     */
+    @Test
+    public void appendBibliography() throws Exception {
+        for (String format : CSL.getSupportedOutputFormats()) {
+            CSL citeproc = new CSL(new ListItemDataProvider(items), "ieee");
+            citeproc.setOutputFormat(format);
+            citeproc.makeCitation(items[0].getId(), items[3].getId());
+
+            StringBuilder sb = new StringBuilder("prefix");
+            citeproc.appendBibliography(sb);
+            assertEquals(format, "prefix" + citeproc.makeBibliography().makeString(),
+                    sb.toString());
+        }
+    }
+
     /**
      * Tests if an exception is thrown if we try to set an illegal output format
      * @throws Exception if everything is OK
@@ -500,6 +526,68 @@ public class CSLTest {
         assertEquals("[3] The Programming Language B\n", b.getEntries()[2]);
     }
 
+    /**
+     * Tests if generating multiple citations at once yields the same result
+     * as generating them one after the other
+     * @throws Exception if something goes wrong
+     */
+    @Test
+    public void makeCitations() throws Exception {
+        List<CSLCitation> citations = Arrays.asList(
+                new CSLCitation(new CSLCitationItem(items[0].getId())),
+                new CSLCitation(new CSLCitationItem(items[3].getId()),
+                        new CSLCitationItem(items[1].getId())),
+                new CSLCitation(new CSLCitationItem(items[0].getId())),
+                new CSLCitation(new CSLCitationItem(items[2].getId()))
+        );
+
+        String style = "<style xmlns=\"http://purl.org/net/xbiblio/csl\" version=\"1.0\">\n" +
+                "    <citation>\n" +
+                "      <layout delimiter=\", \">\n" +
+                "        <text variable=\"citation-number\" prefix=\"[\" suffix=\"]\"/>\n" +
+                "        <choose>\n" +
+                "          <if position=\"first\">\n" +
+                "            <text value=\"(first)\" prefix=\" \"/>\n" +
+                "          </if>\n" +
+                "        </choose>\n" +
+                "      </layout>\n" +
+                "    </citation>\n" +
+                "    <bibliography>\n" +
+                "      <sort>\n" +
+                "        <key variable=\"title\" sort=\"descending\"/>\n" +
+                "      </sort>\n" +
+                "      <layout>\n" +
+                "        <text variable=\"citation-number\" prefix=\"[\" suffix=\"] \"/>\n" +
+                "        <text variable=\"title\"/>\n" +
+                "      </layout>\n" +
+                "    </bibliography>\n" +
+                "  </style>";
+
+        CSL sequential = new CSL(new ListItemDataProvider(items), style);
+        sequential.setOutputFormat("text");
+        String[] expected = new String[citations.size()];
+        for (CSLCitation c : citations) {
+            for (Citation r : sequential.makeCitation(c)) {
+                expected[r.getIndex()] = r.getText();
+            }
+        }
+        assertTrue(expected[0].endsWith(" (first)"));
+        assertFalse(expected[2].endsWith(" (first)"));
+
+        for (boolean parallel : new boolean[] { false, true }) {
+            CSL batch = new CSL(new ListItemDataProvider(items), style);
+            batch.setOutputFormat("text");
+            List<Citation> a = batch.makeCitations(citations, parallel);
+            assertEquals(citations.size(), a.size());
+            for (int i = 0; i < a.size(); ++i) {
+                assertEquals(i, a.get(i).getIndex());
+                assertEquals(expected[i], a.get(i).getText());
+            }
+            assertArrayEquals(sequential.makeBibliography().getEntries(),
+                    batch.makeBibliography().getEntries());
+        }
+    }
+
     /**
      * Checks if the supported output formats are calculated correctly
      */
@@ -563,6 +651,77 @@ public class CSLTest {
                 + "Bell Laboratories, Murray Hill, NJ, USA, 8, 1973.\n", bibl);
     }
 
+    /**
+     * Test if a dependent style given as a serialized XML string is
+     * resolved to its independent parent
+     * @throws Exception if something goes wrong
+     */
+    @Test
+    public void dependentStyleFromString() throws Exception {
+        String dependent = "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n" +
+                "<style xmlns=\"http://purl.org/net/xbiblio/csl\" " +
+                "version=\"1.0\" default-locale=\"en-US\">\n" +
+                "  <info>\n" +
+                "    <title>Test</title>\n" +
+                "    <id>http://www.zotero.org/styles/test</id>\n" +
+                "    <link href=\"http://www.zotero.org/styles/ieee\" " +
+                "rel=\"independent-parent\"/>\n" +
+                "  </info>\n" +
+                "</style>\n";
+        assertTrue(CSL.canFormatBibliographies(dependent));
+        String expected = CSL.makeAdhocBibliography("ieee", "text", items[0])
+                .makeString();
+        assertEquals(expected, CSL.makeAdhocBibliography(dependent, "text",
+                items[0]).makeString());
+    }
+
+    /**
+     * Test if localization data is shared between processors using the
+     * default locale provider but not between processors using other
+     * locale providers
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void sharedLocales() throws Exception {
+        ItemDataProvider provider = new ListItemDataProvider(items);
+        CSL citeproc1 = new CSL(provider, "ieee", "de-AT");
+        citeproc1.setOutputFormat("text");
+        citeproc1.registerCitationItems(items[0].getId());
+
+        AtomicInteger calls = new AtomicInteger();
+        LocaleProvider defaultLocaleProvider = new DefaultLocaleProvider();
+        LocaleProvider countingProvider = lang -> {
+            calls.incrementAndGet();
+            return defaultLocaleProvider.retrieveLocale(lang);
+        };
+        for (int i = 0; i < 2; ++i) {
+            CSL citeproc2 = new CSL(provider, countingProvider, null,
+                    "ieee", "de-AT");
+            citeproc2.setOutputFormat("text");
+            citeproc2.registerCitationItems(items[0].getId());
+            assertEquals(citeproc1.makeBibliography().makeString(),
+                    citeproc2.makeBibliography().makeString());
+        }
+
+        // primary dialect and dialect must be retrieved for each processor
+        assertEquals(4, calls.get());
+
+        // processors using the default provider must reuse the cached
+        // localization data. use a style without locales, so the data is
+        // not merged with the style's terms.
+        String style = "<style xmlns=\"http://purl.org/net/xbiblio/csl\" " +
+                "class=\"in-text\" version=\"1.0\">" +
+                "<info><title>Test</title><id>test</id></info>" +
+                "<citation><layout><text variable=\"title\"/></layout></citation>" +
+                "</style>";
+        CSL citeproc3 = new CSL(provider, style, "de-AT");
+        CSL citeproc4 = new CSL(provider, style, "de-AT");
+        assertSame(citeproc3.getLocale(), citeproc4.getLocale());
+        CSL citeproc5 = new CSL(provider, countingProvider, null,
+                style, "de-AT");
+        assertNotSame(citeproc3.getLocale(), citeproc5.getLocale());
+    }
+
     /**
      * Test if the processor throws an exception if the style does not support
      * formatting bibliographies
@@ -0,0 +1,219 @@
+package de.undercouch.citeproc;
+
+import de.undercouch.citeproc.csl.CSLItemData;
+import de.undercouch.citeproc.output.Citation;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link FileItemDataProvider}
+ * @author Michel Kraemer
+ */
+public class FileItemDataProviderTest {
+    private static final String ENTRY_A = "@article{A,\n" +
+            "  author = {Smith, John},\n" +
+            "  title = {The A},\n" +
+            "  year = {2010}\n" +
+            "}\n";
+
+    private static final String ENTRY_B = "@article{B,\n" +
+            "  author = {Doe, Jane},\n" +
+            "  title = {The B},\n" +
+            "  year = {2011}\n" +
+            "}\n";
+
+    private static final String ENTRY_B_MODIFIED = "@article{B,\n" +
+            "  author = {Miller, Jane},\n" +
+            "  title = {The B},\n" +
+            "  year = {2011}\n" +
+            "}\n";
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("citeproc-java", ".bib");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    private void write(String contents) throws IOException {
+        Files.write(file.toPath(), contents.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Test if only changed entries are reported and converted again
+     * @throws Exception if something goes wrong
+     */
+    @Test
+    public void reloadBibTeX() throws Exception {
+        write(ENTRY_A + ENTRY_B);
+        FileItemDataProvider p = new FileItemDataProvider(file);
+        assertEquals(Arrays.asList("A", "B"), new ArrayList<>(p.getIds()));
+        CSLItemData a = p.retrieveItem("A");
+
+        List<Set<String>> notifications = new ArrayList<>();
+        p.addListener(notifications::add);
+
+        // nothing has changed
+        assertTrue(p.reload().isEmpty());
+        assertTrue(notifications.isEmpty());
+
+        // modify one entry
+        write(ENTRY_A + ENTRY_B_MODIFIED);
+        assertEquals(Collections.singleton("B"), p.reload());
+        assertSame(a, p.retrieveItem("A"));
+        assertEquals("Miller", p.retrieveItem("B").getAuthor()[0].getFamily());
+
+        // remove one entry and add another one
+        write(ENTRY_B_MODIFIED + ENTRY_A.replace("{A,", "{C,"));
+        assertEquals(new HashSet<>(Arrays.asList("A", "C")), p.reload());
+        assertNull(p.retrieveItem("A"));
+
+        assertEquals(2, notifications.size());
+        assertEquals(Collections.singleton("B"), notifications.get(0));
+    }
+
+    /**
+     * Test if unchanged items keep their identity in non-BibTeX files
+     * @throws Exception if something goes wrong
+     */
+    @Test
+    public void reloadJson() throws Exception {
+        File json = File.createTempFile("citeproc-java", ".json");
+        try {
+            Files.write(json.toPath(), ("[{\"id\": \"A\", \"title\": \"The A\"}," +
+                    "{\"id\": \"B\", \"title\": \"The B\"}]")
+                    .getBytes(StandardCharsets.UTF_8));
+            FileItemDataProvider p = new FileItemDataProvider(json);
+            CSLItemData a = p.retrieveItem("A");
+
+            Files.write(json.toPath(), ("[{\"id\": \"A\", \"title\": \"The A\"}," +
+                    "{\"id\": \"B\", \"title\": \"Another B\"}]")
+                    .getBytes(StandardCharsets.UTF_8));
+            assertEquals(Collections.singleton("B"), p.reload());
+            assertSame(a, p.retrieveItem("A"));
+            assertEquals("Another B", p.retrieveItem("B").getTitle());
+        } finally {
+            json.delete();
+        }
+    }
+
+    /**
+     * Test if files starting with a UTF-8 byte order mark are read
+     * in the right format
+     * @throws Exception if something goes wrong
+     */
+    @Test
+    public void reloadWithByteOrderMark() throws Exception {
+        write("\uFEFF[{\"id\": \"A\", \"title\": \"The A\"}]");
+        FileItemDataProvider p = new FileItemDataProvider(file);
+        assertEquals("The A", p.retrieveItem("A").getTitle());
+
+        write("\uFEFF" + ENTRY_A + ENTRY_B);
+        assertEquals(new HashSet<>(Arrays.asList("A", "B")), p.reload());
+        assertEquals("Smith", p.retrieveItem("A").getAuthor()[0].getFamily());
+    }
+
+    /**
+     * Test if the processor only re-renders citations referring to
+     * changed items
+     * @throws Exception if something goes wrong
+     */
+    @Test
+    public void updateCitations() throws Exception {
+        write(ENTRY_A + ENTRY_B);
+        FileItemDataProvider p = new FileItemDataProvider(file);
+        CSL citeproc = new CSL(p, "apa");
+        citeproc.setOutputFormat("text");
+
+        citeproc.makeCitation("A");
+        Citation b = citeproc.makeCitation("B").get(0);
+        assertTrue(b.getText().contains("Doe"));
+
+        List<Citation> updated = new ArrayList<>();
+        p.addListener(ids -> updated.addAll(citeproc.updateItems(ids)));
+
+        write(ENTRY_A + ENTRY_B_MODIFIED);
+        p.reload();
+
+        assertEquals(1, updated.size());
+        assertEquals(b.getIndex(), updated.get(0).getIndex());
+        assertTrue(updated.get(0).getText().contains("Miller"));
+        assertTrue(citeproc.makeBibliography().makeString().contains("Miller"));
+    }
+
+    /**
+     * Test if items registered unsorted keep their order in the
+     * bibliography when they change
+     * @throws Exception if something goes wrong
+     */
+    @Test
+    public void updateUnsortedItems() throws Exception {
+        write(ENTRY_A + ENTRY_B);
+        FileItemDataProvider p = new FileItemDataProvider(file);
+        CSL citeproc = new CSL(p, "apa");
+        citeproc.setOutputFormat("text");
+        citeproc.registerCitationItems(new String[] { "A", "B" }, true);
+
+        write(ENTRY_A + ENTRY_B_MODIFIED);
+        citeproc.updateItems(p.reload());
+
+        List<String> ids = new ArrayList<>();
+        for (CSLItemData item : citeproc.getRegisteredItems()) {
+            ids.add(item.getId());
+        }
+        assertEquals(Arrays.asList("A", "B"), ids);
+        String[] entries = citeproc.makeBibliography().getEntries();
+        assertTrue(entries[0].contains("Smith"));
+        assertTrue(entries[1].contains("Miller"));
+    }
+
+    /**
+     * Test if the watcher keeps running if a listener throws an exception
+     * @throws Exception if something goes wrong
+     */
+    @Test
+    public void watchSurvivesFailingListener() throws Exception {
+        write(ENTRY_A + ENTRY_B);
+        BlockingQueue<Set<String>> notifications = new LinkedBlockingQueue<>();
+        try (FileItemDataProvider p = new FileItemDataProvider(file)) {
+            p.addListener(ids -> {
+                notifications.add(ids);
+                throw new IllegalArgumentException("Listener failed");
+            });
+            p.watch();
+
+            write(ENTRY_A + ENTRY_B_MODIFIED);
+            assertEquals(Collections.singleton("B"),
+                    notifications.poll(30, TimeUnit.SECONDS));
+
+            write(ENTRY_A + ENTRY_B);
+            assertEquals(Collections.singleton("B"),
+                    notifications.poll(30, TimeUnit.SECONDS));
+        }
+    }
+}
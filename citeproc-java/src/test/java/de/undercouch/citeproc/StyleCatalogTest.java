@@ -0,0 +1,55 @@
+package de.undercouch.citeproc;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link StyleCatalog}
+ * @author Michel Kraemer
+ */
+public class StyleCatalogTest {
+    /**
+     * Test if the names of styles and locales are only listed once
+     * @throws Exception if something goes wrong
+     */
+    @Test
+    public void names() throws Exception {
+        StyleCatalog catalog = StyleCatalog.getInstance();
+        assertTrue(catalog.getStyleNames().contains("ieee"));
+        assertTrue(catalog.getStyleNames().contains(
+                "dependent/proceedings-of-the-ieee"));
+        assertTrue(catalog.getLocaleNames().contains("de-DE"));
+        assertSame(catalog.getStyleNames(), catalog.getStyleNames());
+        assertSame(catalog.getLocaleNames(), catalog.getLocaleNames());
+    }
+
+    /**
+     * Test if metadata of independent and dependent styles can be read
+     * @throws Exception if something goes wrong
+     */
+    @Test
+    public void styleInfo() throws Exception {
+        StyleCatalog catalog = StyleCatalog.getInstance();
+
+        StyleInfo ieee = catalog.getStyleInfo("ieee");
+        assertEquals("ieee", ieee.getName());
+        assertTrue(ieee.getTitle().contains("IEEE"));
+        assertFalse(ieee.isDependent());
+        assertTrue(ieee.hasBibliography());
+        assertSame(ieee, catalog.getStyleInfo("ieee"));
+
+        StyleInfo dependent = catalog.getStyleInfo(
+                "dependent/proceedings-of-the-ieee");
+        assertTrue(dependent.isDependent());
+        assertTrue(dependent.getIndependentParent().endsWith("/ieee"));
+        assertTrue(dependent.hasBibliography());
+
+        assertFalse(catalog.getStyleInfo("oxford-art-journal").hasBibliography());
+        assertNull(catalog.getStyleInfo("jkseghg"));
+    }
+}
@@ -0,0 +1,90 @@
+package de.undercouch.citeproc.csl;
+
+import de.undercouch.citeproc.helper.json.MapJsonBuilderFactory;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests the compact representation of {@link CSLItemData}
+ * @author Michel Kraemer
+ */
+public class CSLItemDataTest {
+    private static CSLItemData createItem() {
+        return new CSLItemDataBuilder()
+                .id("ID")
+                .type(CSLType.BOOK)
+                .author("Given", "Family")
+                .genre("Genre")
+                .ISBN("978-3-16-148410-0")
+                .yearSuffix("a")
+                .build();
+    }
+
+    /**
+     * Check if set properties can be read from the item, even if they are
+     * stored in different words of the item's bit set
+     */
+    @Test
+    public void getters() {
+        CSLItemData item = createItem();
+        assertEquals("ID", item.getId());
+        assertEquals(CSLType.BOOK, item.getType());
+        assertEquals("Family", item.getAuthor()[0].getFamily());
+        assertEquals("Genre", item.getGenre());
+        assertEquals("978-3-16-148410-0", item.getISBN());
+        assertEquals("a", item.getYearSuffix());
+    }
+
+    /**
+     * Check if properties that are not set return {@code null}
+     */
+    @Test
+    public void unset() {
+        CSLItemData item = createItem();
+        assertNull(item.getTitle());
+        assertNull(item.getEditor());
+        assertNull(item.getIssued());
+        assertNull(item.getVolume());
+
+        CSLItemData empty = new CSLItemData();
+        assertNull(empty.getType());
+        assertNull(empty.getYearSuffix());
+    }
+
+    /**
+     * Check if copies of an item are equal and if modified copies are not
+     */
+    @Test
+    public void equalsAndHashCode() {
+        CSLItemData item = createItem();
+        CSLItemData copy = new CSLItemDataBuilder(item).build();
+        assertEquals(item, copy);
+        assertEquals(item.hashCode(), copy.hashCode());
+        assertArrayEquals(item.getAuthor(), copy.getAuthor());
+
+        CSLItemData modified = new CSLItemDataBuilder(item).genre(null).build();
+        assertNotEquals(item, modified);
+        assertNull(modified.getGenre());
+        assertEquals("978-3-16-148410-0", modified.getISBN());
+    }
+
+    /**
+     * Check if an item can be converted to JSON and back
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void json() {
+        CSLItemData item = createItem();
+        Map<String, Object> m = (Map<String, Object>)item.toJson(
+                new MapJsonBuilderFactory().createJsonBuilder());
+        assertEquals(6, m.size());
+        assertEquals("Genre", m.get("genre"));
+        assertEquals(item, CSLItemData.fromJson(m));
+    }
+}
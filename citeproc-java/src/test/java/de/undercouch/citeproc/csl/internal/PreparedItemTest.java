@@ -0,0 +1,92 @@
+package de.undercouch.citeproc.csl.internal;
+
+import de.undercouch.citeproc.bibtex.PageRanges;
+import de.undercouch.citeproc.csl.internal.helper.NumberElement;
+import org.junit.Test;
+
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static de.undercouch.citeproc.csl.internal.token.TextToken.Type.TEXT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link PreparedItem}
+ * @author Michel Kraemer
+ */
+public class PreparedItemTest {
+    /**
+     * Make sure parsed values are cached
+     */
+    @Test
+    public void cache() {
+        PreparedItem item = new PreparedItem();
+
+        PageRanges pr = item.getPageRanges("1-10");
+        assertSame(pr, item.getPageRanges("1-10"));
+
+        List<NumberElement> ne = item.getNumberElements("5");
+        assertSame(ne, item.getNumberElements("5"));
+
+        assertTrue(item.isNumeric("5"));
+        assertFalse(item.isNumeric("five"));
+
+        TemporalAccessor ta = item.parseDate("2020-03-04", Locale.US);
+        assertEquals(2020, ta.get(ChronoField.YEAR));
+        assertSame(ta, item.parseDate("2020-03-04", Locale.US));
+
+        String n = item.initializeName("Michel", ". ", false);
+        assertEquals("M.", n);
+        assertSame(n, item.initializeName("Michel", ". ", false));
+
+        // keys without initialize-with string must not cause exceptions
+        n = item.initializeName("Michel Kraemer", null, true);
+        assertEquals("Michel Kraemer", n);
+        assertSame(n, item.initializeName("Michel Kraemer", null, true));
+    }
+
+    /**
+     * Make sure rendered names are cached and that the cached buffers are
+     * not modified when they are appended to other buffers
+     */
+    @Test
+    public void renderedNames() {
+        PreparedItem item = new PreparedItem();
+        AtomicInteger calls = new AtomicInteger();
+        Supplier<TokenBuffer> render = () -> {
+            calls.incrementAndGet();
+            return new TokenBuffer().append("Doe", TEXT);
+        };
+
+        TokenBuffer b = item.getRenderedName("Doe", render);
+        assertSame(b, item.getRenderedName("Doe", render));
+        assertEquals(1, calls.get());
+
+        new TokenBuffer().append(b).append(", ", TEXT);
+        assertEquals("Doe", item.getRenderedName("Doe", render).toString());
+    }
+
+    /**
+     * Make sure a date that could not be parsed leads to an exception
+     * every time
+     */
+    @Test
+    public void invalidDate() {
+        PreparedItem item = new PreparedItem();
+        for (int i = 0; i < 2; ++i) {
+            try {
+                item.parseDate("not a date", Locale.US);
+                throw new AssertionError("Expected IllegalArgumentException");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package de.undercouch.citeproc.csl.internal;
+
+import de.undercouch.citeproc.csl.internal.token.Token;
+import org.junit.Test;
+
+import java.util.List;
+
+import static de.undercouch.citeproc.csl.internal.token.TextToken.Type.PREFIX;
+import static de.undercouch.citeproc.csl.internal.token.TextToken.Type.SUFFIX;
+import static de.undercouch.citeproc.csl.internal.token.TextToken.Type.TEXT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link TokenBuffer}
+ * @author Michel Kraemer
+ */
+public class TokenBufferTest {
+    /**
+     * Append and prepend single tokens
+     */
+    @Test
+    public void appendPrepend() {
+        TokenBuffer buf = new TokenBuffer();
+        assertTrue(buf.isEmpty());
+        buf.append("b", TEXT);
+        buf.append("c", TEXT);
+        buf.prepend("a", PREFIX);
+        buf.append("d", SUFFIX);
+        assertEquals(4, buf.size());
+        assertEquals("abcd", buf.toString());
+        assertEquals(4, buf.getTokens().size());
+        assertEquals("abcd", buf.toString());
+    }
+
+    /**
+     * Append and prepend other buffers and make sure they can still be
+     * modified independently
+     */
+    @Test
+    public void appendPrependBuffer() {
+        TokenBuffer a = new TokenBuffer().append("a", TEXT);
+        TokenBuffer b = new TokenBuffer().append("b", TEXT);
+        TokenBuffer c = new TokenBuffer().append("c", TEXT);
+
+        b.append(c);
+        b.prepend(a);
+        assertEquals("abc", b.toString());
+
+        a.append("x", TEXT);
+        c.append("y", TEXT);
+        b.append("z", TEXT);
+        assertEquals("ax", a.toString());
+        assertEquals("cy", c.toString());
+        assertEquals("abcz", b.toString());
+
+        b.append(new TokenBuffer());
+        b.prepend(new TokenBuffer());
+        assertEquals(4, b.size());
+    }
+
+    /**
+     * Modify the materialized list of tokens after the buffer has been
+     * appended to another one
+     */
+    @Test
+    public void getTokensAfterAppend() {
+        TokenBuffer a = new TokenBuffer().append("a", TEXT).append("b", TEXT);
+        TokenBuffer b = new TokenBuffer().append(a);
+
+        List<Token> tokens = a.getTokens();
+        tokens.remove(0);
+        assertEquals("b", a.toString());
+        assertEquals("ab", b.toString());
+
+        tokens = b.getTokens();
+        tokens.remove(1);
+        assertEquals("b", a.toString());
+        assertEquals("a", b.toString());
+    }
+
+    /**
+     * Copy portions of a buffer
+     */
+    @Test
+    public void copy() {
+        TokenBuffer buf = new TokenBuffer();
+        for (char c = 'c'; c <= 'f'; ++c) {
+            buf.append(String.valueOf(c), TEXT);
+        }
+        buf.prepend(new TokenBuffer().append("a", TEXT).append("b", TEXT));
+        buf.append(new TokenBuffer().append("g", TEXT));
+
+        assertEquals("abcdefg", buf.toString());
+        assertEquals("", buf.copy(3, 3).toString());
+        assertEquals("abcdefg", buf.copy(0, 7).toString());
+        assertEquals("bcd", buf.copy(1, 4).toString());
+        assertEquals("efg", buf.copy(4, 7).toString());
+        assertEquals("cd", buf.copy(1, 6).copy(1, 3).toString());
+
+        TokenBuffer c = buf.copy(2, 5);
+        c.append("x", TEXT);
+        c.getTokens().set(0, c.getTokens().get(1));
+        assertEquals("ddex", c.toString());
+        assertEquals("abcdefg", buf.toString());
+    }
+
+    /**
+     * Make sure deeply nested buffers do not cause a stack overflow
+     */
+    @Test
+    public void deep() {
+        TokenBuffer buf = new TokenBuffer();
+        for (int i = 0; i < 100000; ++i) {
+            buf.append(new TokenBuffer().append("a", TEXT));
+            buf.prepend("b", TEXT);
+        }
+        assertEquals(200000, buf.size());
+        int n = 0;
+        for (Token ignored : buf) {
+            n++;
+        }
+        assertEquals(200000, n);
+        assertEquals(200000, buf.getTokens().size());
+    }
+}
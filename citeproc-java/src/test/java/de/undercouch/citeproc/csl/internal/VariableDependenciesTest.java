@@ -0,0 +1,250 @@
+package de.undercouch.citeproc.csl.internal;
+
+import de.undercouch.citeproc.csl.CSLItemData;
+import de.undercouch.citeproc.csl.CSLItemDataBuilder;
+import de.undercouch.citeproc.csl.CSLType;
+import de.undercouch.citeproc.csl.internal.locale.LLocale;
+import de.undercouch.citeproc.csl.internal.rendering.SGroup;
+import de.undercouch.citeproc.helper.xml.XmlTreeReader;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link VariableDependencies}, the
+ * {@link VariableDependencyAnalyzer}, and how groups use them to skip
+ * rendering
+ * @author Michel Kraemer
+ */
+public class VariableDependenciesTest {
+    private static final String DUMMY_VARIABLE = "__dummy_group_variable";
+
+    private static final String STYLE = "<style xmlns=\"http://purl.org/net/xbiblio/csl\" " +
+            "class=\"in-text\" version=\"1.0\">" +
+            "<info><title>Test</title><id>test</id></info>" +
+            "<macro name=\"number\"><group><text variable=\"citation-number\"/></group></macro>" +
+            "<macro name=\"title\"><text variable=\"title\"/></macro>" +
+            "<citation><layout><text variable=\"title\"/></layout></citation>" +
+            "</style>";
+
+    private static SStyle style;
+    private static LLocale locale;
+
+    private static final CSLItemData EMPTY = new CSLItemDataBuilder()
+            .id("A")
+            .type(CSLType.BOOK)
+            .build();
+
+    @BeforeClass
+    public static void setUpClass() throws IOException {
+        style = new SStyle(XmlTreeReader.read(new StringReader(STYLE)));
+        try (InputStream is = VariableDependenciesTest.class
+                .getResourceAsStream("/locales-en-US.xml")) {
+            locale = new LLocale(XmlTreeReader.read(is));
+        }
+    }
+
+    /**
+     * A variable listener that records the names of all fetched variables.
+     * Extends {@link CountingVariableListener} so groups still consider
+     * skipping their contents.
+     */
+    private static class RecordingVariableListener extends CountingVariableListener {
+        final List<String> names = new ArrayList<>();
+
+        @Override
+        public void onFetchStringVariable(String name, String value) {
+            super.onFetchStringVariable(name, value);
+            names.add(name);
+        }
+    }
+
+    private static SGroup group(String xml) throws IOException {
+        SGroup g = new SGroup(XmlTreeReader.read(new StringReader(xml)));
+        g.analyzeVariables(new VariableDependencyAnalyzer(style.getMacros()));
+        return g;
+    }
+
+    private static VariableDependencies analyze(String groupXml) throws IOException {
+        return new SGroup(XmlTreeReader.read(new StringReader(groupXml)))
+                .analyzeVariables(new VariableDependencyAnalyzer(style.getMacros()));
+    }
+
+    private static RenderContext context(CSLItemData item) {
+        return new RenderContext(style, locale, item, null);
+    }
+
+    private static String render(SGroup g, RenderContext ctx) {
+        g.render(ctx);
+        return ctx.getResult().toString();
+    }
+
+    /**
+     * Test if a group is skipped if all of its variables are absent and
+     * if it tells parent groups that it fetched an empty variable
+     * @throws Exception if something goes wrong
+     */
+    @Test
+    public void skipGroupWithAbsentVariables() throws Exception {
+        String xml = "<group><text value=\"Title: \"/><text variable=\"title\"/></group>";
+        SGroup g = group(xml);
+        VariableDependencies deps = analyze(xml);
+
+        RenderContext ctx = context(EMPTY);
+        assertTrue(deps.isAlwaysEmpty(ctx));
+        RecordingVariableListener l = new RecordingVariableListener();
+        ctx.addVariableListener(l);
+        assertEquals("", render(g, ctx));
+        assertEquals(Collections.singletonList(DUMMY_VARIABLE), l.names);
+        assertEquals(1, l.getEmpty());
+
+        CSLItemData item = new CSLItemDataBuilder(EMPTY).title("The A").build();
+        ctx = context(item);
+        assertFalse(deps.isAlwaysEmpty(ctx));
+        assertEquals("Title: The A", render(g, ctx));
+    }
+
+    /**
+     * Test if constant texts do not count as non-empty variables
+     * @throws Exception if something goes wrong
+     */
+    @Test
+    public void neverEmptyWithConstantText() throws Exception {
+        String constant = "<group><text value=\"Edition\"/></group>";
+        VariableDependencies deps = analyze(constant);
+        RenderContext ctx = context(EMPTY);
+        assertFalse(deps.isAlwaysEmpty(ctx));
+        assertFalse(deps.isNeverEmpty(ctx));
+        assertEquals("Edition", render(group(constant), ctx));
+
+        String term = "<group><text term=\"edition\"/><text variable=\"title\"/></group>";
+        deps = analyze(term);
+        assertFalse(deps.isNeverEmpty(context(EMPTY)));
+        assertTrue(deps.isAlwaysEmpty(context(EMPTY)));
+        CSLItemData item = new CSLItemDataBuilder(EMPTY).title("The A").build();
+        assertTrue(deps.isNeverEmpty(context(item)));
+    }
+
+    /**
+     * Test if a {@code choose} element without {@code else} branch prevents
+     * a group from being skipped, because it may not fetch any variable
+     * @throws Exception if something goes wrong
+     */
+    @Test
+    public void chooseWithoutElse() throws Exception {
+        String xml = "<group><choose><if variable=\"DOI\">" +
+                "<text variable=\"DOI\"/></if></choose></group>";
+        VariableDependencies deps = analyze(xml);
+        assertFalse(deps.isAlwaysEmpty(context(EMPTY)));
+        assertEquals("", render(group(xml), context(EMPTY)));
+
+        CSLItemData item = new CSLItemDataBuilder(EMPTY).DOI("10.1/a").build();
+        assertFalse(deps.isNeverEmpty(context(item)));
+        assertEquals("10.1/a", render(group(xml), context(item)));
+
+        String withElse = "<group><choose><if variable=\"DOI\">" +
+                "<text variable=\"DOI\"/></if><else><text variable=\"title\"/>" +
+                "</else></choose></group>";
+        deps = analyze(withElse);
+        assertTrue(deps.isAlwaysEmpty(context(EMPTY)));
+        assertFalse(deps.isAlwaysEmpty(context(item)));
+
+        // neither variable is fetched in both branches
+        assertFalse(deps.isNeverEmpty(context(item)));
+    }
+
+    /**
+     * Test if the variables fetched by a {@code substitute} element are
+     * taken into account
+     * @throws Exception if something goes wrong
+     */
+    @Test
+    public void namesWithSubstitute() throws Exception {
+        String xml = "<group><names variable=\"author\"><name/>" +
+                "<substitute><names variable=\"editor\"/></substitute>" +
+                "</names></group>";
+        VariableDependencies deps = analyze(xml);
+        assertTrue(deps.isAlwaysEmpty(context(EMPTY)));
+
+        CSLItemData edited = new CSLItemDataBuilder(EMPTY)
+                .editor("Jane", "Doe").build();
+        assertFalse(deps.isAlwaysEmpty(context(edited)));
+
+        // the substitute may suppress the author while the group is rendered
+        CSLItemData authored = new CSLItemDataBuilder(EMPTY)
+                .author("John", "Smith").build();
+        assertFalse(deps.isNeverEmpty(context(authored)));
+
+        // a substitute rendering a constant text must not be skipped
+        String constant = "<group><names variable=\"author\"><name/>" +
+                "<substitute><text value=\"Anonymous\"/></substitute>" +
+                "</names></group>";
+        assertFalse(analyze(constant).isAlwaysEmpty(context(EMPTY)));
+    }
+
+    /**
+     * Test if a skipped nested group makes its parent group behave as if
+     * the nested group had been rendered with empty variables
+     * @throws Exception if something goes wrong
+     */
+    @Test
+    public void nestedGroups() throws Exception {
+        String xml = "<group><text value=\"In: \"/><choose><if type=\"book\">" +
+                "<group><text variable=\"container-title\"/></group>" +
+                "</if></choose></group>";
+        SGroup g = group(xml);
+
+        // the parent group cannot be skipped because of the choose element
+        assertFalse(analyze(xml).isAlwaysEmpty(context(EMPTY)));
+
+        // the nested group is skipped and the parent group is suppressed
+        RenderContext ctx = context(EMPTY);
+        RecordingVariableListener l = new RecordingVariableListener();
+        ctx.addVariableListener(l);
+        assertEquals("", render(g, ctx));
+        assertEquals(Collections.singletonList(DUMMY_VARIABLE), l.names);
+
+        CSLItemData item = new CSLItemDataBuilder(EMPTY)
+                .containerTitle("The Book").build();
+        assertEquals("In: The Book", render(g, context(item)));
+    }
+
+    /**
+     * Test if sort keys calling macros know if they depend on the
+     * citation number
+     * @throws Exception if something goes wrong
+     */
+    @Test
+    public void keyMayDependOnCitationNumber() throws Exception {
+        VariableDependencyAnalyzer analyzer =
+                new VariableDependencyAnalyzer(style.getMacros());
+
+        SKey number = new SKey(XmlTreeReader.read(new StringReader(
+                "<key macro=\"number\"/>")));
+        assertTrue(number.mayDependOnCitationNumber());
+        number.analyzeVariables(analyzer);
+        assertTrue(number.mayDependOnCitationNumber());
+
+        SKey title = new SKey(XmlTreeReader.read(new StringReader(
+                "<key macro=\"title\"/>")));
+        // keys that have not been analyzed may depend on anything
+        assertTrue(title.mayDependOnCitationNumber());
+        title.analyzeVariables(analyzer);
+        assertFalse(title.mayDependOnCitationNumber());
+
+        SKey unknown = new SKey(XmlTreeReader.read(new StringReader(
+                "<key macro=\"does-not-exist\"/>")));
+        unknown.analyzeVariables(analyzer);
+        assertTrue(unknown.mayDependOnCitationNumber());
+    }
+}
@@ -3,6 +3,7 @@ package de.undercouch.citeproc.helper;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 /**
  * Tests for {@link FrenchPunctuationSpacing}
@@ -61,4 +62,24 @@ public class FrenchPunctuationSpacingTest {
         assertEquals("Did he say\u00a0: «\u202FThis is my ‹\u202Fanonymous life\u202F›\u202F»\u202F?",
                 FrenchPunctuationSpacing.apply("Did he say: «This is my ‹anonymous life›»?"));
     }
+
+    /**
+     * Test corner cases of the {@link FrenchPunctuationSpacing#apply(String)}
+     * method
+     */
+    @Test
+    public void applyCornerCases() {
+        String s = "Nothing to do here.";
+        assertSame(s, FrenchPunctuationSpacing.apply(s));
+        assertEquals("said\u00a0:\nfoo",
+                FrenchPunctuationSpacing.apply("said:\nfoo"));
+        assertEquals("said:  foo",
+                FrenchPunctuationSpacing.apply("said:  foo"));
+        assertEquals("a\u00a0: : b",
+                FrenchPunctuationSpacing.apply("a : : b"));
+        assertEquals("a :\u202F»",
+                FrenchPunctuationSpacing.apply("a : »"));
+        assertEquals("«\u202F;",
+                FrenchPunctuationSpacing.apply("«;"));
+    }
 }
@@ -0,0 +1,65 @@
+package de.undercouch.citeproc.helper;
+
+import org.apache.commons.text.StringEscapeUtils;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests for {@link MarkupEscaper}
+ * @author Michel Kraemer
+ */
+public class MarkupEscaperTest {
+    /**
+     * Test if strings that do not have to be escaped are returned as is
+     */
+    @Test
+    public void noCopy() {
+        String s = "The UNIX Time-Sharing System";
+        assertSame(s, MarkupEscaper.escapeHtml4(s));
+        assertSame(s, MarkupEscaper.escapeXml11(s));
+        String emoji = "Smile 😀";
+        assertSame(emoji, MarkupEscaper.escapeXml11(emoji));
+        assertNull(MarkupEscaper.escapeHtml4(null));
+        assertNull(MarkupEscaper.escapeXml11(null));
+    }
+
+    /**
+     * Test if some typical strings are escaped correctly
+     */
+    @Test
+    public void escape() {
+        assertEquals("Smith &amp; Wesson &lt;i&gt;&quot;Caf&eacute;&quot;&lt;/i&gt;",
+                MarkupEscaper.escapeHtml4("Smith & Wesson <i>\"Café\"</i>"));
+        assertEquals("it's &ndash; &alpha;",
+                MarkupEscaper.escapeHtml4("it's – α"));
+        assertEquals("it&apos;s &lt;b&gt; Café&#1;",
+                MarkupEscaper.escapeXml11("it's <b> Café\u0001\u0000"));
+        assertEquals("ab", MarkupEscaper.escapeXml11("a\uD800b"));
+    }
+
+    /**
+     * Test if the results are the same as the ones from
+     * {@link StringEscapeUtils} for every character
+     */
+    @Test
+    public void compareWithStringEscapeUtils() {
+        for (int c = 0; c <= Character.MAX_VALUE; ++c) {
+            String s = "a" + (char)c + "b";
+            assertEquals(StringEscapeUtils.escapeHtml4(s),
+                    MarkupEscaper.escapeHtml4(s));
+            assertEquals(StringEscapeUtils.escapeXml11(s),
+                    MarkupEscaper.escapeXml11(s));
+
+            StringBuilder sb = new StringBuilder("x");
+            MarkupEscaper.escapeHtml4(s, sb);
+            assertEquals("x" + StringEscapeUtils.escapeHtml4(s), sb.toString());
+
+            sb = new StringBuilder("x");
+            MarkupEscaper.escapeXml11(s, sb);
+            assertEquals("x" + StringEscapeUtils.escapeXml11(s), sb.toString());
+        }
+    }
+}
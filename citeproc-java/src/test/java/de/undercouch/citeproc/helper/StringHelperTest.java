@@ -4,6 +4,7 @@ import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 /**
  * Test {@link StringHelper}
@@ -308,6 +309,27 @@ public class StringHelperTest {
         assertEquals("J.-L.", StringHelper.initializeName("J ..- L. ", ". "));
     }
 
+    /**
+     * Tests if {@link StringHelper#initializeName(String, String, boolean)}
+     * normalizes whitespace, periods, and dashes
+     */
+    @Test
+    public void initializeNameNormalizeWhitespaceAndDashes() {
+        assertEquals("J. L.", StringHelper.initializeName(" Jean \t Luc ", ". "));
+        assertEquals("Jean Luc", StringHelper.initializeName(" Jean \t Luc ", ". ", true));
+        assertEquals("JL", StringHelper.initializeName("J .  L .", ""));
+        assertEquals("J-L", StringHelper.initializeName("Jean \u2013 Luc", " "));
+        assertEquals("Jean-Luc", StringHelper.initializeName("Jean \u2013 Luc", " ", true));
+        assertEquals("J-L", StringHelper.initializeName("Jean -- Luc", " "));
+        assertEquals("J-L", StringHelper.initializeName("Jean - - Luc", " "));
+        assertEquals("J.-L.", StringHelper.initializeName("J..-L.", "."));
+        assertEquals("H--P-", StringHelper.initializeName("Hans\u2014Peter", "-"));
+
+        // results are cached
+        String n = StringHelper.initializeName("Jean Luc", ". ");
+        assertSame(n, StringHelper.initializeName("Jean Luc", ". "));
+    }
+
     /**
      * Tests {@link StringHelper#initializeName(String, String, boolean)}
      */
@@ -0,0 +1,144 @@
+package de.undercouch.citeproc.helper;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for {@link URLContentCache}
+ * @author Michel Kraemer
+ */
+public class URLContentCacheTest {
+    private static final String CONTENT = "<style>\u00fc</style>";
+    private static final String ETAG = "\"v1\"";
+
+    private HttpServer server;
+    private URL url;
+    private File dir;
+
+    /**
+     * The values of the <code>If-None-Match</code> header of all requests
+     * (or an empty string if there was no such header)
+     */
+    private final List<String> requests = new ArrayList<>();
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(
+                InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/style.csl", exchange -> {
+            String inm = exchange.getRequestHeaders().getFirst("If-None-Match");
+            synchronized (requests) {
+                requests.add(inm == null ? "" : inm);
+            }
+            if (ETAG.equals(inm)) {
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                byte[] body = CONTENT.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("ETag", ETAG);
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(body);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+        url = new URL("http://" + server.getAddress().getHostString() + ":" +
+                server.getAddress().getPort() + "/style.csl");
+        dir = Files.createTempDirectory("citeproc-java").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                f.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    private String read(URLContentCache cache) throws IOException {
+        return new String(cache.read(url), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Test if contents are served from memory
+     * @throws Exception if something goes wrong
+     */
+    @Test
+    public void memory() throws Exception {
+        URLContentCache cache = new URLContentCache();
+        assertEquals(CONTENT, read(cache));
+        assertEquals(CONTENT, read(cache));
+        assertEquals(1, requests.size());
+    }
+
+    /**
+     * Test if the number of contents kept in memory is bounded
+     * @throws Exception if something goes wrong
+     */
+    @Test
+    public void memoryBounded() throws Exception {
+        URLContentCache cache = new URLContentCache();
+        for (int i = 0; i <= 128; ++i) {
+            cache.read(new URL(url, "?" + i));
+        }
+        assertEquals(129, requests.size());
+
+        // the cache has been cleared when it was full
+        cache.read(new URL(url, "?0"));
+        assertEquals(130, requests.size());
+        cache.read(new URL(url, "?128"));
+        assertEquals(130, requests.size());
+    }
+
+    /**
+     * Test if contents are stored on disk and revalidated with the ETag
+     * @throws Exception if something goes wrong
+     */
+    @Test
+    public void revalidate() throws Exception {
+        assertEquals(CONTENT, read(new URLContentCache(dir,
+                URLContentCache.DEFAULT_MAX_AGE)));
+
+        // a new cache reads the contents from disk
+        assertEquals(CONTENT, read(new URLContentCache(dir,
+                URLContentCache.DEFAULT_MAX_AGE)));
+        assertEquals(1, requests.size());
+
+        // expired contents are revalidated
+        assertEquals(CONTENT, read(new URLContentCache(dir, 0)));
+        assertEquals(2, requests.size());
+        assertEquals(ETAG, requests.get(1));
+    }
+
+    /**
+     * Test if stale contents are served if the server is not available
+     * @throws Exception if something goes wrong
+     */
+    @Test
+    public void stale() throws Exception {
+        URLContentCache cache = new URLContentCache(dir, 0);
+        assertEquals(CONTENT, read(cache));
+        server.stop(0);
+        assertEquals(CONTENT, read(cache));
+    }
+}
@@ -0,0 +1,81 @@
+package de.undercouch.citeproc.helper.fingerprint;
+
+import de.undercouch.citeproc.csl.CSLCitationItem;
+import de.undercouch.citeproc.csl.CSLCitationItemBuilder;
+import de.undercouch.citeproc.csl.CSLItemData;
+import de.undercouch.citeproc.csl.CSLItemDataBuilder;
+import de.undercouch.citeproc.csl.CSLType;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * Tests {@link FingerprintBuilder} and {@link Fingerprint}
+ * @author Michel Kraemer
+ */
+public class FingerprintBuilderTest {
+    /**
+     * Check if equal sequences of values yield equal fingerprints
+     */
+    @Test
+    public void stable() {
+        Fingerprint a = new FingerprintBuilder().add("a").add(1).add(true).build();
+        Fingerprint b = new FingerprintBuilder().add("a").add(1).add(true).build();
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+
+        // make sure the fingerprint does not change between versions
+        assertEquals("8c21b1f7b5970508e2203f21e58ccf83",
+                new FingerprintBuilder().add("citeproc-java").build().toString());
+    }
+
+    /**
+     * Check if different sequences of values yield different fingerprints
+     */
+    @Test
+    public void different() {
+        assertNotEquals(new FingerprintBuilder().add("ab").add("c").build(),
+                new FingerprintBuilder().add("a").add("bc").build());
+        assertNotEquals(new FingerprintBuilder().add(1).build(),
+                new FingerprintBuilder().add("1").build());
+        assertNotEquals(new FingerprintBuilder().add(new int[] { 1, 2 }).build(),
+                new FingerprintBuilder().add(new int[] { 2, 1 }).build());
+        assertNotEquals(new FingerprintBuilder().add((Object)null).build(),
+                new FingerprintBuilder().build());
+    }
+
+    /**
+     * Check if fingerprints can be converted to strings and back
+     */
+    @Test
+    public void string() {
+        Fingerprint f = new FingerprintBuilder().add("citeproc-java").build();
+        assertEquals(32, f.toString().length());
+        assertEquals(f, Fingerprint.fromString(f.toString()));
+        assertEquals("000000000000000100000000000000ff",
+                new Fingerprint(1, 255).toString());
+    }
+
+    /**
+     * Check if generated objects calculate fingerprints from their contents
+     */
+    @Test
+    public void generatedObjects() {
+        CSLItemData a = new CSLItemDataBuilder()
+                .id("ID")
+                .type(CSLType.BOOK)
+                .author("Given", "Family")
+                .issued(2020, 5)
+                .build();
+        CSLItemData b = new CSLItemDataBuilder(a).build();
+        CSLItemData c = new CSLItemDataBuilder(a).issued(2021, 5).build();
+        assertEquals(a.getFingerprint(), b.getFingerprint());
+        assertNotEquals(a.getFingerprint(), c.getFingerprint());
+
+        CSLCitationItem ia = new CSLCitationItemBuilder("ID").itemData(a).build();
+        CSLCitationItem ic = new CSLCitationItemBuilder("ID").itemData(c).build();
+        assertEquals(ia.getFingerprint(), new CSLCitationItemBuilder("ID").itemData(b).build().getFingerprint());
+        assertNotEquals(ia.getFingerprint(), ic.getFingerprint());
+    }
+}
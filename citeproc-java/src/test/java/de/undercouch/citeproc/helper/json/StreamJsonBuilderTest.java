@@ -0,0 +1,77 @@
+package de.undercouch.citeproc.helper.json;
+
+import de.undercouch.citeproc.csl.CSLItemData;
+import de.undercouch.citeproc.csl.CSLItemDataBuilder;
+import de.undercouch.citeproc.csl.CSLType;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the JSON builder that writes JSON directly to an output
+ * @author Michel Kraemer
+ */
+public class StreamJsonBuilderTest {
+    /**
+     * Tests if a string array is written correctly
+     */
+    @Test
+    public void toJsonStringArray() {
+        String[] a = new String[] {
+                "a", "b", "c", "That's it"
+        };
+        StringBuilder sb = new StringBuilder();
+        new StreamJsonBuilderFactory(sb).createJsonBuilder().toJson(a);
+        assertEquals("[\"a\",\"b\",\"c\",\"That's it\"]", sb.toString());
+    }
+
+    /**
+     * Tests if a JsonObject is written correctly
+     * @throws IOException if the object could not be written
+     */
+    @Test
+    public void toJsonObject() throws IOException {
+        JsonObject obj = builder -> {
+            int[][] g = new int[][] { new int[] { 1, 2 }, new int[] { 3, 4 } };
+            builder.add("a", "test");
+            builder.add("b", "that's it");
+            builder.add("c", "var s = \"Hello\"\nä");
+            builder.add("d", true);
+            builder.add("e", false);
+            builder.add("f", 42);
+            builder.add("g", g);
+            builder.add("h", (JsonObject)JsonBuilder::build);
+            return builder.build();
+        };
+        StringWriter sw = new StringWriter();
+        obj.toJson(sw);
+        assertEquals("{\"a\":\"test\",\"b\":\"that's it\",\"c\":\"var s = "
+                + "\\\"Hello\\\"\\n\\u00E4\",\"d\":true,\"e\":false,\"f\":42,\"g\":"
+                + "[[1,2],[3,4]],\"h\":{}}", sw.toString());
+    }
+
+    /**
+     * Tests if the builder writes the same JSON as the
+     * {@link StringJsonBuilder}
+     * @throws IOException if the object could not be written
+     */
+    @Test
+    public void sameAsStringJsonBuilder() throws IOException {
+        CSLItemData item = new CSLItemDataBuilder()
+                .id("ID")
+                .type(CSLType.ARTICLE_JOURNAL)
+                .title("The \"UNIX\" Time-Sharing System")
+                .author("Dennis M.", "Ritchie")
+                .author("Ken", "Thompson")
+                .issued(1974, 7)
+                .page(365, 375)
+                .build();
+        StringWriter sw = new StringWriter();
+        item.toJson(sw);
+        assertEquals(item.toJson(new StringJsonBuilderFactory().createJsonBuilder()),
+                sw.toString());
+    }
+}
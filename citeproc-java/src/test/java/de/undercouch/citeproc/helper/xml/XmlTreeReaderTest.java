@@ -0,0 +1,53 @@
+package de.undercouch.citeproc.helper.xml;
+
+import de.undercouch.citeproc.helper.NodeHelper;
+import org.junit.Test;
+import org.w3c.dom.Node;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests the {@link XmlTreeReader}
+ * @author Michel Kraemer
+ */
+public class XmlTreeReaderTest {
+    /**
+     * Tests if a simple document with attributes, text, and comments
+     * can be read
+     * @throws IOException if the test failed
+     */
+    @Test
+    public void simpleDocument() throws IOException {
+        String xml = "<?xml version=\"1.0\" encoding=\"utf-8\"?>"
+                + "<!-- comment --><locale xmlns=\"http://purl.org/net/xbiblio/csl\" "
+                + "xml:lang=\"en-US\"><terms><term name=\"and\">a &amp; "
+                + "<![CDATA[b]]></term></terms></locale>";
+        Node root = XmlTreeReader.read(new StringReader(xml));
+        assertEquals("locale", root.getNodeName());
+        assertEquals(Node.ELEMENT_NODE, root.getNodeType());
+        assertEquals("en-US", NodeHelper.getAttrValue(root, "xml:lang"));
+        assertNull(NodeHelper.getAttrValue(root, "lang"));
+
+        Node terms = NodeHelper.findDirectChild(root, "terms");
+        assertEquals(1, terms.getChildNodes().getLength());
+        Node term = terms.getFirstChild();
+        assertEquals("term", term.getNodeName());
+        assertEquals("and", NodeHelper.getAttrValue(term, "name"));
+        assertEquals("a & b", term.getTextContent());
+        assertEquals(terms, term.getParentNode());
+        assertNull(term.getNextSibling());
+    }
+
+    /**
+     * Tests if invalid documents are rejected
+     * @throws IOException if the test succeeded
+     */
+    @Test(expected = IOException.class)
+    public void invalidDocument() throws IOException {
+        XmlTreeReader.read(new StringReader("<style><info></style>"));
+    }
+}
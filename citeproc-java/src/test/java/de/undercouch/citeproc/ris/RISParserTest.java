@@ -4,8 +4,11 @@ import org.junit.Test;
 
 import java.io.Reader;
 import java.io.StringReader;
+import java.util.Iterator;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Tests {@link RISParser}
@@ -49,4 +52,39 @@ public class RISParserTest {
         assertEquals("Johnson, S. C.", ref.getAuthors()[0]);
         assertEquals("Kernighan, B. W.", ref.getAuthors()[1]);
     }
+
+    /**
+     * Tests if multiple entries can be parsed incrementally and if tags
+     * are case-insensitive
+     */
+    @Test
+    public void iterate() {
+        String e =
+                "TY  - RPRT\n" +
+                "au  - Johnson, S. C.\n" +
+                "Ti  - The Programming Language B\n" +
+                "ER  - \n" +
+                "\n" +
+                "TY  - JOUR\n" +
+                "AU  - Ritchie, Dennis M.\n" +
+                "AU  - Thompson, Ken\n" +
+                "TI  - The UNIX Time-Sharing System\n" +
+                "ER  - ";
+
+        Iterator<RISReference> it = new RISParser().iterate(new StringReader(e));
+        assertTrue(it.hasNext());
+        RISReference ref = it.next();
+        assertEquals(RISType.RPRT, ref.getType());
+        assertEquals("The Programming Language B", ref.getTitle());
+        assertEquals(1, ref.getAuthors().length);
+
+        assertTrue(it.hasNext());
+        ref = it.next();
+        assertEquals(RISType.JOUR, ref.getType());
+        assertEquals("The UNIX Time-Sharing System", ref.getTitle());
+        assertEquals(2, ref.getAuthors().length);
+        assertEquals("Thompson, Ken", ref.getAuthors()[1]);
+
+        assertFalse(it.hasNext());
+    }
 }
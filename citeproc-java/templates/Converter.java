@@ -8,6 +8,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -37,10 +38,50 @@ public class ${desc}Converter {
      * @throws ParseException if the library is invalid
      */
     public ${desc}Library loadLibrary(InputStream is) throws IOException, ParseException {
-        Reader reader = new InputStreamReader(is, StandardCharsets.UTF_8);
+        return loadLibrary(new InputStreamReader(is, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * <p>Loads a $desc library from a character stream.</p>
+     * <p>This method does not close the given reader. The caller is
+     * responsible for closing it.</p>
+     * @param reader the reader to read from
+     * @return the $desc library
+     * @throws IOException if the library could not be read
+     * @throws ParseException if the library is invalid
+     */
+    public ${desc}Library loadLibrary(Reader reader) throws IOException, ParseException {
         $name parser = new $name();
         return parser.parse(reader);
     }
+
+    /**
+     * <p>Reads $desc references from a stream and converts them to CSL
+     * citation items on the fly. In contrast to {@link #loadLibrary(InputStream)}
+     * and {@link #toItemData(${desc}Library)}, this method does not keep
+     * the whole library in memory.</p>
+     * <p>This method does not close the given stream. The caller is
+     * responsible for closing it. The returned iterator throws an
+     * {@link java.io.UncheckedIOException} if the stream could not be read
+     * or if it is invalid.</p>
+     * @param is the input stream to read from
+     * @return an iterator over the converted citation items
+     */
+    public Iterator<CSLItemData> iterateItemData(InputStream is) {
+        Reader reader = new InputStreamReader(is, StandardCharsets.UTF_8);
+        Iterator<${desc}Reference> refs = new $name().iterate(reader);
+        return new Iterator<CSLItemData>() {
+            @Override
+            public boolean hasNext() {
+                return refs.hasNext();
+            }
+
+            @Override
+            public CSLItemData next() {
+                return toItemData(refs.next());
+            }
+        };
+    }
     
     /**
      * Converts the given library to a map of CSL citation items
@@ -51,7 +92,7 @@ public class ${desc}Converter {
         Map<String, CSLItemData> result = new HashMap<>();
         for (${desc}Reference ref : lib.getReferences()) {
             CSLItemData item = toItemData(ref);
-            result.put(item.getId(), toItemData(ref));
+            result.put(item.getId(), item);
         }
         return result;
     }
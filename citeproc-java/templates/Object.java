@@ -11,6 +11,12 @@ import de.undercouch.citeproc.helper.json.JsonBuilder;
 import de.undercouch.citeproc.helper.json.JsonObject;
 <% } %>
 
+<% if (fingerprint) { %>
+import de.undercouch.citeproc.helper.fingerprint.Fingerprint;
+import de.undercouch.citeproc.helper.fingerprint.FingerprintBuilder;
+import de.undercouch.citeproc.helper.fingerprint.Fingerprintable;
+<% } %>
+
 <% for (i in additionalImports) { %>
 import ${i};
 <% } %>
@@ -19,19 +25,66 @@ import ${i};
  * $description
  * @author Michel Kraemer
  */
-public class $name <% if (!noJsonObject) { %>implements JsonObject<% } %> {
+<%
+def interfaces = []
+if (!noJsonObject) {
+    interfaces += 'JsonObject'
+}
+if (fingerprint) {
+    interfaces += 'Fingerprintable'
+}
+%>
+public class $name <% if (!interfaces.empty) { %>implements ${interfaces.join(', ')}<% } %> {
+    <%
+    // in compact mode, optional properties are not stored in fields but
+    // in a sparse array that only contains the values that are set
+    def fieldProps = compact ? requiredProps : allProps
+    %>
     <% for (p in requiredProps) { %>private final ${p.type} ${p.normalizedName};
     <% } %>
+    <% if (compact) { %>
+    private static final Object[] NO_VALUES = new Object[0];
+
+    /**
+     * A bit set specifying which optional properties have a value
+     */
+    private final long[] present;
+
+    /**
+     * The values of all optional properties that are set (in the order of
+     * the properties' bits in {@link #present})
+     */
+    private final Object[] values;
+    <% } else { %>
     <% for (p in props) { %>private final ${p.type} ${p.normalizedName};
     <% } %>
+    <% } %>
+
+    /**
+     * The object's hash code or {@code 0} if it has not been calculated yet.
+     * The object is immutable, so the hash code only needs to be calculated
+     * once.
+     */
+    private int cachedHashCode;
+    <% if (fingerprint) { %>
+
+    /**
+     * The object's fingerprint (calculated lazily)
+     */
+    private Fingerprint fingerprint;
+    <% } %>
     
     public $name(<% if (requiredProps.size > 1) { for (p in requiredProps[0..-2]) { %>${p.type} ${p.normalizedName},<% } } %><% if (!requiredProps.empty) { %>
             ${toEllipse.call(requiredProps[-1].type)} ${requiredProps[-1].normalizedName}
             <% } %>) {
+        <% if (compact) { %>
+        this(${(requiredProps.collect({ p -> p.normalizedName }) + props.collect({ p -> p.defval ? p.defval : 'null' })).join(',')});
+        <% } else { %>
         <% for (p in requiredProps) { %>this.${p.normalizedName} = ${p.normalizedName};
         <% } %>
         <% for (p in props) { %>this.${p.normalizedName} = <% if (p.defval) { %>${p.defval}<% } else { %>null<% } %>;
         <% } %>
+        <% } %>
     }
     
     <% if (!props.empty) { %>
@@ -39,8 +92,29 @@ public class $name <% if (!noJsonObject) { %>implements JsonObject<% } %> {
             ${props.collect({ p -> p.type + ' ' + p.normalizedName }).join(',')}) {
         <% for (p in requiredProps) { %>this.${p.normalizedName} = ${p.normalizedName};
         <% } %>
+        <% if (compact) { %>
+        Object[] all = new Object[] { ${props.collect({ p -> p.normalizedName }).join(',')} };
+        long[] present = new long[${(props.size() + 63).intdiv(64)}];
+        int n = 0;
+        for (int i = 0; i < all.length; ++i) {
+            if (all[i] != null) {
+                present[i >>> 6] |= 1L << i;
+                ++n;
+            }
+        }
+        Object[] values = n == 0 ? NO_VALUES : new Object[n];
+        n = 0;
+        for (Object v : all) {
+            if (v != null) {
+                values[n++] = v;
+            }
+        }
+        this.present = present;
+        this.values = values;
+        <% } else { %>
         <% for (p in props) { %>this.${p.normalizedName} = ${p.normalizedName};
         <% } %>
+        <% } %>
     }
     <% } %>
     
@@ -52,11 +126,35 @@ public class $name <% if (!noJsonObject) { %>implements JsonObject<% } %> {
     }
     <% } %>
     
-    <% for (p in props) { %>/**
+    <% props.eachWithIndex { p, i -> %>/**
      * @return the <% if (shortname) { %>${shortname}'s <% } %>${p.name}
      */
     public ${p.type} ${toGetter.call(p.normalizedName)}() {
+        <% if (compact) { %>
+        return (${p.type})get($i);
+        <% } else { %>
         return ${p.normalizedName};
+        <% } %>
+    }
+    <% } %>
+
+    <% if (compact) { %>
+    /**
+     * Get the value of an optional property
+     * @param index the property's index
+     * @return the value or {@code null} if the property is not set
+     */
+    private Object get(int index) {
+        int word = index >>> 6;
+        long bit = 1L << index;
+        if ((present[word] & bit) == 0) {
+            return null;
+        }
+        int i = Long.bitCount(present[word] & (bit - 1));
+        for (int w = 0; w < word; ++w) {
+            i += Long.bitCount(present[w]);
+        }
+        return values[i];
     }
     <% } %>
     
@@ -64,10 +162,20 @@ public class $name <% if (!noJsonObject) { %>implements JsonObject<% } %> {
     @Override
     public Object toJson(JsonBuilder builder) {
         <% for (p in requiredProps) { %>builder.add("${p.name}", ${p.normalizedName});<% } %>
+        <% if (compact) { %>
+        <% props.eachWithIndex { p, i -> %>{
+            Object v = get($i);
+            if (v != null) {
+                builder.add("${p.name}", v);
+            }
+        }
+        <% } %>
+        <% } else { %>
         <% for (p in props) { %>if (${p.normalizedName} != null) {
             builder.add("${p.name}", ${p.normalizedName});
         }
         <% } %>
+        <% } %>
         return builder.build();
     }
     
@@ -268,17 +376,40 @@ public class $name <% if (!noJsonObject) { %>implements JsonObject<% } %> {
     <% } %>
     
     ${additionalMethods.join('\n')}
+    <% if (fingerprint) { %>
+    @Override
+    public Fingerprint getFingerprint() {
+        Fingerprint result = fingerprint;
+        if (result == null) {
+            FingerprintBuilder builder = new FingerprintBuilder();
+            <% for (p in allProps) { %>builder.add("${p.name}", <% if (compact && !p.required) { %>${toGetter.call(p.normalizedName)}()<% } else { %>${p.normalizedName}<% } %>);
+            <% } %>
+            result = builder.build();
+            fingerprint = result;
+        }
+        return result;
+    }
+    <% } %>
     
     @Override
     public int hashCode() {
+        if (cachedHashCode != 0) {
+            return cachedHashCode;
+        }
+
         int result = 1;
         
-        <% for (p in allProps) { %>result = 31 * result + <% if (p.arrayArrayType) { %>Arrays.deepHashCode(${p.normalizedName});<% } else
+        <% for (p in fieldProps) { %>result = 31 * result + <% if (p.arrayArrayType) { %>Arrays.deepHashCode(${p.normalizedName});<% } else
             if (p.arrayType) { %>Arrays.hashCode(${p.normalizedName});<% } else
             if (p.primitiveType) { %>Objects.hashCode(${p.normalizedName});<% } else {
             %>((${p.normalizedName} == null) ? 0 : ${p.normalizedName}.hashCode());<% } %>
         <% } %>
+        <% if (compact) { %>
+        result = 31 * result + Arrays.hashCode(present);
+        result = 31 * result + Arrays.deepHashCode(values);
+        <% } %>
         
+        cachedHashCode = result;
         return result;
     }
     
@@ -291,8 +422,11 @@ public class $name <% if (!noJsonObject) { %>implements JsonObject<% } %> {
         if (!(obj instanceof $name))
             return false;
         $name other = ($name) obj;
+        if (cachedHashCode != 0 && other.cachedHashCode != 0 &&
+                cachedHashCode != other.cachedHashCode)
+            return false;
         
-        <% for (p in allProps) { %>
+        <% for (p in fieldProps) { %>
             <% if (p.primitiveType) { %>
                 if (${p.normalizedName} != other.${p.normalizedName})
                     return false;
@@ -310,6 +444,12 @@ public class $name <% if (!noJsonObject) { %>implements JsonObject<% } %> {
                     return false;
             <% } %>
         <% } %>
+        <% if (compact) { %>
+        if (!Arrays.equals(present, other.present))
+            return false;
+        if (!Arrays.deepEquals(values, other.values))
+            return false;
+        <% } %>
 
         return true;
     }
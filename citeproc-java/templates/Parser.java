@@ -3,8 +3,11 @@ package $pkg;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 import org.apache.commons.lang3.StringUtils;
 
@@ -18,6 +21,17 @@ public class $name {
         it instanceof List}.collect{it[0]} as Set
     def useSwitch = props.every{it.key.length() == 1}
     def keyLen = props.collect{it.key.length()}.min()
+    // if all tags have the same length and consist of ASCII characters,
+    // pack them into an int and dispatch them with a switch statement
+    def usePackedSwitch = !useSwitch && keyLen <= 4 &&
+        props.every{it.key.length() == keyLen && it.key.chars.every{ c -> c < 0x80 }}
+    def packTag = { String k ->
+        int r = 0
+        for (c in k.toUpperCase().chars) {
+            r = (r << 8) | (int)c
+        }
+        return String.format("0x%08x", r)
+    }
     def keyPos = 0
     if (!firstCharInLine.empty) {
         ++keyPos
@@ -29,128 +43,200 @@ public class $name {
      * @return the parsed $desc library
      * @throws IOException if the input could not be read
      */
-    @SuppressWarnings("resource")
     public ${desc}Library parse(Reader r) throws IOException {
-        BufferedReader br;
-        if (r instanceof BufferedReader) {
-            br = (BufferedReader)r;
-        } else {
-            br = new BufferedReader(r);
-        }
-        
         ${desc}Library result = new ${desc}Library();
-        ${desc}ReferenceBuilder builder = null;
+        ReferenceIterator it = new ReferenceIterator(r);
+        ${desc}Reference ref;
+        while ((ref = it.readReference()) != null) {
+            result.addReference(ref);
+        }
+        return result;
+    }
+
+    /**
+     * <p>Parses $desc library files incrementally. The returned iterator
+     * reads the input on demand and only keeps the current reference in
+     * memory.</p>
+     * <p>The iterator's methods throw an {@link UncheckedIOException} if
+     * the input could not be read or if it is invalid.</p>
+     * @param r the reader that provides the input to parse
+     * @return an iterator over all references in the input
+     */
+    public Iterator<${desc}Reference> iterate(Reader r) {
+        ReferenceIterator it = new ReferenceIterator(r);
+        return new Iterator<${desc}Reference>() {
+            private ${desc}Reference next;
+            private boolean done;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null && !done) {
+                    try {
+                        next = it.readReference();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    done = next == null;
+                }
+                return next != null;
+            }
+
+            @Override
+            public ${desc}Reference next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                ${desc}Reference result = next;
+                next = null;
+                return result;
+            }
+        };
+    }
+
+    /**
+     * Reads references from the input one after the other
+     */
+    private class ReferenceIterator {
+        private final BufferedReader br;
         <%
         for (kl in knownLists) {
-            out << "List<String> ${kl} = new ArrayList<>();"
+            out << "private final List<String> ${kl} = new ArrayList<>();"
         }
         %>
+        private int lc = 0;
         
-        int lc = 0;
-        String line;
-        while ((line = br.readLine()) != null) {
-            ++lc;
-            line = line.trim();
-            <% if (entrySeparator.empty) { %>
-            if (line.isEmpty()) {
-            <% } else { %>
-            if (line.equals("$entrySeparator")) {
-            <% } %>
-                // end of reference
-                handleReference(builder, ${knownLists.join(',')}, result);
-                <%
-                for (kl in knownLists) {
-                    out << "${kl}.clear();"
-                }
-                %>
-                builder = null;
-                continue;
-            }
-            <% if (!entrySeparator.empty) { %>
-            if (line.isEmpty()) {
-                // allow for empty lines. this does not comply with the
-                // standard but is exported by Zotero
-                continue;
-            }
-            <% } %>
-            
-            if (line.length() < ${valuePos + 1}) {
-                throw new IOException("Line " + lc + " is too short");
-            }
-            <% if (!firstCharInLine.empty) { %>
-            if (line.charAt(0) != '${firstCharInLine}') {
-                throw new IOException("Illegal first character in line " + lc);
-            }
-            <% } %>
-            <% if (Character.isWhitespace(separator.charAt(0))) { %>
-            if (!Character.isWhitespace(line.charAt(${separatorPos}))) {
-                throw new IOException("Tag and value must be separated by "
-                        + "whitespace character in line " + lc);
-            }
-            <% } else { %>
-            if (line.charAt(${separatorPos}) != '${separator}') {
-                throw new IOException("Tag and value must be separated by "
-                        + "'${separator}' character in line " + lc);
-            }
-            <% } %>
-            
-            String key = line.substring($keyPos, ${keyPos + keyLen}).trim();
-            String value = line.substring($valuePos).trim();
-            
-            if (builder == null) {
-                builder = new ${desc}ReferenceBuilder();
+        @SuppressWarnings("resource")
+        ReferenceIterator(Reader r) {
+            if (r instanceof BufferedReader) {
+                br = (BufferedReader)r;
+            } else {
+                br = new BufferedReader(r);
             }
-            
-            <% if (useSwitch) { %>
-                switch (line.charAt($keyPos)) {
-            <% } %>
-            <% for (p in props) { %>
-                <% if (useSwitch) { %>
-                    case '${p.key}':
+        }
+
+        /**
+         * Read the next reference from the input
+         * @return the reference or {@code null} if there are no more
+         * references
+         * @throws IOException if the input could not be read or if it is
+         * invalid
+         */
+        ${desc}Reference readReference() throws IOException {
+            ${desc}ReferenceBuilder builder = null;
+            String line;
+            while ((line = br.readLine()) != null) {
+                ++lc;
+                line = line.trim();
+                <% if (entrySeparator.empty) { %>
+                if (line.isEmpty()) {
                 <% } else { %>
-                    if (key.equalsIgnoreCase("${p.key}")) {
+                if (line.equals("$entrySeparator")) {
                 <% } %>
-                <% if (p.value == 'type') { %>
-                    builder.type(parseType(value, lc));
-                <% } else if (p.value instanceof List) { %>
-                    ${p.value[0]}.add(value);
-                <% } else { %>
-                    builder.${p.value}(value);
+                    // end of reference
+                    if (builder != null) {
+                        return makeReference(builder);
+                    }
+                    continue;
+                }
+                <% if (!entrySeparator.empty) { %>
+                if (line.isEmpty()) {
+                    // allow for empty lines. this does not comply with the
+                    // standard but is exported by Zotero
+                    continue;
+                }
                 <% } %>
-                <% if (useSwitch) { %>
-                    break;
+                
+                if (line.length() < ${valuePos + 1}) {
+                    throw new IOException("Line " + lc + " is too short");
+                }
+                <% if (!firstCharInLine.empty) { %>
+                if (line.charAt(0) != '${firstCharInLine}') {
+                    throw new IOException("Illegal first character in line " + lc);
+                }
+                <% } %>
+                <% if (Character.isWhitespace(separator.charAt(0))) { %>
+                if (!Character.isWhitespace(line.charAt(${separatorPos}))) {
+                    throw new IOException("Tag and value must be separated by "
+                            + "whitespace character in line " + lc);
+                }
                 <% } else { %>
-                    } else
+                if (line.charAt(${separatorPos}) != '${separator}') {
+                    throw new IOException("Tag and value must be separated by "
+                            + "'${separator}' character in line " + lc);
+                }
                 <% } %>
-            <% } %>
-            <% if (useSwitch) { %>
-                default:
-            <% } else { %>
-                {
-            <% } %>
-                // ignore unknown tags
+                
+                <% if (!useSwitch && !usePackedSwitch) { %>
+                String key = line.substring($keyPos, ${keyPos + keyLen}).trim();
+                <% } %>
+                String value = line.substring($valuePos).trim();
+                
+                if (builder == null) {
+                    builder = new ${desc}ReferenceBuilder();
+                }
+                
                 <% if (useSwitch) { %>
-                break;
+                    switch (line.charAt($keyPos)) {
+                <% } else if (usePackedSwitch) { %>
+                    // pack tag characters (case-insensitive) into an int
+                    int tag = 0;
+                    for (int i = $keyPos; i < ${keyPos + keyLen}; ++i) {
+                        char c = Character.toUpperCase(line.charAt(i));
+                        if (c >= 0x80) {
+                            tag = -1;
+                            break;
+                        }
+                        tag = (tag << 8) | c;
+                    }
+                    switch (tag) {
                 <% } %>
+                <% for (p in props) { %>
+                    <% if (useSwitch) { %>
+                        case '${p.key}':
+                    <% } else if (usePackedSwitch) { %>
+                        case ${packTag(p.key)}: // ${p.key}
+                    <% } else { %>
+                        if (key.equalsIgnoreCase("${p.key}")) {
+                    <% } %>
+                    <% if (p.value == 'type') { %>
+                        builder.type(parseType(value, lc));
+                    <% } else if (p.value instanceof List) { %>
+                        ${p.value[0]}.add(value);
+                    <% } else { %>
+                        builder.${p.value}(value);
+                    <% } %>
+                    <% if (useSwitch || usePackedSwitch) { %>
+                        break;
+                    <% } else { %>
+                        } else
+                    <% } %>
+                <% } %>
+                <% if (useSwitch || usePackedSwitch) { %>
+                    default:
+                <% } else { %>
+                    {
+                <% } %>
+                    // ignore unknown tags
+                    <% if (useSwitch || usePackedSwitch) { %>
+                    break;
+                    <% } %>
+                }
+            }
+            
+            if (builder != null) {
+                return makeReference(builder);
             }
+            return null;
         }
         
-        handleReference(builder, ${knownLists.join(',')}, result);
-        
-        return result;
-    }
-    
-    private void handleReference(${desc}ReferenceBuilder builder,
-            ${knownLists.collect{'List<String> ' + it}.join(',')},
-            ${desc}Library result) {
-        if (builder != null) {
+        private ${desc}Reference makeReference(${desc}ReferenceBuilder builder) {
             <% for (kl in knownLists) { %>
             if (!${kl}.isEmpty()) {
                 builder.${kl}(${kl}.toArray(new String[0]));
+                ${kl}.clear();
             }
             <% } %>
-        
-            result.addReference(builder.build());
+            return builder.build();
         }
     }
     